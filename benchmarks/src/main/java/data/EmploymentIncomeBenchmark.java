@@ -0,0 +1,67 @@
+package data;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import housing.Config;
+import housing.Model;
+
+/**************************************************************************************************
+ * Benchmark of the gross employment income given age and income percentile, as computed for
+ * every household every month.
+ *
+ *************************************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmploymentIncomeBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_SAMPLES = 1024; // Number of pre-drawn ages and percentiles to cycle through
+
+    @Param({"src/main/resources/config.properties"})
+    String                      configFileName;
+
+    private double[]            ages = new double[N_SAMPLES];
+    private double[]            percentiles = new double[N_SAMPLES];
+    private int                 sample = 0;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Model.config = new Config(configFileName);
+        Random rand = new Random(1);
+        for (int i = 0; i < N_SAMPLES; i++) {
+            ages[i] = 18.0 + rand.nextDouble()*80.0;
+            percentiles[i] = rand.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double getAnnualGrossEmploymentIncome() {
+        sample = (sample + 1) & (N_SAMPLES - 1);
+        return EmploymentIncome.getAnnualGrossEmploymentIncome(ages[sample], percentiles[sample]);
+    }
+}
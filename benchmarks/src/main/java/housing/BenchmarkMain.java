@@ -0,0 +1,33 @@
+package housing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**************************************************************************************************
+ * Entry point of the benchmarks jar, running JMH with the given command line arguments, but
+ * writing results as JSON to 'jmh-result.json' unless another result format or file is given, so
+ * that results of different versions of the model can be compared. For instance:
+ *
+ * java -jar benchmarks/target/benchmarks.jar                   All benchmarks
+ * java -jar benchmarks/target/benchmarks.jar PriorityQueue2D   Benchmarks matching a pattern
+ * java -jar benchmarks/target/benchmarks.jar -p population=10000 -rff v2.json
+ *
+ * Benchmarks needing a model must be run from the project folder, as they read the default
+ * configuration file, which refers to data files relative to it (see ModelFixture).
+ *
+ *************************************************************************************************/
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add("jmh-result.json");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
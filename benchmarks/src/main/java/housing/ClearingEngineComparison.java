@@ -0,0 +1,335 @@
+package housing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+
+/**************************************************************************************************
+ * Equivalence and divergence report of a candidate clearing engine against the iterative one (see
+ * ClearingEngine). The same fixed-seed simulation is run twice through the normal Model entry
+ * point, each time in a JVM of its own, first with the iterative engine on both markets
+ * (reference) and then with the candidate engines, with the step profile (see StepProfiler) and
+ * the general output file activated and all other recording deactivated. For a set of aggregate
+ * series of the general output file, over the steps after the warm-up steps, the report gives
+ * whether the series of both runs are identical and, otherwise, the means of both runs, the
+ * relative difference between these means, and the mean and maximum relative difference between
+ * the values of both runs at each step. From the step profiles, it gives the steps per second and
+ * clearing rounds per step of both runs. The report is written as JSON and printed to screen,
+ * flagging every series whose means differ beyond a tolerance. For instance, from the project
+ * folder:
+ *
+ * java -cp benchmarks/target/benchmarks.jar housing.ClearingEngineComparison -saleEngine Batch
+ *      -rentalEngine Iterative -population 100000 -jvmArgs "-Xmx8g"
+ *
+ * The exit status is 1 if any series is flagged, 0 otherwise.
+ *
+ *************************************************************************************************/
+public class ClearingEngineComparison {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String[]   COMPARED_SERIES = {"Sale HPI", "Sale AvSalePrice", "Sale nSales",
+            "Sale AvMonthsOnMarket", "Sale nSalesToBTL", "Sale nSalesToFTB", "Rental HPI", "Rental AvSalePrice",
+            "Rental nSales", "Rental AvMonthsOnMarket", "nRenting", "nOwnerOccupier", "nActiveBTL", "nEmptyHouses",
+            "totalConsumption", "newlyIssuedCredit"};
+    private static final String[]   PROFILED_FIGURES = {"SALE_ROUNDS", "RENTAL_ROUNDS"};
+
+    private String                  configFileName;
+    private String                  saleEngine;
+    private String                  rentalEngine;
+    private int                     population;
+    private int                     warmUpSteps;
+    private int                     measuredSteps;
+    private Integer                 seed; // Null to keep the seed in the configuration file
+    private String                  jvmArgs;
+    private String                  outputFolder;
+    private double                  tolerance;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public static void main(String[] args) {
+        ClearingEngineComparison comparison = new ClearingEngineComparison();
+        comparison.handleInputArguments(args);
+        Run reference = comparison.run("reference", "Iterative", "Iterative");
+        Run candidate = comparison.run("candidate", comparison.saleEngine, comparison.rentalEngine);
+        boolean divergent = comparison.report(reference, candidate);
+        System.exit(divergent ? 1 : 0);
+    }
+
+    private void handleInputArguments(String[] args) {
+        Options options = new Options();
+        options.addOption("configFile", true, "Base configuration file (by default, " +
+                "'src/main/resources/config.properties').");
+        options.addOption("saleEngine", true, "Candidate engine for the sale market (by default, Batch).");
+        options.addOption("rentalEngine", true, "Candidate engine for the rental market (by default, Batch).");
+        options.addOption("population", true, "Target population (by default, 10000).");
+        options.addOption("warmUp", true, "Number of initial time steps excluded from the comparison (by default, " +
+                "200).");
+        options.addOption("steps", true, "Number of time steps to compare (by default, 400).");
+        options.addOption("seed", true, "Seed for both simulations (by default, that of the configuration file).");
+        options.addOption("jvmArgs", true, "Arguments for the JVM of each simulation, such as its maximum heap.");
+        options.addOption("outputFolder", true, "Folder for the simulations and the report (by default, " +
+                "'Results/engines-<current date and time>/').");
+        options.addOption("tolerance", true, "Relative difference between the means of a series above which it is " +
+                "flagged as divergent (by default, 0.05).");
+        options.addOption("help", false, "Print input arguments usage information.");
+        HelpFormatter formatter = new HelpFormatter();
+        try {
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            if (cmd.hasOption("help")) {
+                formatter.printHelp("ClearingEngineComparison", options);
+                System.exit(0);
+            }
+            configFileName = cmd.getOptionValue("configFile", "src/main/resources/config.properties");
+            saleEngine = cmd.getOptionValue("saleEngine", "Batch");
+            rentalEngine = cmd.getOptionValue("rentalEngine", "Batch");
+            population = Integer.parseInt(cmd.getOptionValue("population", "10000"));
+            warmUpSteps = Integer.parseInt(cmd.getOptionValue("warmUp", "200"));
+            measuredSteps = Integer.parseInt(cmd.getOptionValue("steps", "400"));
+            if (cmd.hasOption("seed")) seed = Integer.parseInt(cmd.getOptionValue("seed"));
+            jvmArgs = cmd.getOptionValue("jvmArgs", "");
+            outputFolder = cmd.getOptionValue("outputFolder", "Results/engines-"
+                    + Instant.now().toString().replace(":", "-") + "/");
+            if (!outputFolder.endsWith("/")) outputFolder += "/";
+            tolerance = Double.parseDouble(cmd.getOptionValue("tolerance", "0.05"));
+        } catch (ParseException | NumberFormatException e) {
+            System.err.println("Parsing failed. Reason: " + e.getMessage());
+            formatter.printHelp("ClearingEngineComparison", options);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Series and figures of a simulation
+     */
+    private static class Run {
+        String                      name;
+        String                      saleEngine;
+        String                      rentalEngine;
+        Map<String, List<Double>>   series = new LinkedHashMap<>();
+        Map<String, Double>         figures = new LinkedHashMap<>();
+    }
+
+    /**
+     * Run the simulation with the given engines in its own JVM, through the Model entry point, and read its general
+     * output file and its step profile
+     */
+    private Run run(String name, String saleEngine, String rentalEngine) {
+        String folder = outputFolder + name + "/";
+        String runConfigFileName = folder + "config.properties";
+        try {
+            FileUtils.forceMkdir(new File(folder));
+            // Later keys take precedence when loading properties, so overrides are simply appended to the base file
+            StringBuilder overrides = new StringBuilder(FileUtils.readFileToString(new File(configFileName),
+                    StandardCharsets.UTF_8));
+            overrides.append("\n# Overrides for the clearing engine comparison\n");
+            overrides.append("TARGET_POPULATION = ").append(population).append("\n");
+            overrides.append("N_STEPS = ").append(warmUpSteps + measuredSteps - 1).append("\n");
+            overrides.append("TIME_TO_START_RECORDING = ").append(warmUpSteps).append("\n");
+            overrides.append("N_SIMS = 1\n");
+            if (seed != null) overrides.append("SEED = ").append(seed).append("\n");
+            for (java.lang.reflect.Field field : Config.class.getDeclaredFields()) {
+                if (field.getName().startsWith("record") && field.getType() == boolean.class) {
+                    overrides.append(field.getName()).append(" = false\n");
+                }
+            }
+            overrides.append("recordOutfile = true\n");
+            overrides.append("recordStepProfile = true\n");
+            overrides.append("saleClearingEngine = ").append(saleEngine).append("\n");
+            overrides.append("rentalClearingEngine = ").append(rentalEngine).append("\n");
+            FileUtils.write(new File(runConfigFileName), overrides, StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not prepare folder '" + folder + "'", ioe);
+        }
+        ArrayList<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (!jvmArgs.trim().isEmpty()) command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Model.class.getName(),
+                "-configFile", runConfigFileName, "-outputFolder", folder, "-dev"));
+        System.out.println("Engines: " + name + " run, sale " + saleEngine + ", rental " + rentalEngine + ", "
+                + (warmUpSteps + measuredSteps) + " steps");
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(new File(folder + "model.log")).start();
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("Simulation " + name + " failed, see " + folder + "model.log");
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not start simulation " + name, ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for simulation " + name, ie);
+        }
+        Run run = new Run();
+        run.name = name;
+        run.saleEngine = saleEngine;
+        run.rentalEngine = rentalEngine;
+        readOutput(folder, run);
+        readStepProfile(folder, run);
+        return run;
+    }
+
+    /**
+     * Read the compared series from the general output file, from the first recorded step
+     */
+    private void readOutput(String folder, Run run) {
+        try {
+            List<String> lines = Files.readAllLines(new File(folder + "Output-run1.csv").toPath(),
+                    StandardCharsets.UTF_8);
+            List<String> header = new ArrayList<>();
+            for (String column : lines.get(0).split(",")) header.add(column.trim());
+            for (String series : COMPARED_SERIES) {
+                if (!header.contains(series)) throw new RuntimeException("No column '" + series + "'");
+                run.series.put(series, new ArrayList<>());
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] values = line.split(",");
+                if (values.length < header.size() - 1) continue;
+                for (String series : COMPARED_SERIES) {
+                    run.series.get(series).add(Double.parseDouble(values[header.indexOf(series)].trim()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Could not read general output in '" + folder + "'", e);
+        }
+    }
+
+    /**
+     * Read the steps per second and the clearing rounds per step of the compared steps from the step profile
+     */
+    private void readStepProfile(String folder, Run run) {
+        try {
+            List<String> lines = Files.readAllLines(new File(folder + "StepProfile-run1.csv").toPath(),
+                    StandardCharsets.UTF_8);
+            List<String> header = Arrays.asList(lines.get(0).split(",\\s*"));
+            int totalColumn = header.indexOf("total_ns");
+            long nanos = 0;
+            double[] perStep = new double[PROFILED_FIGURES.length];
+            int nSteps = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] values = line.split(",\\s*");
+                if (Integer.parseInt(values[0]) < warmUpSteps) continue;
+                nanos += Long.parseLong(values[totalColumn]);
+                for (int i = 0; i < PROFILED_FIGURES.length; i++) {
+                    perStep[i] += Double.parseDouble(values[header.indexOf(PROFILED_FIGURES[i])]);
+                }
+                nSteps++;
+            }
+            run.figures.put("stepsPerSecond", (nanos > 0) ? nSteps*1e9/nanos : 0.0);
+            run.figures.put("saleRoundsPerStep", (nSteps > 0) ? perStep[0]/nSteps : 0.0);
+            run.figures.put("rentalRoundsPerStep", (nSteps > 0) ? perStep[1]/nSteps : 0.0);
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Could not read step profile in '" + folder + "'", e);
+        }
+    }
+
+    /**
+     * Compare both runs, printing a table of the compared series and writing the report as JSON
+     *
+     * @return True if any series is flagged as divergent
+     */
+    private boolean report(Run reference, Run candidate) {
+        boolean divergent = false;
+        boolean equivalent = true;
+        StringBuilder seriesReport = new StringBuilder();
+        System.out.println(String.format("%-26s%16s%16s%10s%10s%10s", "Series", "Reference", "Candidate",
+                "Means", "MeanStep", "MaxStep"));
+        for (String name : COMPARED_SERIES) {
+            List<Double> before = reference.series.get(name);
+            List<Double> after = candidate.series.get(name);
+            int nSteps = Math.min(before.size(), after.size());
+            boolean identical = before.equals(after);
+            double meanBefore = 0.0;
+            double meanAfter = 0.0;
+            double meanStepDifference = 0.0;
+            double maxStepDifference = 0.0;
+            for (int i = 0; i < nSteps; i++) {
+                meanBefore += before.get(i);
+                meanAfter += after.get(i);
+                double stepDifference = relativeDifference(before.get(i), after.get(i));
+                meanStepDifference += stepDifference;
+                maxStepDifference = Math.max(maxStepDifference, stepDifference);
+            }
+            if (nSteps > 0) {
+                meanBefore /= nSteps;
+                meanAfter /= nSteps;
+                meanStepDifference /= nSteps;
+            }
+            double meansDifference = relativeDifference(meanBefore, meanAfter);
+            boolean flagged = meansDifference > tolerance;
+            divergent |= flagged;
+            equivalent &= identical;
+            System.out.println(String.format("%-26s%16.2f%16.2f%9.2f%%%9.2f%%%9.2f%%%s", name, meanBefore, meanAfter,
+                    meansDifference*100, meanStepDifference*100, maxStepDifference*100,
+                    identical ? "  IDENTICAL" : (flagged ? "  DIVERGENT" : "")));
+            seriesReport.append(seriesReport.length() == 0 ? "" : ",\n").append("    {\"series\": \"").append(name)
+                    .append("\", \"identical\": ").append(identical).append(", \"referenceMean\": ").append(meanBefore)
+                    .append(", \"candidateMean\": ").append(meanAfter).append(", \"meansDifference\": ")
+                    .append(meansDifference).append(", \"meanStepDifference\": ").append(meanStepDifference)
+                    .append(", \"maxStepDifference\": ").append(maxStepDifference).append(", \"divergent\": ")
+                    .append(flagged).append("}");
+        }
+        for (String figure : reference.figures.keySet()) {
+            System.out.println(String.format("%-26s%16.2f%16.2f", figure, reference.figures.get(figure),
+                    candidate.figures.get(figure)));
+        }
+        System.out.println("Engines: candidate is " + (equivalent ? "equivalent to" : "divergent from")
+                + " the reference" + (divergent ? ", beyond the tolerance" : ""));
+        String reportFileName = outputFolder + "engines-report.json";
+        try (PrintWriter report = new PrintWriter(reportFileName, "UTF-8")) {
+            report.println("{");
+            report.println("  \"configFile\": \"" + configFileName.replace("\\", "\\\\") + "\",");
+            report.println("  \"seed\": " + ((seed != null) ? seed : new Config(configFileName).SEED) + ",");
+            report.println("  \"population\": " + population + ",");
+            report.println("  \"warmUpSteps\": " + warmUpSteps + ",");
+            report.println("  \"measuredSteps\": " + measuredSteps + ",");
+            report.println("  \"tolerance\": " + tolerance + ",");
+            report.println("  \"equivalent\": " + equivalent + ",");
+            report.println("  \"divergent\": " + divergent + ",");
+            for (Run run : new Run[] {reference, candidate}) {
+                StringBuilder line = new StringBuilder("  \"" + run.name + "\": {\"saleEngine\": \"" + run.saleEngine
+                        + "\", \"rentalEngine\": \"" + run.rentalEngine + "\"");
+                for (Map.Entry<String, Double> figure : run.figures.entrySet()) {
+                    line.append(", \"").append(figure.getKey()).append("\": ").append(figure.getValue());
+                }
+                report.println(line.append("},"));
+            }
+            report.println("  \"series\": [");
+            report.println(seriesReport);
+            report.println("  ]");
+            report.println("}");
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        System.out.println("Engines: report written to " + reportFileName);
+        return divergent;
+    }
+
+    /**
+     * @return Absolute difference between both values relative to the first one, or to the second one if the first one
+     * is zero, or zero if both are zero
+     */
+    private static double relativeDifference(double before, double after) {
+        if (before == after) return 0.0;
+        return Math.abs(after - before)/((before != 0.0) ? Math.abs(before) : Math.abs(after));
+    }
+}
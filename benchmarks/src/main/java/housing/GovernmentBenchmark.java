@@ -0,0 +1,67 @@
+package housing;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**************************************************************************************************
+ * Benchmarks of the income tax and class 1 national insurance contributions due, as computed for
+ * every household every month, for annual gross incomes spread over all tax bands.
+ *
+ *************************************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GovernmentBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_SAMPLES = 1024; // Number of pre-drawn incomes to cycle through
+
+    @Param({"src/main/resources/config.properties"})
+    String                      configFileName;
+
+    private Government          government;
+    private double[]            incomes = new double[N_SAMPLES];
+    private int                 sample = 0;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Model.config = new Config(configFileName);
+        government = new Government();
+        Random rand = new Random(1);
+        for (int i = 0; i < N_SAMPLES; i++) incomes[i] = Math.exp(10.3 + 0.7*rand.nextGaussian());
+    }
+
+    private int nextSample() {
+        sample = (sample + 1) & (N_SAMPLES - 1);
+        return sample;
+    }
+
+    @Benchmark
+    public double incomeTaxDue() { return government.incomeTaxDue(incomes[nextSample()]); }
+
+    @Benchmark
+    public double class1NICsDue() { return government.class1NICsDue(incomes[nextSample()]); }
+}
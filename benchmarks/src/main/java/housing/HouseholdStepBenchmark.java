@@ -0,0 +1,68 @@
+package housing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**************************************************************************************************
+ * Benchmark of the step of every household of a prepared model, i.e., the household loop of
+ * Model.modelStep, in which households consume, pay and decide on their bids and offers. Every
+ * iteration is a single invocation, stepping the households in a new time step, the rest of which
+ * is run outside of the measurement. Note that burnIn plus the number of iterations must stay
+ * below N_STEPS.
+ *
+ *************************************************************************************************/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class HouseholdStepBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    @Param({"src/main/resources/config.properties"})
+    String  configFileName;
+    @Param({"5000", "10000"})
+    int     population;
+    @Param({"300"})
+    int     burnIn;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Setup(Level.Trial)
+    public void setUp() { ModelFixture.create(configFileName, population, burnIn); }
+
+    @Setup(Level.Iteration)
+    public void stepBefore() { ModelFixture.stepBeforeHouseholds(); }
+
+    @TearDown(Level.Iteration)
+    public void stepAfter() {
+        ModelFixture.stepBeforeSaleClearing();
+        Model.houseSaleMarket.clearMarket();
+        ModelFixture.stepAfterSaleClearing();
+    }
+
+    @Benchmark
+    public int step() {
+        ModelFixture.stepHouseholds();
+        return Model.households.size();
+    }
+}
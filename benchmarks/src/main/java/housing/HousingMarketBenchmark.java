@@ -0,0 +1,99 @@
+package housing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**************************************************************************************************
+ * Benchmarks of the clearing of the sale and rental markets, with the bids and offers issued by
+ * the households of a prepared model in each time step. Every iteration is a single invocation,
+ * clearing the bids and offers of a new time step, the rest of which is run outside of the
+ * measurement. Note that burnIn plus the number of iterations must stay below N_STEPS.
+ *
+ *************************************************************************************************/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class HousingMarketBenchmark {
+
+    /**
+     * Model prepared up to the clearing of the sale market
+     */
+    @State(Scope.Benchmark)
+    public static class SaleMarket {
+        @Param({"src/main/resources/config.properties"})
+        String  configFileName;
+        @Param({"5000", "10000"})
+        int     population;
+        @Param({"300"})
+        int     burnIn;
+
+        @Setup(Level.Trial)
+        public void setUp() { ModelFixture.create(configFileName, population, burnIn); }
+
+        @Setup(Level.Iteration)
+        public void stepBefore() {
+            ModelFixture.stepBeforeHouseholds();
+            ModelFixture.stepHouseholds();
+            ModelFixture.stepBeforeSaleClearing();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stepAfter() { ModelFixture.stepAfterSaleClearing(); }
+    }
+
+    /**
+     * Model prepared up to the clearing of the rental market
+     */
+    @State(Scope.Benchmark)
+    public static class RentalMarket {
+        @Param({"src/main/resources/config.properties"})
+        String  configFileName;
+        @Param({"5000", "10000"})
+        int     population;
+        @Param({"300"})
+        int     burnIn;
+
+        @Setup(Level.Trial)
+        public void setUp() { ModelFixture.create(configFileName, population, burnIn); }
+
+        @Setup(Level.Iteration)
+        public void stepBefore() {
+            ModelFixture.stepBeforeHouseholds();
+            ModelFixture.stepHouseholds();
+            ModelFixture.stepBeforeSaleClearing();
+            Model.houseSaleMarket.clearMarket();
+            Model.housingMarketStats.postClearingRecord();
+            Model.rentalMarketStats.preClearingRecord();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stepAfter() { ModelFixture.stepAfterRentalClearing(); }
+    }
+
+    @Benchmark
+    public HousingMarket saleClearMarket(SaleMarket state) {
+        Model.houseSaleMarket.clearMarket();
+        return Model.houseSaleMarket;
+    }
+
+    @Benchmark
+    public HousingMarket rentalClearMarket(RentalMarket state) {
+        Model.houseRentalMarket.clearMarket();
+        return Model.houseRentalMarket;
+    }
+}
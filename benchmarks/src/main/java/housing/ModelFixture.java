@@ -0,0 +1,98 @@
+package housing;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**************************************************************************************************
+ * Class to prepare a model, with its population and markets past the initial transient, on which
+ * to benchmark single phases of a time step. The time step of Model.modelStep is split here into
+ * the parts before, at and after the phase of interest, such that a benchmark can run the parts
+ * before in its set-up, time only the phase of interest, and run the parts after in its tear-down,
+ * thus leaving the model in a consistent state for the next invocation. Nothing is recorded to
+ * files, as all record* parameters are set to false.
+ *
+ *************************************************************************************************/
+class ModelFixture {
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Create and initialise a model, and run its first time steps, starting at time 0
+     *
+     * @param configFileName String with the address of the configuration file
+     * @param population Target population
+     * @param burnIn Number of time steps to run
+     */
+    static void create(String configFileName, int population, int burnIn) {
+        Properties overlay = new Properties();
+        overlay.setProperty("TARGET_POPULATION", String.valueOf(population));
+        overlay.setProperty("N_SIMS", "1");
+        for (Field field : Config.class.getDeclaredFields()) {
+            if (field.getName().startsWith("record") && field.getType() == boolean.class) {
+                overlay.setProperty(field.getName(), "false");
+            }
+        }
+        String outputFolder;
+        try {
+            outputFolder = Files.createTempDirectory("benchmark").toString() + "/";
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not create output folder for the benchmark model", ioe);
+        }
+        new Model(configFileName, overlay, outputFolder);
+        Model.nSimulation = 1;
+        Model.init();
+        Model.t = -1;
+        for (int i = 0; i < burnIn; i++) {
+            stepBeforeHouseholds();
+            stepHouseholds();
+            stepBeforeSaleClearing();
+            Model.houseSaleMarket.clearMarket();
+            stepAfterSaleClearing();
+        }
+    }
+
+    /**
+     * Start a new time step, running demographics and construction
+     */
+    static void stepBeforeHouseholds() {
+        Model.t++;
+        Model.demographics.step();
+        Model.construction.step();
+    }
+
+    /**
+     * Run the household step of Model, in which households issue their bids and offers through the market intake, if
+     * any, and any price changes of offers deferred to be applied in bulk are applied
+     */
+    static void stepHouseholds() { Model.stepHouseholds(); }
+
+    /**
+     * Run the pre-clearing record of the sale market
+     */
+    static void stepBeforeSaleClearing() { Model.housingMarketStats.preClearingRecord(); }
+
+    /**
+     * Finish the time step after the sale market has been cleared, which includes clearing the rental market
+     */
+    static void stepAfterSaleClearing() {
+        Model.housingMarketStats.postClearingRecord();
+        Model.rentalMarketStats.preClearingRecord();
+        Model.houseRentalMarket.clearMarket();
+        stepAfterRentalClearing();
+    }
+
+    /**
+     * Finish the time step after the rental market has been cleared
+     */
+    static void stepAfterRentalClearing() {
+        Model.rentalMarketStats.postClearingRecord();
+        Model.householdStats.record();
+        Model.creditSupply.step();
+        Model.bank.step(Model.households.size());
+        Model.centralBank.step(Model.coreIndicators);
+    }
+}
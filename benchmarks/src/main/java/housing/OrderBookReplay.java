@@ -0,0 +1,260 @@
+package housing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**************************************************************************************************
+ * Replay harness measuring the throughput of market clearing on order books captured from the
+ * model (see OrderBookFixture and config.recordOrderBooksAt), in isolation from the rest of the
+ * model. For each fixture, a market is rebuilt from the captured offers and bids, with the order
+ * books, clearing engine and clearing options of the configuration file unless given otherwise,
+ * and cleared, for a number of warm-up and measured iterations. Transactions only count their
+ * number and the sum of their prices, whereas bidders keep their captured bank balances, such that
+ * every iteration of a fixture clears the same workload. The market random number generator is
+ * seeded identically for every iteration, such that the number of transactions, the sum of their
+ * prices and the number of rounds can be compared between order books and engines. For instance,
+ * from the project folder:
+ *
+ * java -cp benchmarks/target/benchmarks.jar housing.OrderBookReplay -engine Batch
+ *      Results/capture/OrderBook-Sale-run1-t2000.bin.gz Results/capture/OrderBook-Rental-run1-t2000.bin.gz
+ *
+ *************************************************************************************************/
+public class OrderBookReplay {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private String          configFileName;
+    private Properties      overlay = new Properties();
+    private List<String>    fixtureFileNames;
+    private int             warmUpIterations;
+    private int             measuredIterations;
+    private int             seed;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public static void main(String[] args) {
+        OrderBookReplay replay = new OrderBookReplay();
+        replay.handleInputArguments(args);
+        System.out.println(String.format("%-44s%9s%9s%12s%12s%14s%8s%12s", "Fixture", "Offers", "Bids", "Mean ms",
+                "Min ms", "Bids/s", "Rounds", "Sales"));
+        for (String fileName : replay.fixtureFileNames) {
+            try {
+                replay.replay(fileName, OrderBookFixture.read(fileName));
+            } catch (IOException ioe) {
+                System.err.println("Could not read fixture '" + fileName + "': " + ioe.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    private void handleInputArguments(String[] args) {
+        Options options = new Options();
+        options.addOption("configFile", true, "Configuration file with the clearing options (by default, " +
+                "'src/main/resources/config.properties').");
+        options.addOption("engine", true, "Clearing engine, Iterative or Batch (by default, that of the " +
+                "configuration file for the market of each fixture).");
+        options.addOption("offerBook", true, "Order book for the price-quality queue, PriorityQueue2D or " +
+                "QualityBuckets (by default, that of the configuration file).");
+        options.addOption("yieldOfferBook", true, "Order book for the price-yield queue of the sale market, " +
+                "PriorityQueue2D or RangeMax (by default, that of the configuration file).");
+        options.addOption("set", true, "Comma-separated configuration parameters to override, such as " +
+                "'batchBidMatching=true,clearMatchedOffersOnly=true'.");
+        options.addOption("warmUp", true, "Number of warm-up iterations per fixture (by default, 10).");
+        options.addOption("iterations", true, "Number of measured iterations per fixture (by default, 50).");
+        options.addOption("seed", true, "Seed of the market random number generator (by default, 1).");
+        options.addOption("help", false, "Print input arguments usage information.");
+        HelpFormatter formatter = new HelpFormatter();
+        try {
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            if (cmd.hasOption("help") || cmd.getArgs().length == 0) {
+                formatter.printHelp("OrderBookReplay [options] fixture...", options);
+                System.exit(0);
+            }
+            configFileName = cmd.getOptionValue("configFile", "src/main/resources/config.properties");
+            if (cmd.hasOption("engine")) {
+                overlay.setProperty("saleClearingEngine", cmd.getOptionValue("engine"));
+                overlay.setProperty("rentalClearingEngine", cmd.getOptionValue("engine"));
+            }
+            if (cmd.hasOption("offerBook")) {
+                overlay.setProperty("saleOfferBook", cmd.getOptionValue("offerBook"));
+                overlay.setProperty("rentalOfferBook", cmd.getOptionValue("offerBook"));
+            }
+            if (cmd.hasOption("yieldOfferBook")) {
+                overlay.setProperty("saleYieldOfferBook", cmd.getOptionValue("yieldOfferBook"));
+            }
+            if (cmd.hasOption("set")) {
+                for (String parameter : cmd.getOptionValue("set").split(",")) {
+                    String[] keyValue = parameter.split("=", 2);
+                    if (keyValue.length != 2) throw new ParseException("Malformed parameter '" + parameter + "'");
+                    overlay.setProperty(keyValue[0].trim(), keyValue[1].trim());
+                }
+            }
+            overlay.setProperty("marketIntake", "Direct");
+            fixtureFileNames = Arrays.asList(cmd.getArgs());
+            warmUpIterations = Integer.parseInt(cmd.getOptionValue("warmUp", "10"));
+            measuredIterations = Integer.parseInt(cmd.getOptionValue("iterations", "50"));
+            seed = Integer.parseInt(cmd.getOptionValue("seed", "1"));
+        } catch (ParseException | NumberFormatException e) {
+            System.err.println("Parsing failed. Reason: " + e.getMessage());
+            formatter.printHelp("OrderBookReplay [options] fixture...", options);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Replay the clearing of a fixture for the warm-up and measured iterations, printing its figures
+     */
+    private void replay(String fileName, OrderBookFixture fixture) {
+        // Markets read the configuration when created, thus it is set up for the parameters of the fixture first
+        Model.config = new Config(configFileName, overlay);
+        Model.config.BIDUP = fixture.bidUp;
+        Model.config.derivedParams.MONTHS_UNDER_OFFER = fixture.monthsUnderOffer;
+        long totalNanos = 0;
+        long minNanos = Long.MAX_VALUE;
+        HousingMarket market = null;
+        for (int i = 0; i < warmUpIterations + measuredIterations; i++) {
+            market = fixture.saleMarket ? new ReplaySaleMarket(fixture, seed) : new ReplayRentalMarket(seed);
+            load(market, fixture);
+            long start = System.nanoTime();
+            market.clearMarket();
+            long nanos = System.nanoTime() - start;
+            if (i >= warmUpIterations) {
+                totalNanos += nanos;
+                minNanos = Math.min(minNanos, nanos);
+            }
+        }
+        double meanNanos = (measuredIterations > 0) ? (double)totalNanos/measuredIterations : 0.0;
+        String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+        ReplayMarket figures = (ReplayMarket)market;
+        System.out.println(String.format("%-44s%9d%9d%12.3f%12.3f%14.0f%8d%12d", name, fixture.getnOffers(),
+                fixture.getnBids(), meanNanos/1e6, (measuredIterations > 0) ? minNanos/1e6 : 0.0,
+                (meanNanos > 0) ? fixture.getnBids()*1e9/meanNanos : 0.0,
+                market.getnClearingRounds(), figures.getnTransactions()));
+        System.out.println(String.format("%-44s sum of transaction prices %.6f, bid-ups %d", "",
+                figures.getTransactionPrices(), figures.getnBidUps()));
+    }
+
+    /**
+     * Put the offers and bids of a fixture on a newly created market, with offers created in ascending captured id
+     * order, and bids in their captured order, such that ties between them are broken as in the captured market
+     */
+    private static void load(HousingMarket market, OrderBookFixture fixture) {
+        HouseholdStore store = new HouseholdStore(fixture.getnBids() + fixture.getnOffers() + 1);
+        Map<Integer, Household> households = new HashMap<>();
+        for (int i = 0; i < fixture.getnBids(); i++) {
+            households.put(fixture.bidderIds[i], new Household(store, fixture.bidderIds[i], fixture.bankBalances[i]));
+        }
+        Household nonHousehold = new Household(store, OrderBookFixture.NO_HOUSEHOLD, 0.0);
+        ArrayList<HouseOfferRecord> offers = new ArrayList<>(fixture.getnOffers());
+        for (int i = 0; i < fixture.getnOffers(); i++) {
+            House house = new House(fixture.qualities[i]);
+            house.id = fixture.houseIds[i];
+            int ownerId = fixture.ownerIds[i];
+            house.owner = (ownerId == OrderBookFixture.NO_HOUSEHOLD) ? nonHousehold
+                    : households.computeIfAbsent(ownerId, id -> new Household(store, id, 0.0));
+            offers.add(new HouseOfferRecord(house, fixture.offerPrices[i], fixture.BTLOffers[i], fixture.yields[i]));
+        }
+        for (HouseOfferRecord offer : offers) market.listOffer(offer);
+        for (int i = 0; i < fixture.getnBids(); i++) {
+            market.addBid(households.get(fixture.bidderIds[i]), fixture.bidPrices[i], fixture.BTLBids[i]);
+        }
+    }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Figures of the transactions of a replayed market
+     */
+    private interface ReplayMarket {
+        int getnTransactions();
+        double getTransactionPrices();
+        long getnBidUps();
+    }
+
+    /**
+     * Sale market whose transactions only count, requiring from BTL bidders the captured downpayment fraction
+     */
+    private static class ReplaySaleMarket extends HouseSaleMarket implements ReplayMarket {
+        private static final long serialVersionUID = 1L;
+
+        private double  btlMinDownpaymentFraction;
+        private int     nTransactions = 0;
+        private double  transactionPrices = 0.0;
+        private long    nBidUps = 0;
+
+        ReplaySaleMarket(OrderBookFixture fixture, int seed) {
+            super(new MersenneTwister(seed));
+            btlMinDownpaymentFraction = fixture.btlMinDownpaymentFraction;
+        }
+
+        @Override
+        public void completeTransaction(HouseBidderRecord purchase, HouseOfferRecord sale) {
+            nTransactions++;
+            transactionPrices += sale.getPrice();
+        }
+
+        @Override
+        void recordBidUps(int nBidUps) { this.nBidUps += nBidUps; }
+
+        @Override
+        double getBTLMinDownpaymentFraction() { return btlMinDownpaymentFraction; }
+
+        @Override
+        public int getnTransactions() { return nTransactions; }
+
+        @Override
+        public double getTransactionPrices() { return transactionPrices; }
+
+        @Override
+        public long getnBidUps() { return nBidUps; }
+    }
+
+    /**
+     * Rental market whose transactions only count
+     */
+    private static class ReplayRentalMarket extends HouseRentalMarket implements ReplayMarket {
+        private static final long serialVersionUID = 1L;
+
+        private int     nTransactions = 0;
+        private double  transactionPrices = 0.0;
+        private long    nBidUps = 0;
+
+        ReplayRentalMarket(int seed) { super(new MersenneTwister(seed)); }
+
+        @Override
+        public void completeTransaction(HouseBidderRecord purchase, HouseOfferRecord sale) {
+            nTransactions++;
+            transactionPrices += sale.getPrice();
+        }
+
+        @Override
+        void recordBidUps(int nBidUps) { this.nBidUps += nBidUps; }
+
+        @Override
+        public int getnTransactions() { return nTransactions; }
+
+        @Override
+        public double getTransactionPrices() { return transactionPrices; }
+
+        @Override
+        public long getnBidUps() { return nBidUps; }
+    }
+}
@@ -0,0 +1,324 @@
+package housing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+
+/**************************************************************************************************
+ * Macro-benchmark of how the whole model scales with the population. For each population of a
+ * ladder, a fixed-seed simulation is run through the normal Model entry point, in a JVM of its
+ * own (such that heap and garbage collection figures of different populations do not mix), with
+ * the step profile (see StepProfiler) activated and, unless requested otherwise, all other
+ * recording deactivated. From the step profile of the steady-state steps (those after the warm-up
+ * steps), the following are reported for each population: steps per second, garbage collection
+ * time, and bids, offers, clearing rounds and offers visited when clearing matches per step for
+ * both markets, as well as the peak heap and the heap retained after the last garbage collection
+ * of the whole run. The report is written as JSON and, if a baseline report is given, compared
+ * with it, flagging any change for the worse beyond a tolerance in steps per second, heap or
+ * garbage collection time. For instance, from the project folder:
+ *
+ * java -cp benchmarks/target/benchmarks.jar housing.ScalingBenchmark -populations 10000,100000
+ *      -jvmArgs "-Xmx8g" -baseline Results/scaling-old/scaling-report.json
+ *
+ * The exit status is 1 if any regression is flagged, 0 otherwise.
+ *
+ *************************************************************************************************/
+public class ScalingBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String[]   PER_STEP_FIGURES = {"SALE_BIDS", "SALE_OFFERS", "SALE_ROUNDS",
+            "SALE_VISITED_OFFERS", "RENTAL_BIDS", "RENTAL_OFFERS", "RENTAL_ROUNDS", "RENTAL_VISITED_OFFERS"};
+    // Figures compared with the baseline, with true if higher is better
+    private static final Map<String, Boolean> COMPARED_FIGURES = new LinkedHashMap<>();
+    static {
+        COMPARED_FIGURES.put("stepsPerSecond", true);
+        COMPARED_FIGURES.put("peakHeapBytes", false);
+        COMPARED_FIGURES.put("retainedHeapBytes", false);
+        COMPARED_FIGURES.put("gcMillis", false);
+    }
+    private static final Pattern    FIGURE = Pattern.compile("\"(\\w+)\": (-?[0-9.eE+-]+)");
+
+    private String                  configFileName;
+    private int[]                   populations;
+    private int                     warmUpSteps;
+    private int                     measuredSteps;
+    private Integer                 seed; // Null to keep the seed in the configuration file
+    private boolean                 recording;
+    private String                  jvmArgs;
+    private String                  outputFolder;
+    private String                  baselineFileName;
+    private double                  tolerance;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public static void main(String[] args) {
+        ScalingBenchmark benchmark = new ScalingBenchmark();
+        benchmark.handleInputArguments(args);
+        List<Map<String, Double>> runs = new ArrayList<>();
+        for (int population : benchmark.populations) runs.add(benchmark.runPopulation(population));
+        benchmark.writeReport(runs);
+        boolean regression = false;
+        if (benchmark.baselineFileName != null) regression = benchmark.compare(runs);
+        System.exit(regression ? 1 : 0);
+    }
+
+    private void handleInputArguments(String[] args) {
+        Options options = new Options();
+        options.addOption("configFile", true, "Base configuration file (by default, " +
+                "'src/main/resources/config.properties').");
+        options.addOption("populations", true, "Comma-separated ladder of target populations (by default, " +
+                "10000,100000,1000000).");
+        options.addOption("warmUp", true, "Number of initial time steps excluded from the steady-state figures (by " +
+                "default, 100).");
+        options.addOption("steps", true, "Number of steady-state time steps to measure (by default, 200).");
+        options.addOption("seed", true, "Seed for all simulations (by default, that of the configuration file).");
+        options.addOption("record", false, "Keep the recording of results as in the configuration file, instead " +
+                "of deactivating it.");
+        options.addOption("jvmArgs", true, "Arguments for the JVM of each simulation, such as its maximum heap.");
+        options.addOption("outputFolder", true, "Folder for the simulations and the report (by default, " +
+                "'Results/scaling-<current date and time>/').");
+        options.addOption("baseline", true, "Report of a previous run with which to compare the results.");
+        options.addOption("tolerance", true, "Relative change for the worse above which a figure is flagged as a " +
+                "regression (by default, 0.1).");
+        options.addOption("help", false, "Print input arguments usage information.");
+        HelpFormatter formatter = new HelpFormatter();
+        try {
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            if (cmd.hasOption("help")) {
+                formatter.printHelp("ScalingBenchmark", options);
+                System.exit(0);
+            }
+            configFileName = cmd.getOptionValue("configFile", "src/main/resources/config.properties");
+            populations = Arrays.stream(cmd.getOptionValue("populations", "10000,100000,1000000").split(","))
+                    .mapToInt(population -> Integer.parseInt(population.trim())).toArray();
+            warmUpSteps = Integer.parseInt(cmd.getOptionValue("warmUp", "100"));
+            measuredSteps = Integer.parseInt(cmd.getOptionValue("steps", "200"));
+            if (cmd.hasOption("seed")) seed = Integer.parseInt(cmd.getOptionValue("seed"));
+            recording = cmd.hasOption("record");
+            jvmArgs = cmd.getOptionValue("jvmArgs", "");
+            outputFolder = cmd.getOptionValue("outputFolder", "Results/scaling-"
+                    + Instant.now().toString().replace(":", "-") + "/");
+            if (!outputFolder.endsWith("/")) outputFolder += "/";
+            baselineFileName = cmd.getOptionValue("baseline");
+            tolerance = Double.parseDouble(cmd.getOptionValue("tolerance", "0.1"));
+        } catch (ParseException | NumberFormatException e) {
+            System.err.println("Parsing failed. Reason: " + e.getMessage());
+            formatter.printHelp("ScalingBenchmark", options);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Run the simulation for a population in its own JVM, through the Model entry point, and read its step profile
+     *
+     * @return Figures of the simulation, by name
+     */
+    private Map<String, Double> runPopulation(int population) {
+        String folder = outputFolder + "population-" + population + "/";
+        String runConfigFileName = folder + "config.properties";
+        try {
+            FileUtils.forceMkdir(new File(folder));
+            // Later keys take precedence when loading properties, so overrides are simply appended to the base file
+            StringBuilder overrides = new StringBuilder(FileUtils.readFileToString(new File(configFileName),
+                    StandardCharsets.UTF_8));
+            overrides.append("\n# Overrides for the scaling benchmark\n");
+            overrides.append("TARGET_POPULATION = ").append(population).append("\n");
+            overrides.append("N_STEPS = ").append(warmUpSteps + measuredSteps - 1).append("\n");
+            overrides.append("N_SIMS = 1\n");
+            if (seed != null) overrides.append("SEED = ").append(seed).append("\n");
+            if (!recording) {
+                for (java.lang.reflect.Field field : Config.class.getDeclaredFields()) {
+                    if (field.getName().startsWith("record") && field.getType() == boolean.class) {
+                        overrides.append(field.getName()).append(" = false\n");
+                    }
+                }
+            }
+            overrides.append("recordStepProfile = true\n");
+            FileUtils.write(new File(runConfigFileName), overrides, StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not prepare folder '" + folder + "'", ioe);
+        }
+        ArrayList<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (!jvmArgs.trim().isEmpty()) command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Model.class.getName(),
+                "-configFile", runConfigFileName, "-outputFolder", folder, "-dev"));
+        System.out.println("Scaling: population " + population + ", " + (warmUpSteps + measuredSteps) + " steps");
+        long start = System.nanoTime();
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(new File(folder + "model.log")).start();
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("Simulation for population " + population + " failed, see " + folder
+                        + "model.log");
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not start simulation for population " + population, ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for simulation for population " + population, ie);
+        }
+        Map<String, Double> figures = readStepProfile(folder);
+        figures.put("wallSeconds", (System.nanoTime() - start)/1e9);
+        figures.put("population", (double)population);
+        System.out.println(String.format("Scaling: population %d, %.2f steps/s, %.1f MB peak heap, %.1f MB retained " +
+                        "heap, %.1f sale rounds/step", population, figures.get("stepsPerSecond"),
+                figures.get("peakHeapBytes")/1048576.0, figures.get("retainedHeapBytes")/1048576.0,
+                figures.get("saleRoundsPerStep")));
+        return figures;
+    }
+
+    /**
+     * @return Steady-state figures from the per-step profile and whole-run heap figures from the profile summary
+     */
+    private Map<String, Double> readStepProfile(String folder) {
+        Map<String, Double> figures = new LinkedHashMap<>();
+        try {
+            List<String> lines = Files.readAllLines(new File(folder + "StepProfile-run1.csv").toPath(),
+                    StandardCharsets.UTF_8);
+            List<String> header = Arrays.asList(lines.get(0).split(",\\s*"));
+            int totalColumn = header.indexOf("total_ns");
+            int gcColumn = header.indexOf("gc_ms");
+            long nanos = 0;
+            long gcMillis = 0;
+            double[] perStep = new double[PER_STEP_FIGURES.length];
+            int nSteps = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                String[] values = line.split(",\\s*");
+                if (Integer.parseInt(values[0]) < warmUpSteps) continue;
+                nanos += Long.parseLong(values[totalColumn]);
+                gcMillis += Long.parseLong(values[gcColumn]);
+                for (int i = 0; i < PER_STEP_FIGURES.length; i++) {
+                    perStep[i] += Double.parseDouble(values[header.indexOf(PER_STEP_FIGURES[i])]);
+                }
+                nSteps++;
+            }
+            figures.put("measuredSteps", (double)nSteps);
+            figures.put("stepsPerSecond", (nanos > 0) ? nSteps*1e9/nanos : 0.0);
+            figures.put("gcMillis", (double)gcMillis);
+            for (int i = 0; i < PER_STEP_FIGURES.length; i++) {
+                figures.put(toCamelCase(PER_STEP_FIGURES[i]) + "PerStep", (nSteps > 0) ? perStep[i]/nSteps : 0.0);
+            }
+            for (String line : Files.readAllLines(new File(folder + "StepProfileSummary-run1.csv").toPath(),
+                    StandardCharsets.UTF_8)) {
+                String[] values = line.split(",\\s*");
+                if (values[0].equals("PEAK_HEAP_BYTES") || values[0].equals("RETAINED_HEAP_BYTES")) {
+                    figures.put(toCamelCase(values[0]), Double.parseDouble(values[1]));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Could not read step profile in '" + folder + "'", e);
+        }
+        return figures;
+    }
+
+    /**
+     * @return Name in camel case, e.g., "saleRounds" for "SALE_ROUNDS"
+     */
+    private static String toCamelCase(String name) {
+        StringBuilder camelCase = new StringBuilder();
+        for (String word : name.toLowerCase().split("_")) {
+            camelCase.append(camelCase.length() == 0 ? word : Character.toUpperCase(word.charAt(0))
+                    + word.substring(1));
+        }
+        return camelCase.toString();
+    }
+
+    /**
+     * Write the report as JSON, with one line per population, such that it can be read back as a baseline
+     */
+    private void writeReport(List<Map<String, Double>> runs) {
+        String reportFileName = outputFolder + "scaling-report.json";
+        try (PrintWriter report = new PrintWriter(reportFileName, "UTF-8")) {
+            report.println("{");
+            report.println("  \"configFile\": \"" + configFileName.replace("\\", "\\\\") + "\",");
+            report.println("  \"seed\": " + ((seed != null) ? seed : new Config(configFileName).SEED) + ",");
+            report.println("  \"warmUpSteps\": " + warmUpSteps + ",");
+            report.println("  \"recording\": " + recording + ",");
+            report.println("  \"jvmArgs\": \"" + jvmArgs.replace("\\", "\\\\").replace("\"", "\\\"") + "\",");
+            report.println("  \"javaVersion\": \"" + System.getProperty("java.version") + "\",");
+            report.println("  \"runs\": [");
+            for (int i = 0; i < runs.size(); i++) {
+                StringBuilder run = new StringBuilder("    {");
+                String separator = "";
+                for (Map.Entry<String, Double> figure : runs.get(i).entrySet()) {
+                    run.append(separator).append("\"").append(figure.getKey()).append("\": ");
+                    double value = figure.getValue();
+                    run.append(value == Math.rint(value) ? String.valueOf((long)value) : String.valueOf(value));
+                    separator = ", ";
+                }
+                report.println(run.append("}").append(i < runs.size() - 1 ? "," : ""));
+            }
+            report.println("  ]");
+            report.println("}");
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        System.out.println("Scaling: report written to " + reportFileName);
+    }
+
+    /**
+     * Compare the figures of each population with those of the same population in the baseline report, printing a
+     * table of relative changes
+     *
+     * @return True if any figure changed for the worse beyond the tolerance
+     */
+    private boolean compare(List<Map<String, Double>> runs) {
+        Map<Long, Map<String, Double>> baseline = new LinkedHashMap<>();
+        try {
+            for (String line : Files.readAllLines(new File(baselineFileName).toPath(), StandardCharsets.UTF_8)) {
+                if (!line.trim().startsWith("{\"")) continue;
+                Map<String, Double> figures = new LinkedHashMap<>();
+                Matcher matcher = FIGURE.matcher(line);
+                while (matcher.find()) figures.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+                if (figures.containsKey("population")) baseline.put(figures.get("population").longValue(), figures);
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not read baseline report '" + baselineFileName + "'", ioe);
+        }
+        boolean regression = false;
+        System.out.println(String.format("%-12s%-20s%16s%16s%10s", "Population", "Figure", "Baseline", "Current",
+                "Change"));
+        for (Map<String, Double> run : runs) {
+            long population = run.get("population").longValue();
+            Map<String, Double> baselineRun = baseline.get(population);
+            if (baselineRun == null) {
+                System.out.println(String.format("%-12d%s", population, "not in baseline"));
+                continue;
+            }
+            for (Map.Entry<String, Boolean> figure : COMPARED_FIGURES.entrySet()) {
+                Double before = baselineRun.get(figure.getKey());
+                double after = run.get(figure.getKey());
+                if (before == null || before == 0.0) continue;
+                double change = (after - before)/before;
+                boolean worse = figure.getValue() ? change < -tolerance : change > tolerance;
+                regression |= worse;
+                System.out.println(String.format("%-12d%-20s%16.2f%16.2f%+9.1f%%%s", population, figure.getKey(),
+                        before, after, change*100, worse ? "  REGRESSION" : ""));
+            }
+        }
+        return regression;
+    }
+}
@@ -0,0 +1,61 @@
+package utilities;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**************************************************************************************************
+ * Benchmark of the inverse cumulative probability of a Pdf read from a binned data file, as used
+ * whenever households draw from one of the data distributions (e.g., initial mark-ups).
+ *
+ *************************************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_SAMPLES = 1024; // Number of pre-drawn probabilities to cycle through
+
+    @Param({"src/main/resources/InitialSaleMarkUpDist.csv"})
+    String                      fileName;
+
+    private Pdf                 pdf;
+    private double[]            probabilities = new double[N_SAMPLES];
+    private int                 sample = 0;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pdf = new Pdf(fileName);
+        Random rand = new Random(1);
+        for (int i = 0; i < N_SAMPLES; i++) probabilities[i] = rand.nextDouble();
+    }
+
+    @Benchmark
+    public double inverseCumulativeProbability() {
+        sample = (sample + 1) & (N_SAMPLES - 1);
+        return pdf.inverseCumulativeProbability(probabilities[sample]);
+    }
+}
@@ -0,0 +1,153 @@
+package utilities;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**************************************************************************************************
+ * Benchmarks of the price-quality priority queue of offers, at offer-book sizes ranging from those
+ * of small test populations to those of full-size simulations. Offers are random prices (log-
+ * normally distributed) and qualities, ordered as HousingMarketRecord.PQComparator orders them,
+ * held in a PriorityQueue2D, a QualityBucketedOrderBook or a RangeMaxOrderBook (the latter being
+ * meant for continuous yields, but equally applicable to qualities).
+ *
+ *************************************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityQueue2DBenchmark {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_QUALITY = 48;
+    private static final int    N_SAMPLES = 1024; // Number of pre-drawn offers and bids to cycle through
+
+    @Param({"1000", "10000", "100000"})
+    int                         size;
+
+    @Param({"PriorityQueue2D", "QualityBuckets", "RangeMax"})
+    String                      book;
+
+    private OrderBook<Offer>    offers;
+    private Offer[]             newOffers = new Offer[N_SAMPLES];
+    private Offer[]             bids = new Offer[N_SAMPLES];
+    private int                 sample = 0;
+
+    /**
+     * Minimal offer, with a price, a quality and an id
+     */
+    static class Offer {
+        final double    price;
+        final int       quality;
+        final int       id;
+
+        Offer(double price, int quality, int id) {
+            this.price = price;
+            this.quality = quality;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Price-quality ordering, as in HousingMarketRecord.PQComparator
+     */
+    static class PQComparator implements PriorityQueue2D.XYComparator<Offer> {
+        @Override
+        public int XYCompare(Offer arg0, Offer arg1) {
+            double diff = arg0.price - arg1.price;
+            if (diff == 0.0) {
+                diff = arg1.quality - arg0.quality;
+                if (diff == 0.0) diff = arg0.id - arg1.id;
+            }
+            return (int)Math.signum(diff);
+        }
+
+        @Override
+        public int XCompare(Offer arg0, Offer arg1) { return (int)Math.signum(arg0.price - arg1.price); }
+
+        @Override
+        public int YCompare(Offer arg0, Offer arg1) { return Integer.signum(arg0.quality - arg1.quality); }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rand = new Random(1);
+        if (book.equals("PriorityQueue2D")) {
+            offers = new PriorityQueue2D<>(new PQComparator());
+        } else if (book.equals("QualityBuckets")) {
+            offers = new QualityBucketedOrderBook<>(N_QUALITY, offer -> offer.quality, offer -> offer.price,
+                    new PQComparator());
+        } else {
+            offers = new RangeMaxOrderBook<>(new PQComparator());
+        }
+        for (int i = 0; i < size; i++) offers.add(drawOffer(rand, i));
+        offers.sortPriorities();
+        for (int i = 0; i < N_SAMPLES; i++) {
+            newOffers[i] = drawOffer(rand, size + i);
+            bids[i] = new Offer(drawPrice(rand), N_QUALITY, Integer.MAX_VALUE);
+        }
+    }
+
+    private static Offer drawOffer(Random rand, int id) {
+        double price = drawPrice(rand);
+        // Quality increasing with price, with noise, as houses of higher quality are offered at higher prices
+        int quality = (int)Math.max(0, Math.min(N_QUALITY - 1, (Math.log(price) - 11.0)*12.0 + 24.0
+                + rand.nextGaussian()*6.0));
+        return new Offer(price, quality, id);
+    }
+
+    private static double drawPrice(Random rand) { return Math.exp(12.0 + 0.6*rand.nextGaussian()); }
+
+    private int nextSample() {
+        sample = (sample + 1) & (N_SAMPLES - 1);
+        return sample;
+    }
+
+    /**
+     * Add an offer and remove it again, keeping the size of the queue
+     */
+    @Benchmark
+    public Offer addRemove() {
+        Offer offer = newOffers[nextSample()];
+        offers.add(offer);
+        offers.remove(offer);
+        return offer;
+    }
+
+    /**
+     * Find the best quality offer at or below a bid price
+     */
+    @Benchmark
+    public Offer peek() { return offers.peek(bids[nextSample()]); }
+
+    /**
+     * Rebuild the set of uncovered offers, as done at the start of every market clearing (nothing to do for
+     * QualityBucketedOrderBook and RangeMaxOrderBook)
+     */
+    @Benchmark
+    public OrderBook<Offer> sortPriorities() {
+        offers.sortPriorities();
+        return offers;
+    }
+}
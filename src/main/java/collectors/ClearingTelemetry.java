@@ -0,0 +1,244 @@
+package collectors;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import housing.Model;
+
+/**************************************************************************************************
+ * Collector of telemetry on the clearing of a single housing market, fed by the market itself
+ * while clearing. For every round of matching bids with offers and clearing the matches, it
+ * writes a row to the file 'ClearingRounds-<market>-run<n>.csv' with the bids going into the
+ * round, the bids matched with an offer, the bids re-queued from oversubscribed offers, the
+ * offers cleared, the offers left on the market, and the time (nanoseconds) spent matching bids
+ * with offers and clearing the matches. For every time step, it writes a row to the file
+ * 'ClearingTelemetry-<market>-run<n>.csv' with the bids and offers at the start and the end of
+ * the clearing, the number of rounds, the totals of the per-round figures, the number of offers
+ * matched with 1 to 9 and with 10 or more bids (oversubscription distribution), the largest
+ * number of bids matched with a single offer, and the number of bid-ups. The figures of the last
+ * time step are also available through the getters. The bids and offers at the start and the end
+ * of the clearing, the rounds and the bids going into each round are not counted here, but passed
+ * in by the market from its own clearing counters, the same ones read by the step profiler.
+ * Telemetry is activated by config.recordClearingTelemetry, with markets doing no extra work at
+ * all otherwise.
+ *
+ *************************************************************************************************/
+public class ClearingTelemetry {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_BID_BINS = 10; // Offers with 1 to N_BID_BINS - 1 bids, and with more
+
+    private String              marketName;
+    private PrintWriter         roundsFile;
+    private PrintWriter         stepsFile;
+    // Current round
+    private int                 roundMatchedBids;
+    private int                 roundClearedOffers;
+    // Current time step
+    private int                 nBidsAtStart;
+    private int                 nOffersAtStart;
+    private int                 nBidsAtEnd;
+    private int                 nOffersAtEnd;
+    private int                 nRounds;
+    private long                roundBids;
+    private long                matchedBids;
+    private long                requeuedBids;
+    private int                 clearedOffers;
+    private int[]               offersPerNBids = new int[N_BID_BINS];
+    private int                 maxBidsPerOffer;
+    private long                nBidUps;
+    private int                 nBidUpOffers;
+    private long                matchNanos;
+    private long                clearNanos;
+    // Whole run
+    private int                 nSteps = 0;
+    private long                totalRounds = 0;
+    private int                 maxRounds = 0;
+    private long                totalMatchNanos = 0;
+    private long                totalClearNanos = 0;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param outputFolder String with the address of the folder for storing results
+     * @param marketName Name of the market, used in file names, such as "Sale" or "Rental"
+     * @param nRun Number of the simulation being recorded
+     */
+    public ClearingTelemetry(String outputFolder, String marketName, int nRun) {
+        this.marketName = marketName;
+        try {
+            roundsFile = new PrintWriter(outputFolder + "ClearingRounds-" + marketName + "-run" + nRun + ".csv",
+                    "UTF-8");
+            roundsFile.println("Model time, round, bids_in, matched_bids, requeued_bids, cleared_offers, offers_left, "
+                    + "match_ns, clear_ns");
+            stepsFile = new PrintWriter(outputFolder + "ClearingTelemetry-" + marketName + "-run" + nRun + ".csv",
+                    "UTF-8");
+            StringBuilder header = new StringBuilder("Model time, bids_at_start, offers_at_start, bids_at_end, "
+                    + "offers_at_end, rounds, round_bids, matched_bids, requeued_bids, cleared_offers");
+            for (int i = 1; i < N_BID_BINS; i++) header.append(", offers_with_").append(i).append("_bids");
+            header.append(", offers_with_").append(N_BID_BINS).append("plus_bids");
+            header.append(", max_bids_per_offer, bid_up_offers, bid_ups, match_ns, clear_ns");
+            stepsFile.println(header);
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Start recording the clearing of the market for the current time step
+     */
+    public void startClearing() {
+        roundMatchedBids = 0;
+        roundClearedOffers = 0;
+        matchedBids = 0;
+        requeuedBids = 0;
+        clearedOffers = 0;
+        Arrays.fill(offersPerNBids, 0);
+        maxBidsPerOffer = 0;
+        nBidUps = 0;
+        nBidUpOffers = 0;
+        matchNanos = 0;
+        clearNanos = 0;
+    }
+
+    /**
+     * Record an offer cleared in the current round
+     *
+     * @param nBids Number of bids matched with the offer
+     */
+    public void offerCleared(int nBids) {
+        roundMatchedBids += nBids;
+        roundClearedOffers++;
+        offersPerNBids[Math.min(nBids, N_BID_BINS) - 1]++;
+        maxBidsPerOffer = Math.max(maxBidsPerOffer, nBids);
+    }
+
+    /**
+     * Record the bid-ups of an oversubscribed offer cleared in the current round
+     *
+     * @param nBidUps Number of bid-ups
+     */
+    public void offerBidUp(int nBidUps) {
+        this.nBidUps += nBidUps;
+        nBidUpOffers++;
+    }
+
+    /**
+     * Finish recording the current round, writing its row, and start recording the next one
+     *
+     * @param round Number of the round within the clearing of this time step, as counted by the market
+     * @param nBidsIn Number of bids going into the round, as counted by the market
+     * @param nRequeuedBids Number of bids re-queued from oversubscribed offers for the next round
+     * @param nOffersLeft Number of offers left on the market
+     * @param roundMatchNanos Time spent matching bids with offers in this round
+     * @param roundClearNanos Time spent clearing the matches in this round
+     */
+    public void finishRound(int round, int nBidsIn, int nRequeuedBids, int nOffersLeft, long roundMatchNanos,
+                            long roundClearNanos) {
+        matchedBids += roundMatchedBids;
+        requeuedBids += nRequeuedBids;
+        clearedOffers += roundClearedOffers;
+        matchNanos += roundMatchNanos;
+        clearNanos += roundClearNanos;
+        if (roundsFile != null) {
+            roundsFile.println(Model.getTime() + ", " + round + ", " + nBidsIn + ", " + roundMatchedBids + ", "
+                    + nRequeuedBids + ", " + roundClearedOffers + ", " + nOffersLeft + ", " + roundMatchNanos + ", "
+                    + roundClearNanos);
+        }
+        roundMatchedBids = 0;
+        roundClearedOffers = 0;
+    }
+
+    /**
+     * Finish recording the clearing of the market for the current time step, writing its row and adding it to the
+     * totals of the run. All figures are those counted by the market
+     *
+     * @param nBidsAtStart Number of bids on the market at the start of the clearing
+     * @param nOffersAtStart Number of offers on the market at the start of the clearing
+     * @param nRounds Number of rounds of the clearing
+     * @param roundBids Number of bids going into the rounds, summed over all rounds
+     * @param nBidsAtEnd Number of bids left unmatched
+     * @param nOffersAtEnd Number of offers left on the market
+     */
+    public void finishClearing(int nBidsAtStart, int nOffersAtStart, int nRounds, long roundBids, int nBidsAtEnd,
+                               int nOffersAtEnd) {
+        this.nBidsAtStart = nBidsAtStart;
+        this.nOffersAtStart = nOffersAtStart;
+        this.nRounds = nRounds;
+        this.roundBids = roundBids;
+        this.nBidsAtEnd = nBidsAtEnd;
+        this.nOffersAtEnd = nOffersAtEnd;
+        StringBuilder row = new StringBuilder().append(Model.getTime()).append(", ").append(nBidsAtStart).append(", ")
+                .append(nOffersAtStart).append(", ").append(nBidsAtEnd).append(", ").append(nOffersAtEnd).append(", ")
+                .append(nRounds).append(", ").append(roundBids).append(", ").append(matchedBids).append(", ")
+                .append(requeuedBids).append(", ").append(clearedOffers);
+        for (int count : offersPerNBids) row.append(", ").append(count);
+        row.append(", ").append(maxBidsPerOffer).append(", ").append(nBidUpOffers).append(", ").append(nBidUps)
+                .append(", ").append(matchNanos).append(", ").append(clearNanos);
+        if (stepsFile != null) stepsFile.println(row);
+        nSteps++;
+        totalRounds += nRounds;
+        maxRounds = Math.max(maxRounds, nRounds);
+        totalMatchNanos += matchNanos;
+        totalClearNanos += clearNanos;
+    }
+
+    /**
+     * Close both files and print a summary of the run to screen
+     */
+    public void finishRun() {
+        if (roundsFile != null) roundsFile.close();
+        if (stepsFile != null) stepsFile.close();
+        long totalNanos = totalMatchNanos + totalClearNanos;
+        System.out.println(String.format("Clearing telemetry of the %s market: %.1f rounds per step (max %d), "
+                + "%.3f ms per step, %.1f%% of it matching bids with offers", marketName,
+                (nSteps > 0) ? (double)totalRounds/nSteps : 0.0, maxRounds,
+                (nSteps > 0) ? totalNanos/1e6/nSteps : 0.0, (totalNanos > 0) ? 100.0*totalMatchNanos/totalNanos : 0.0));
+    }
+
+    //----- Getter/setter methods -----//
+
+    public int getnBidsAtStart() { return nBidsAtStart; }
+
+    public int getnOffersAtStart() { return nOffersAtStart; }
+
+    public int getnBidsAtEnd() { return nBidsAtEnd; }
+
+    public int getnOffersAtEnd() { return nOffersAtEnd; }
+
+    public int getnRounds() { return nRounds; }
+
+    public long getRoundBids() { return roundBids; }
+
+    public long getMatchedBids() { return matchedBids; }
+
+    public long getRequeuedBids() { return requeuedBids; }
+
+    public int getClearedOffers() { return clearedOffers; }
+
+    /**
+     * @return Number of offers cleared with 1 to N_BID_BINS - 1 bids (at index number of bids - 1), and with more
+     */
+    public int[] getOffersPerNBids() { return offersPerNBids.clone(); }
+
+    public int getMaxBidsPerOffer() { return maxBidsPerOffer; }
+
+    public long getnBidUps() { return nBidUps; }
+
+    public int getnBidUpOffers() { return nBidUpOffers; }
+
+    public long getMatchNanos() { return matchNanos; }
+
+    public long getClearNanos() { return clearNanos; }
+}
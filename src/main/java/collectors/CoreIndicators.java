@@ -4,6 +4,7 @@ import housing.Config;
 import housing.Model;
 import utilities.MeanAboveMedian;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.stream.DoubleStream;
 
@@ -16,12 +17,13 @@ import java.util.stream.DoubleStream;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class CoreIndicators {
+public class CoreIndicators implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+	private static final long serialVersionUID = 1L;
 	private Config config = Model.config;	// Passes the Model's configuration parameters object to a private field
 
     //-------------------//
@@ -1,5 +1,7 @@
 package collectors;
 
+import java.io.Serializable;
+
 import housing.Config;
 import housing.Model;
 import housing.Household;
@@ -12,12 +14,13 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class CreditSupply {
+public class CreditSupply implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long serialVersionUID = 1L;
     private Config config = Model.config;       // Passes the Model's configuration parameters object to a private field
     private DescriptiveStatistics oo_lti;
     private DescriptiveStatistics oo_ltv;
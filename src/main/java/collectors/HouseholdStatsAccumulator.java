@@ -0,0 +1,755 @@
+package collectors;
+
+import housing.*;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import java.io.Serializable;
+
+/**************************************************************************************************
+ * Class to accumulate the household statistics gathered by HouseholdStats from a run through the
+ * households. Accumulators are mergeable: a run through all households can be split into chunks,
+ * each of them accumulated in parallel into its own accumulator, and then merged, in chunk order,
+ * into the accumulator held by HouseholdStats. Counts and sums are added up, while values stored
+ * for computing percentiles are appended in household order. Besides reading households, the
+ * accumulation only updates the vulnerability records of the household being accumulated.
+ *
+ * Values counted over a single time step (period values) are cleared before every run through the
+ * households, while counters are cleared by HouseholdStats once it has read them.
+ *
+ *************************************************************************************************/
+class HouseholdStatsAccumulator implements Serializable {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long serialVersionUID = 1L;
+    // General fields
+    private Config  config = Model.config; // Passes the Model's configuration parameters object to a private field
+
+    // Period values: numbers of the different types of households and household conditions
+    int     nBTL;
+    int     nActiveBTL;
+    int     nBTLOwnerOccupier;
+    int     nBTLHomeless;
+    int     nSSB;
+    int     nInFirstHome;
+    int     nBTLBankruptcies;
+    int     nBTLRentalProperty;
+    int     nAirBnBBTL;
+    double  airBnBRentalIncome;
+    int     nAirBnBs;
+    double  rentingMonthlyDisposableIncome;
+    int     nNonBTLOwnerOccupier;
+    int     nRenting;
+    int     nNonBTLHomeless;
+    int     nFTBinSocialHousing;
+    int     nNonBTLBankruptcies;
+    int     nNegativeEquity;
+
+    // Period values: sums of monthly total, net and employment incomes (total incomes are annualised by HouseholdStats)
+    double  activeBTLAnnualisedTotalIncome;
+    double  ownerOccupierAnnualisedTotalIncome;
+    double  rentingAnnualisedTotalIncome;
+    double  homelessAnnualisedTotalIncome;
+    double  activeBTLMonthlyNetIncome;
+    double  ownerOccupierMonthlyNetIncome;
+    double  rentingMonthlyNetIncome;
+    double  homelessMonthlyNetIncome;
+    double  activeBTLMonthlyGrossEmploymentIncome;
+    double  ownerOccupierMonthlyGrossEmploymentIncome;
+    double  rentingMonthlyGrossEmploymentIncome;
+    double  homelessMonthlyGrossEmploymentIncome;
+    double  sumStockYield;
+
+    // Values for calculating percentiles, appended in household order
+    DescriptiveStatistics totalNetWealth = new DescriptiveStatistics();
+    DescriptiveStatistics grossTotalIncome = new DescriptiveStatistics();
+    DescriptiveStatistics debtServiceRatios = new DescriptiveStatistics();
+    DescriptiveStatistics debtServiceRatiosAdjusted = new DescriptiveStatistics();
+    DescriptiveStatistics vulnerableHouseholdsDSR = new DescriptiveStatistics();
+    DescriptiveStatistics vulnerableHouseholdsDSRAdjusted = new DescriptiveStatistics();
+    DescriptiveStatistics vulnerableHouseholdsAge = new DescriptiveStatistics();
+    DescriptiveStatistics nonVulnerableHouseholdsAge = new DescriptiveStatistics();
+
+    // Counters of household payments and incomes
+    double  totalMonthlyDisposableIncome;
+    double  totalBankBalancesEndPeriod;
+    double  totalSocialHousingRent;
+    double  totalPrincipalRepayments;
+    double  totalPrincipalRepaymentsDueToHouseSale;
+    double  totalInterestRepayments;
+    double  totalRentalPayments;
+    double  totalMonthlyTaxesPaid;
+    double  totalMonthlyNICPaid;
+    double  totalBankruptcyCashInjection;
+    double  totalDividendIncome;
+    int     indebtedHouseholds;
+
+    // Counters of agent-specific consumption
+    double  activeBTLIncomeConsumption;
+    double  activeBTLFinancialWealthConsumption;
+    double  activeBTLNetHousingWealthConsumption;
+    double  SSBIncomeConsumption;
+    double  SSBFinancialWealthConsumption;
+    double  SSBNetHousingWealthConsumption;
+    double  inFirstHomeIncomeConsumption;
+    double  inFirstHomeFinancialWealthConsumption;
+    double  inFirstHomeNetHousingWealthConsumption;
+    double  renterIncomeConsumption;
+    double  renterFinancialWealthConsumption;
+    double  renterNetHousingWealthConsumption;
+
+    // Counters of exposures at default and financial vulnerability
+    double  ExposureAtDefaultDSR30;
+    double  ExposureAtDefaultDSR35;
+    double  ExposureAtDefaultDSR70;
+    double  ExposureAtDefaultFinancialMarginBLC20;
+    double  ExposureAtDefaultFinancialMarginBLC40;
+    double  ExposureAtDefaultFinancialMarginBLC70;
+    double  ExposureAtDefaultAmpudiaMeasure1;
+    double  ExposureAtDefaultAmpudiaMeasure2;
+    int     HouseholdsWithLessThan1500p;
+    double  lowDepositHouseholdConsumption;
+    double  lowDepositHouseholdSaving;
+    int     householdsVulnerableAmpudiaMeasure2;
+    int     activeBTLVulnerable;
+    int     SSBVulnerable;
+    int     inFirstHomeVulnerable;
+    double  activeBTLEAD;
+    double  SSBEAD;
+    double  inFirstHomeEAD;
+
+    double  unemploymentExposureAtDefaultAmpudiaMeasure2;
+    int     unemploymentHouseholdsVulnerableAmpudiaMeasure2;
+    int     unemploymentActiveBTLVulnerable;
+    double  unemploymentActiveBTLEAD;
+    int     unemploymentSSBVulnerable;
+    double  unemploymentSSBEAD;
+    int     unemploymentinFirstHomeVulnerable;
+    double  unemploymentinFirstHomeEAD;
+
+    int     vulnerableByPurchase;
+    int     vulnerableByConsumption;
+    int     vulnerableByOther;
+    int     notVulnerableBecauseSale;
+    int     notVulnerableBecauseSaving;
+    int     notVulnerableBecauseOther;
+
+    int     vulnerableByPurchaseBTL;
+    int     vulnerableByPurchaseSSB;
+    int     vulnerableByPurchaseInFirstHome;
+    int     vulnerableByConsumptionBTL;
+    int     vulnerableByConsumptionSSB;
+    int     vulnerableByConsumptionInFirstHome;
+    int     vulnerableByOtherBTL;
+    int     vulnerableByOtherSSB;
+    int     vulnerableByOtherInFirstHome;
+
+    int     notVulnerableBecauseSaleBTL;
+    int     notVulnerableBecauseSaleSSB;
+    int     notVulnerableBecauseSaleInFirstHome;
+    int     notVulnerableBecauseSaleOthers;
+    int     notVulnerableBecauseSavingBTL;
+    int     notVulnerableBecauseSavingSSB;
+    int     notVulnerableBecauseSavingInFirstHome;
+    int     notVulnerableBecauseSavingOthers;
+    int     notVulnerableBecauseOtherBTL;
+    int     notVulnerableBecauseOtherSSB;
+    int     notVulnerableBecauseOtherInFirstHome;
+    int     notVulnerableBecauseOtherOthers;
+
+    int     nowVulnerableByPurchase;
+    int     nowVulnerableByPurchaseBTL;
+    int     nowVulnerableByPurchaseSSB;
+    int     nowVulnerableByPurchaseFTB;
+    int     nowVulnerableByDissaving;
+    int     nowVulnerableByDissavingBTL;
+    int     nowVulnerableByDissavingSSB;
+    int     nowVulnerableByDissavingFTB;
+    int     nowVulnerableByOther;
+    int     nowVulnerableByOtherBTL;
+    int     nowVulnerableByOtherSSB;
+    int     nowVulnerableByOtherFTB;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Set to zero all values counted over a single time step, leaving counters and percentile values untouched
+     */
+    void clearPeriodValues() {
+        nBTL = 0;
+        nActiveBTL = 0;
+        nBTLOwnerOccupier = 0;
+        nBTLHomeless = 0;
+        nSSB = 0;
+        nInFirstHome = 0;
+        nBTLBankruptcies = 0;
+        nBTLRentalProperty = 0;
+        nAirBnBBTL = 0;
+        airBnBRentalIncome = 0.0;
+        nAirBnBs = 0;
+        rentingMonthlyDisposableIncome = 0.0;
+        nNonBTLOwnerOccupier = 0;
+        nRenting = 0;
+        nNonBTLHomeless = 0;
+        nFTBinSocialHousing = 0;
+        nNonBTLBankruptcies = 0;
+        nNegativeEquity = 0;
+        activeBTLAnnualisedTotalIncome = 0.0;
+        ownerOccupierAnnualisedTotalIncome = 0.0;
+        rentingAnnualisedTotalIncome = 0.0;
+        homelessAnnualisedTotalIncome = 0.0;
+        activeBTLMonthlyNetIncome = 0.0;
+        ownerOccupierMonthlyNetIncome = 0.0;
+        rentingMonthlyNetIncome = 0.0;
+        homelessMonthlyNetIncome = 0.0;
+        activeBTLMonthlyGrossEmploymentIncome = 0.0;
+        ownerOccupierMonthlyGrossEmploymentIncome = 0.0;
+        rentingMonthlyGrossEmploymentIncome = 0.0;
+        homelessMonthlyGrossEmploymentIncome = 0.0;
+        sumStockYield = 0.0;
+    }
+
+    /**
+     * Accumulate the statistics of a single household
+     *
+     * @param h Household to accumulate
+     * @param medianIncome Monthly median gross total income, as computed in the previous time step
+     */
+    void add(Household h, double medianIncome) {
+        // only start the following code when the recorder starts
+        if(Model.getTime()>=(config.TIME_TO_START_RECORDING)) {
+            // This records the agent-specific consumption and number of SSB and inFirstHome agents
+            // (as agent classes are divided here different than in the main method)
+            recordAgentSpecificConsumption(h);
+        }
+
+        // record the exposure at default for each household with different measures
+        countExposureAtDefault(h, medianIncome);
+
+        // record the age of non-vulnerable but indebted households (debt is a negative value!)
+        if (!h.isVulnerable() && h.getTotalDebt() < 0){
+            nonVulnerableHouseholdsAge.addValue(h.getAge());
+        }
+        if(h.isVulnerable()) {
+            vulnerableHouseholdsAge.addValue(h.getAge());
+            countCurrentlyVulnerableHouseholds(h, medianIncome);
+        }
+
+        totalMonthlyDisposableIncome += h.returnMonthlyDisposableIncome();
+        totalBankBalancesEndPeriod += h.getBankBalance();
+        totalSocialHousingRent += h.getSocialHousingRent();
+
+        //TODO Ruben: check if removable, as I implemented totalPrincipalRepaymentDeceasedHousehold
+        // record household fields containing credit repayments, rent payments and cash injections
+        totalPrincipalRepayments += h.getPrincipalPaidBack();
+        totalPrincipalRepaymentsDueToHouseSale += h.getPrincipalDueToHouseSale();
+        totalInterestRepayments += h.getInterestPaidBack();
+        totalRentalPayments += h.getRentalPayment();
+        totalMonthlyTaxesPaid += h.getMonthlyTaxesPaid();
+        totalMonthlyNICPaid += h.getMonthlyNICPaid();
+        totalBankruptcyCashInjection += h.getCashInjection();
+        totalDividendIncome += h.recordMonthlyDividendIncome();
+
+        // count if the household had a negative equity position at the beginning of the period
+        if (h.getEquityPosition() < 0) {
+            nNegativeEquity++;
+        }
+
+        if (h.behaviour.isPropertyInvestor()) {
+            ++nBTL;
+            if (h.isBankrupt()) nBTLBankruptcies += 1;
+            // Active BTL investors
+            if (h.getNProperties() > 1) {
+                ++nActiveBTL;
+                nBTLRentalProperty += h.getNProperties()-1;
+                activeBTLAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                activeBTLMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                activeBTLMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+            // Inactive BTL investors who own their house
+            } else if (h.getNProperties() == 1) {
+                ++nBTLOwnerOccupier;
+                ownerOccupierAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                ownerOccupierMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                ownerOccupierMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+                // Inactive BTL investors in social housing
+            } else {
+                ++nBTLHomeless;
+                homelessAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                homelessMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                homelessMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+            }
+
+            // PAUL additional recordings for AirBnB investors
+            if(h.behaviour.isAirBnBInvestor()) {
+                ++nAirBnBBTL;
+                airBnBRentalIncome += h.getAirBnBRentalIncome();
+                nAirBnBs += h.getnAirBnBRentedOut();
+            }
+        } else {
+            if (h.isBankrupt()) nNonBTLBankruptcies += 1;
+            // Non-BTL investors who own their house
+            if (h.isHomeowner()) {
+                ++nNonBTLOwnerOccupier;
+                ownerOccupierAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                ownerOccupierMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                ownerOccupierMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+                // Non-BTL investors renting
+            } else if (h.isRenting()) {
+                ++nRenting;
+                rentingAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                rentingMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                rentingMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+                // PAUL
+                rentingMonthlyDisposableIncome += h.returnMonthlyDisposableIncome();
+
+                if (Model.housingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality()) > 0) {
+                    sumStockYield += h.getHousePayments().get(h.getHome()).monthlyPayment
+                            *config.constants.MONTHS_IN_YEAR
+                            /Model.housingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality());
+                }
+                // Non-BTL investors in social housing
+            } else if (h.isInSocialHousing()) {
+                if(h.isFirstTimeBuyer()) { ++nFTBinSocialHousing;}
+                ++nNonBTLHomeless;
+                homelessAnnualisedTotalIncome += h.returnMonthlyGrossTotalIncome();
+                homelessMonthlyNetIncome += h.returnMonthlyNetTotalIncome();
+                homelessMonthlyGrossEmploymentIncome += h.getMonthlyGrossEmploymentIncome();
+            }
+        }
+
+        // record the total net wealth into the descriptive statistics
+        if(Model.getTime()>=config.TIME_TO_START_RECORDING) {
+            totalNetWealth.addValue(h.getEquityPosition());
+        }
+        // start recording of median income earlier, as in t the value for t-3 is used
+        // this way the vulnerability measures can be calculated before the recording starts
+        grossTotalIncome.addValue(h.returnMonthlyGrossTotalIncome());
+
+        // implement to capture median DSR for a quasi-collateral channel
+        double debtPayments = h.getPrincipalPaidBack() + h.getInterestPaidBack();
+        if(debtPayments > 0) {
+            debtServiceRatios.addValue(debtPayments/h.returnMonthlyGrossTotalIncome());
+            debtServiceRatiosAdjusted.addValue(debtPayments / (h.returnMonthlyGrossTotalIncome() -
+                    0.2 * medianIncome));
+            indebtedHouseholds += 1;
+        }
+    }
+
+    /**
+     * Add all values of another accumulator, which must refer to households following those already accumulated here
+     *
+     * @param other Accumulator to merge into this one
+     */
+    void merge(HouseholdStatsAccumulator other) {
+        nBTL += other.nBTL;
+        nActiveBTL += other.nActiveBTL;
+        nBTLOwnerOccupier += other.nBTLOwnerOccupier;
+        nBTLHomeless += other.nBTLHomeless;
+        nSSB += other.nSSB;
+        nInFirstHome += other.nInFirstHome;
+        nBTLBankruptcies += other.nBTLBankruptcies;
+        nBTLRentalProperty += other.nBTLRentalProperty;
+        nAirBnBBTL += other.nAirBnBBTL;
+        airBnBRentalIncome += other.airBnBRentalIncome;
+        nAirBnBs += other.nAirBnBs;
+        rentingMonthlyDisposableIncome += other.rentingMonthlyDisposableIncome;
+        nNonBTLOwnerOccupier += other.nNonBTLOwnerOccupier;
+        nRenting += other.nRenting;
+        nNonBTLHomeless += other.nNonBTLHomeless;
+        nFTBinSocialHousing += other.nFTBinSocialHousing;
+        nNonBTLBankruptcies += other.nNonBTLBankruptcies;
+        nNegativeEquity += other.nNegativeEquity;
+
+        activeBTLAnnualisedTotalIncome += other.activeBTLAnnualisedTotalIncome;
+        ownerOccupierAnnualisedTotalIncome += other.ownerOccupierAnnualisedTotalIncome;
+        rentingAnnualisedTotalIncome += other.rentingAnnualisedTotalIncome;
+        homelessAnnualisedTotalIncome += other.homelessAnnualisedTotalIncome;
+        activeBTLMonthlyNetIncome += other.activeBTLMonthlyNetIncome;
+        ownerOccupierMonthlyNetIncome += other.ownerOccupierMonthlyNetIncome;
+        rentingMonthlyNetIncome += other.rentingMonthlyNetIncome;
+        homelessMonthlyNetIncome += other.homelessMonthlyNetIncome;
+        activeBTLMonthlyGrossEmploymentIncome += other.activeBTLMonthlyGrossEmploymentIncome;
+        ownerOccupierMonthlyGrossEmploymentIncome += other.ownerOccupierMonthlyGrossEmploymentIncome;
+        rentingMonthlyGrossEmploymentIncome += other.rentingMonthlyGrossEmploymentIncome;
+        homelessMonthlyGrossEmploymentIncome += other.homelessMonthlyGrossEmploymentIncome;
+        sumStockYield += other.sumStockYield;
+
+        append(totalNetWealth, other.totalNetWealth);
+        append(grossTotalIncome, other.grossTotalIncome);
+        append(debtServiceRatios, other.debtServiceRatios);
+        append(debtServiceRatiosAdjusted, other.debtServiceRatiosAdjusted);
+        append(vulnerableHouseholdsDSR, other.vulnerableHouseholdsDSR);
+        append(vulnerableHouseholdsDSRAdjusted, other.vulnerableHouseholdsDSRAdjusted);
+        append(vulnerableHouseholdsAge, other.vulnerableHouseholdsAge);
+        append(nonVulnerableHouseholdsAge, other.nonVulnerableHouseholdsAge);
+
+        totalMonthlyDisposableIncome += other.totalMonthlyDisposableIncome;
+        totalBankBalancesEndPeriod += other.totalBankBalancesEndPeriod;
+        totalSocialHousingRent += other.totalSocialHousingRent;
+        totalPrincipalRepayments += other.totalPrincipalRepayments;
+        totalPrincipalRepaymentsDueToHouseSale += other.totalPrincipalRepaymentsDueToHouseSale;
+        totalInterestRepayments += other.totalInterestRepayments;
+        totalRentalPayments += other.totalRentalPayments;
+        totalMonthlyTaxesPaid += other.totalMonthlyTaxesPaid;
+        totalMonthlyNICPaid += other.totalMonthlyNICPaid;
+        totalBankruptcyCashInjection += other.totalBankruptcyCashInjection;
+        totalDividendIncome += other.totalDividendIncome;
+        indebtedHouseholds += other.indebtedHouseholds;
+
+        activeBTLIncomeConsumption += other.activeBTLIncomeConsumption;
+        activeBTLFinancialWealthConsumption += other.activeBTLFinancialWealthConsumption;
+        activeBTLNetHousingWealthConsumption += other.activeBTLNetHousingWealthConsumption;
+        SSBIncomeConsumption += other.SSBIncomeConsumption;
+        SSBFinancialWealthConsumption += other.SSBFinancialWealthConsumption;
+        SSBNetHousingWealthConsumption += other.SSBNetHousingWealthConsumption;
+        inFirstHomeIncomeConsumption += other.inFirstHomeIncomeConsumption;
+        inFirstHomeFinancialWealthConsumption += other.inFirstHomeFinancialWealthConsumption;
+        inFirstHomeNetHousingWealthConsumption += other.inFirstHomeNetHousingWealthConsumption;
+        renterIncomeConsumption += other.renterIncomeConsumption;
+        renterFinancialWealthConsumption += other.renterFinancialWealthConsumption;
+        renterNetHousingWealthConsumption += other.renterNetHousingWealthConsumption;
+
+        ExposureAtDefaultDSR30 += other.ExposureAtDefaultDSR30;
+        ExposureAtDefaultDSR35 += other.ExposureAtDefaultDSR35;
+        ExposureAtDefaultDSR70 += other.ExposureAtDefaultDSR70;
+        ExposureAtDefaultFinancialMarginBLC20 += other.ExposureAtDefaultFinancialMarginBLC20;
+        ExposureAtDefaultFinancialMarginBLC40 += other.ExposureAtDefaultFinancialMarginBLC40;
+        ExposureAtDefaultFinancialMarginBLC70 += other.ExposureAtDefaultFinancialMarginBLC70;
+        ExposureAtDefaultAmpudiaMeasure1 += other.ExposureAtDefaultAmpudiaMeasure1;
+        ExposureAtDefaultAmpudiaMeasure2 += other.ExposureAtDefaultAmpudiaMeasure2;
+        HouseholdsWithLessThan1500p += other.HouseholdsWithLessThan1500p;
+        lowDepositHouseholdConsumption += other.lowDepositHouseholdConsumption;
+        lowDepositHouseholdSaving += other.lowDepositHouseholdSaving;
+        householdsVulnerableAmpudiaMeasure2 += other.householdsVulnerableAmpudiaMeasure2;
+        activeBTLVulnerable += other.activeBTLVulnerable;
+        SSBVulnerable += other.SSBVulnerable;
+        inFirstHomeVulnerable += other.inFirstHomeVulnerable;
+        activeBTLEAD += other.activeBTLEAD;
+        SSBEAD += other.SSBEAD;
+        inFirstHomeEAD += other.inFirstHomeEAD;
+
+        unemploymentExposureAtDefaultAmpudiaMeasure2 += other.unemploymentExposureAtDefaultAmpudiaMeasure2;
+        unemploymentHouseholdsVulnerableAmpudiaMeasure2 += other.unemploymentHouseholdsVulnerableAmpudiaMeasure2;
+        unemploymentActiveBTLVulnerable += other.unemploymentActiveBTLVulnerable;
+        unemploymentActiveBTLEAD += other.unemploymentActiveBTLEAD;
+        unemploymentSSBVulnerable += other.unemploymentSSBVulnerable;
+        unemploymentSSBEAD += other.unemploymentSSBEAD;
+        unemploymentinFirstHomeVulnerable += other.unemploymentinFirstHomeVulnerable;
+        unemploymentinFirstHomeEAD += other.unemploymentinFirstHomeEAD;
+
+        vulnerableByPurchase += other.vulnerableByPurchase;
+        vulnerableByConsumption += other.vulnerableByConsumption;
+        vulnerableByOther += other.vulnerableByOther;
+        notVulnerableBecauseSale += other.notVulnerableBecauseSale;
+        notVulnerableBecauseSaving += other.notVulnerableBecauseSaving;
+        notVulnerableBecauseOther += other.notVulnerableBecauseOther;
+
+        vulnerableByPurchaseBTL += other.vulnerableByPurchaseBTL;
+        vulnerableByPurchaseSSB += other.vulnerableByPurchaseSSB;
+        vulnerableByPurchaseInFirstHome += other.vulnerableByPurchaseInFirstHome;
+        vulnerableByConsumptionBTL += other.vulnerableByConsumptionBTL;
+        vulnerableByConsumptionSSB += other.vulnerableByConsumptionSSB;
+        vulnerableByConsumptionInFirstHome += other.vulnerableByConsumptionInFirstHome;
+        vulnerableByOtherBTL += other.vulnerableByOtherBTL;
+        vulnerableByOtherSSB += other.vulnerableByOtherSSB;
+        vulnerableByOtherInFirstHome += other.vulnerableByOtherInFirstHome;
+
+        notVulnerableBecauseSaleBTL += other.notVulnerableBecauseSaleBTL;
+        notVulnerableBecauseSaleSSB += other.notVulnerableBecauseSaleSSB;
+        notVulnerableBecauseSaleInFirstHome += other.notVulnerableBecauseSaleInFirstHome;
+        notVulnerableBecauseSaleOthers += other.notVulnerableBecauseSaleOthers;
+        notVulnerableBecauseSavingBTL += other.notVulnerableBecauseSavingBTL;
+        notVulnerableBecauseSavingSSB += other.notVulnerableBecauseSavingSSB;
+        notVulnerableBecauseSavingInFirstHome += other.notVulnerableBecauseSavingInFirstHome;
+        notVulnerableBecauseSavingOthers += other.notVulnerableBecauseSavingOthers;
+        notVulnerableBecauseOtherBTL += other.notVulnerableBecauseOtherBTL;
+        notVulnerableBecauseOtherSSB += other.notVulnerableBecauseOtherSSB;
+        notVulnerableBecauseOtherInFirstHome += other.notVulnerableBecauseOtherInFirstHome;
+        notVulnerableBecauseOtherOthers += other.notVulnerableBecauseOtherOthers;
+
+        nowVulnerableByPurchase += other.nowVulnerableByPurchase;
+        nowVulnerableByPurchaseBTL += other.nowVulnerableByPurchaseBTL;
+        nowVulnerableByPurchaseSSB += other.nowVulnerableByPurchaseSSB;
+        nowVulnerableByPurchaseFTB += other.nowVulnerableByPurchaseFTB;
+        nowVulnerableByDissaving += other.nowVulnerableByDissaving;
+        nowVulnerableByDissavingBTL += other.nowVulnerableByDissavingBTL;
+        nowVulnerableByDissavingSSB += other.nowVulnerableByDissavingSSB;
+        nowVulnerableByDissavingFTB += other.nowVulnerableByDissavingFTB;
+        nowVulnerableByOther += other.nowVulnerableByOther;
+        nowVulnerableByOtherBTL += other.nowVulnerableByOtherBTL;
+        nowVulnerableByOtherSSB += other.nowVulnerableByOtherSSB;
+        nowVulnerableByOtherFTB += other.nowVulnerableByOtherFTB;
+    }
+
+    private static void append(DescriptiveStatistics to, DescriptiveStatistics from) {
+        for (int i = 0; i < from.getN(); i++) to.addValue(from.getElement(i));
+    }
+
+    // method to record agent-specific consumption in a more condensed way
+    private void recordAgentSpecificConsumption(Household h) {
+        // active BTL investors
+        if (h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) {
+            activeBTLIncomeConsumption += h.getIncomeConsumption();
+            activeBTLFinancialWealthConsumption += h.getFinancialWealthConsumption();
+            activeBTLNetHousingWealthConsumption += h.getHousingWealthConsumption() + h.getDebtConsumption();
+
+            // SSB -> homeowner and not in First Home
+        } else if (h.isHomeowner() & !h.isInFirstHome()){
+            ++nSSB;
+            SSBIncomeConsumption += h.getIncomeConsumption();
+            SSBFinancialWealthConsumption += h.getFinancialWealthConsumption();
+            SSBNetHousingWealthConsumption += h.getHousingWealthConsumption() + h.getDebtConsumption();
+
+            // inFirstHome
+        } else if (h.isHomeowner() & h.isInFirstHome()){
+            ++nInFirstHome;
+            inFirstHomeIncomeConsumption += h.getIncomeConsumption();
+            inFirstHomeFinancialWealthConsumption += h.getFinancialWealthConsumption();
+            inFirstHomeNetHousingWealthConsumption += h.getHousingWealthConsumption() + h.getDebtConsumption();
+
+            // Renting (BTL, SSB and FTB)
+        } else if (h.isRenting() | h.isInSocialHousing()) {
+            renterIncomeConsumption += h.getIncomeConsumption();
+            renterFinancialWealthConsumption += h.getFinancialWealthConsumption();
+            // there could be cases where households have inherited houses and move out of their home before
+            // selling off all their inherited houses
+            renterNetHousingWealthConsumption += h.getHousingWealthConsumption() + h.getDebtConsumption();
+        } else {
+            System.out.println("weird, not a household that I know (consumption recorder)");
+        }
+    }
+
+    // Method to record the Exposure at default (i.e. summing all debt of households fitting the
+    // conditions) (following Ampudia et al. 2016) when looking at
+    // several indicators, like Debt-Service ratios, negative financial margins, and Ampudias
+    // measure of financial vulnerability (with certain calibrations)
+    // using household net income, as it is closest to Ampudias disposable income
+    // (while not being directly defined in their paper)
+    private void countExposureAtDefault(Household h, double medianIncome) {
+        // debt is recorded in negative values, but for the purpose of this method use positive value
+        double householdDebt = - h.getTotalDebt();
+        double debtPayments = h.getPrincipalPaidBack() + h.getInterestPaidBack();
+        double deposits = h.getBankBalance();
+
+        // count the households with less than X dollars in their bank account
+        if (deposits < 1500) {
+            HouseholdsWithLessThan1500p += 1;
+            lowDepositHouseholdConsumption += h.getConsumption();
+            lowDepositHouseholdSaving += h.returnMonthlyDisposableIncome() - h.getConsumption();
+        }
+
+        // TODO record these measures at the beginning of the period in the household.java file to be consistent
+
+        // calculate the financial margins with different basic-living cost calculations
+        // fin. margin is hh net income less mortgage payments (i.e. disposable income)
+        // only households holding debt are considered as we are interested in the exposure at default.
+        double financialMargin20BLC = h.returnMonthlyDisposableIncome() -
+                0.2*medianIncome;
+        double financialMargin40BLC = h.returnMonthlyDisposableIncome() -
+                0.4*medianIncome;
+        double financialMargin70BLC = h.returnMonthlyDisposableIncome() -
+                0.7*medianIncome;
+        double financialMargin;
+        // if gross total income is not shocked extra, then only shock according to "povertyLinePercentMedianIncome". If it is 0.4 it is effectively not shocked
+        // 0.6 means a shock of 20% of median income
+        if(config.incomeShock == 0) {
+            financialMargin =
+                    h.returnMonthlyDisposableIncome() - config.povertyLinePercentMedianIncome * medianIncome;
+        } else {
+            // to arrive a the shocked disposable income, the new shocked net income is reduced
+            // by the difference between original net income and disposable income
+            financialMargin =
+                    h.calculateShockedDisposableIncomeForVulnerability() -
+                    config.povertyLinePercentMedianIncome * medianIncome;
+        }
+        if (financialMargin20BLC < 0) { ExposureAtDefaultFinancialMarginBLC20 +=  householdDebt;	}
+        if (financialMargin40BLC < 0) { ExposureAtDefaultFinancialMarginBLC40 +=  householdDebt;	}
+        if (financialMargin70BLC < 0) { ExposureAtDefaultFinancialMarginBLC70 +=  householdDebt;	}
+
+        // calculate the Ampudia et al. (2016) measure.
+        double monthsCoveredByDepositsVar = deposits / financialMargin;
+        // test the negative financial margin is at least X times the deposits
+        if(financialMargin < 0 & (- config.finVulMonthsToCover * financialMargin) > deposits) {
+            // do not simply add all debt, but between 0 and 100% of it, according to a linear function
+            // with 100% for no deposits and 0% for deposits being equal to the month threshold
+            double factor = monthsCoveredByDepositsVar / 6  + 1;
+            ExposureAtDefaultAmpudiaMeasure1 += factor * householdDebt;
+        }
+        if(h.isVulnerable()) {
+            double factor = h.getEADFactor();
+            ExposureAtDefaultAmpudiaMeasure2 += factor * householdDebt;
+            householdsVulnerableAmpudiaMeasure2 += 1;
+            // active BTL
+            if (h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) {
+                activeBTLVulnerable += 1;
+                activeBTLEAD += factor * householdDebt;
+                // record cause for vulnerability if the household became newly vulnerable
+                if(!h.isVulnerableTMinus1()) vulnerabilityCause(h, "BTL");
+                // SSB -> homeowner and not in First Home
+                // households need not to be homeowners right now (at the end of period t)
+                // because they might just have sold their home. Which will render them
+                // non-vulnerable by the beginning of t+1, where their reason for becoming
+                // non-vulnerable will be recorded (sales)
+            } else if (!h.isInFirstHome()){
+                SSBVulnerable += 1;
+                SSBEAD += factor * householdDebt;
+                if(!h.isVulnerableTMinus1()) vulnerabilityCause(h, "SSB");
+                // inFirstHome
+            } else if (h.isInFirstHome()){
+                inFirstHomeVulnerable += 1;
+                inFirstHomeEAD += factor * householdDebt;
+                if(!h.isVulnerableTMinus1()) vulnerabilityCause(h, "inFirstHome");
+                // Renting (BTL, SSB and FTB)
+            } else if (!h.isVulnerableTMinus1()){
+                System.out.println("weird, not a (newly vulnerable) household that I know (vulnerability recorder)");
+            }
+        }
+
+        // check if household used to be vulnerable, but is not this period anymore
+        // then record the reason why it isn't anymore
+        if(!h.isVulnerable() && h.isVulnerableTMinus1()) {
+            notVulnerableBecause(h);
+            // reset the period where the households vulnerability started
+            h.setVulnerableSince(-1);
+        }
+
+        // only count households with mortgage debt that already pay their debt (so the period after they bought a house)
+        if(householdDebt > 0 && debtPayments > 0) {
+            double DSR = debtPayments/h.returnMonthlyNetTotalIncome();
+            // record Debt of households matching the following conditions:
+            // debt-service ratios above...
+            if(DSR >= 0.3)  { ExposureAtDefaultDSR30 += householdDebt; }
+            if(DSR >= 0.35) { ExposureAtDefaultDSR35 += householdDebt; }
+            if(DSR >= 0.7)  { ExposureAtDefaultDSR70 += householdDebt; }
+
+            // TODO WARNING this code is adopted, the variable names are not coherent
+            if(DSR > 0.35) {
+                unemploymentExposureAtDefaultAmpudiaMeasure2 += householdDebt;
+                unemploymentHouseholdsVulnerableAmpudiaMeasure2 += 1;
+                // active BTL
+                if (h.behaviour.isPropertyInvestor() && h.getNProperties() > 1) {
+                    unemploymentActiveBTLVulnerable += 1;
+                    unemploymentActiveBTLEAD += householdDebt;
+                    // SSB -> homeowner and not in First Home
+                } else if (h.isHomeowner() && !h.isInFirstHome()){
+                    unemploymentSSBVulnerable += 1;
+                    unemploymentSSBEAD += householdDebt;
+                    // inFirstHome
+                } else if (h.isHomeowner() && h.isInFirstHome()){
+                    unemploymentinFirstHomeVulnerable += 1;
+                    unemploymentinFirstHomeEAD += householdDebt;
+                    // Renting (BTL, SSB and FTB)
+                } else {
+                    System.out.println("weird, not a household that I know (vulnerability recorder)");
+                }
+            }
+        }
+    }
+
+    // households that became vulnerable enter here
+    private void vulnerabilityCause(Household h, String AgentType) {
+        // saving is calculated with the values from the beginning of the period
+        double saving = h.returnMonthlyDisposableIncome() - h.getConsumption();
+        int lastPurchasePeriod = (Model.getTime() - h.getLastHousePurchasePeriod());
+
+        // first case: household just bought a home (in period t-1)
+        if( lastPurchasePeriod == 1 ) { // normal: lastPurchasePeriod ==1 or  <= 120
+            h.setVulnerableBecause("purchase");
+            vulnerableByPurchase += 1;
+            if (AgentType == "BTL") {
+                vulnerableByPurchaseBTL += 1;
+            }
+            else if (AgentType == "SSB") vulnerableByPurchaseSSB += 1;
+            else if (AgentType == "inFirstHome") vulnerableByPurchaseInFirstHome += 1;
+        }
+        // second case: household didn't not just buy a home and was dissaving
+        else if ( lastPurchasePeriod != 1 && saving < 0.0 ) { // normal: lastPurchasePeriod !=1 or > 120
+            h.setVulnerableBecause("dissaving");
+            vulnerableByConsumption +=1;
+            if (AgentType == "BTL") {
+                vulnerableByConsumptionBTL += 1;
+            }
+            else if (AgentType == "SSB") vulnerableByConsumptionSSB += 1;
+            else if (AgentType == "inFirstHome") vulnerableByConsumptionInFirstHome += 1;
+        }
+        // third case: odd, if it didn't dissave and didn't just buy a home, how can
+        // it become vulnerable? For instance lower income, turning financial margin negative
+        else if ( lastPurchasePeriod != 1 && saving >= 0.0 ) { // normal: lastPurchasePeriod !=1 or > 120
+            h.setVulnerableBecause("other");
+            vulnerableByOther += 1;
+            if (AgentType == "BTL") vulnerableByOtherBTL += 1;
+            else if (AgentType == "SSB") vulnerableByOtherSSB += 1;
+            else if (AgentType == "inFirstHome") vulnerableByOtherInFirstHome += 1;
+        } else {
+            System.out.println("weird, household became vulnerable but not caught by the functions before");
+        }
+        h.setVulnerableSince(Model.getTime());
+    }
+
+    // households that have been vulnerable the period before but are not anymore enter here
+    // to record the reason they are not vulnerable anymore
+    // additionally their agent-type has to be determined
+    private void notVulnerableBecause(Household h) {
+        // saving is calculated with the values from the beginning of the period
+        double saving = h.returnMonthlyDisposableIncome() - h.getConsumption();
+        int lastSalePeriod 	   = (Model.getTime() - h.getLastHouseSalePeriod());
+
+        // first case: household sold property (thereby possibly reducing debt payments and increasing deposits)
+        if( lastSalePeriod == 1 ) {
+            notVulnerableBecauseSale += 1;
+            if(h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) notVulnerableBecauseSaleBTL +=1;
+            // I do not check for homeownership, as some households become renters, but the important information is what they were before
+            else if (!h.isInFirstHome()) notVulnerableBecauseSaleSSB +=1;
+            else if (h.isInFirstHome()) notVulnerableBecauseSaleInFirstHome +=1;
+            else notVulnerableBecauseSaleOthers +=1;
+        }
+        // second case: household did not sell anything recently but saved
+        else if ( lastSalePeriod != 1 && saving > 0.0 ) {
+            notVulnerableBecauseSaving += 1;
+            if(h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) notVulnerableBecauseSavingBTL += 1;
+            else if (h.isHomeowner() & !h.isInFirstHome()) notVulnerableBecauseSavingSSB +=1;
+            else if (h.isHomeowner() & h.isInFirstHome()) notVulnerableBecauseSavingInFirstHome +=1;
+            else notVulnerableBecauseSavingOthers += 1;
+        }
+        else if ( lastSalePeriod != 1 && saving <= 0.0 ) {
+            notVulnerableBecauseOther += 1;
+            if(h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) notVulnerableBecauseOtherBTL += 1;
+            else if (h.isHomeowner() & !h.isInFirstHome()) notVulnerableBecauseOtherSSB += 1;
+            else if (h.isHomeowner() & h.isInFirstHome()) notVulnerableBecauseOtherInFirstHome += 1;
+            else notVulnerableBecauseOtherOthers += 1;
+        } else {
+            System.out.println("weird, household ceased to be vulnerable but not caught by the functions before");
+        }
+        h.setVulnerableBecause("not vulnerable");
+    }
+
+    private void countCurrentlyVulnerableHouseholds(Household h, double medianIncome){
+        vulnerableHouseholdsDSR.addValue( ( h.getPrincipalPaidBack() + h.getInterestPaidBack() ) / h.returnMonthlyGrossTotalIncome() );
+        vulnerableHouseholdsDSRAdjusted.addValue( ( h.getPrincipalPaidBack() + h.getInterestPaidBack() ) /
+                (h.returnMonthlyGrossTotalIncome() - 0.2 * medianIncome) );
+        if("purchase".equals(h.getVulnerableBecause())) nowVulnerableByPurchase += 1;
+        if("dissaving".equals(h.getVulnerableBecause())) nowVulnerableByDissaving += 1;
+        if("other".equals(h.getVulnerableBecause())) nowVulnerableByOther += 1;
+
+        // agent-specific
+        if (h.behaviour.isPropertyInvestor() & h.getNProperties() > 1) {
+            if("purchase".equals(h.getVulnerableBecause())) nowVulnerableByPurchaseBTL += 1;
+            if("dissaving".equals(h.getVulnerableBecause())) nowVulnerableByDissavingBTL += 1;
+            if("other".equals(h.getVulnerableBecause())) nowVulnerableByOtherBTL += 1;
+        }
+        else if (h.isHomeowner() & !h.isInFirstHome()) {
+            if("purchase".equals(h.getVulnerableBecause())) nowVulnerableByPurchaseSSB += 1;
+            if("dissaving".equals(h.getVulnerableBecause())) nowVulnerableByDissavingSSB += 1;
+            if("other".equals(h.getVulnerableBecause())) nowVulnerableByOtherSSB += 1;
+        }
+        else if (h.isHomeowner() & h.isInFirstHome()) {
+            if("purchase".equals(h.getVulnerableBecause())) nowVulnerableByPurchaseFTB += 1;
+            if("dissaving".equals(h.getVulnerableBecause())) nowVulnerableByDissavingFTB += 1;
+            if("other".equals(h.getVulnerableBecause())) nowVulnerableByOtherFTB += 1;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import housing.*;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
+import java.io.Serializable;
 import java.util.Arrays;
 
 /**************************************************************************************************
@@ -12,13 +13,15 @@ import java.util.Arrays;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class HousingMarketStats {
+public class HousingMarketStats implements Serializable {
 
 	//------------------//
 	//----- Fields -----//
 	//------------------//
 
+	private static final long serialVersionUID = 1L;
 	// General fields
+	private static final int        N_BID_UPS_BINS = 21; // Bins for the number of bid-ups, the last one for that number or more (while this number is arbitrary, anything above 10 should be enough)
 	private HousingMarket           market; // Declared HousingMarket so that it can accommodate both sale and rental markets
 	private Config                  config = Model.config; // Passes the Model's configuration parameters object to a private field
 
@@ -48,6 +51,7 @@ public class HousingMarketStats {
 	private double []               sumSalePricePerQualityCount; // Dummy counter
 	private int []                  nSalesPerQualityCount; // Dummy counter
 	private double 					moneyToConstructionSectorCount; // Dummy counter
+	private int []                  nBidUpsFrequencyCount = new int[N_BID_UPS_BINS]; // Dummy counter
 
 	// Variables computed after market clearing to keep the previous values during the clearing
 	private int                     nSales; // Number of sales
@@ -61,6 +65,7 @@ public class HousingMarketStats {
 	private int []                  nSalesPerQuality; // Number of sales for each quality band for properties sold this month
 	private double					averageHouseSaleQuality; // average quality band of houses sold 
 	private double 					moneyToConstructionSector; // money flowing out of the simulation via the construction sector
+	private int []                  nBidUpsFrequency = new int[N_BID_UPS_BINS]; // Number of transactions this month for each number of bid-ups
 	
 	// Other variables computed after market clearing
 	private double                  expAvMonthsOnMarket; // Exponential moving average of the number of months on the market
@@ -124,6 +129,7 @@ public class HousingMarketStats {
         nSalesPerQuality = new int[config.N_QUALITY];
         averageHouseSaleQuality = 0.0;
         moneyToConstructionSector = 0.0;
+        Arrays.fill(nBidUpsFrequency, 0);
 
         // Set initial values for other variables computed after market clearing
         expAvMonthsOnMarket = 0.0; // TODO: Make this initialisation explicit in the paper!
@@ -157,6 +163,7 @@ public class HousingMarketStats {
         sumSalePricePerQualityCount = new double[config.N_QUALITY];
         nSalesPerQualityCount = new int[config.N_QUALITY];
         moneyToConstructionSectorCount = 0.0;
+        Arrays.fill(nBidUpsFrequencyCount, 0);
 
         // Re-initialise to zero variables computed before market clearing
         nBuyers = market.getBids().size();
@@ -249,6 +256,13 @@ public class HousingMarketStats {
         sumSoldPriceCount += sale.getPrice();
     }
 
+    /**
+     * Count a transaction with a given number of bid-up attempts into the bid-up frequency counter
+     *
+     * @param nBidUps Number of bid-up attempts before the transaction
+     */
+    public void recordBidUps(int nBidUps) { nBidUpsFrequencyCount[Math.min(nBidUps, N_BID_UPS_BINS - 1)]++; }
+
     // count money outflow to construction sector
     public void recordMoneyOutflowToConstruction(HouseOfferRecord sale) {
     	moneyToConstructionSectorCount += sale.getPrice();
@@ -273,6 +287,7 @@ public class HousingMarketStats {
     	System.arraycopy(sumMonthsOnMarketPerQualityCount, 0, sumMonthsOnMarketPerQuality, 0, config.N_QUALITY);
     	System.arraycopy(nSalesPerQualityCount, 0, nSalesPerQuality, 0, config.N_QUALITY);
     	System.arraycopy(sumSalePricePerQualityCount, 0, sumSalePricePerQuality, 0, config.N_QUALITY);
+    	System.arraycopy(nBidUpsFrequencyCount, 0, nBidUpsFrequency, 0, N_BID_UPS_BINS);
     	// Compute the rest of variables after market clearing...
     	// ... exponential averages of months in the market and prices per quality band (only if there have been sales)
     	if (nSales > 0) {
@@ -399,6 +414,7 @@ public class HousingMarketStats {
     public int [] getnSalesPerQuality() { return nSalesPerQuality; }
     int getnSalesForQuality(int quality) { return nSalesPerQuality[quality]; }
     public double getMoneyToConstructionSector() { return moneyToConstructionSector; }
+    public int [] getnBidUpsFrequency() { return nBidUpsFrequency; }
 
     // Getters for other variables computed after market clearing
     public double getExpAvMonthsOnMarket() { return expAvMonthsOnMarket; }
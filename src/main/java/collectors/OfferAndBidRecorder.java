@@ -3,16 +3,32 @@ package collectors;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 
-public class OfferAndBidRecorder {
+import housing.HouseBidderRecord;
+import housing.HouseOfferRecord;
+import housing.HousingMarket;
+import housing.MarketEventListener;
+import housing.Model;
+
+/**************************************************************************************************
+ * Listener of the events of the housing markets writing, for every offer visited during market
+ * clearing, a line with the offer, its matched bids and, if sold, the winning bid and the price,
+ * but only for houses on the sale market and once recording has started
+ *
+ *************************************************************************************************/
+public class OfferAndBidRecorder implements MarketEventListener {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
     private String outputFolder;
+    private int counter; // Counter of lines written in this clearing round
+    private boolean recordingOffer; // True if the offer being cleared is being written to file
+    private int nMatchedBids; // Number of bids matched with the offer being cleared
 
-    public PrintWriter outfile;
+    private PrintWriter outfile;
 
     //------------------------//
     //----- Constructors -----//
@@ -41,5 +57,57 @@ public class OfferAndBidRecorder {
         }
     }
 
+    @Override
+    public void roundStarted(HousingMarket market) { counter = 1; }
+
+    @Override
+    public void offerMatched(HousingMarket market, HouseOfferRecord offer, List<HouseBidderRecord> bids) {
+        recordingOffer = Model.getTime() >= Model.config.TIME_TO_START_RECORDING && offer.getHouse().isOnMarket();
+        if (!recordingOffer) return;
+        nMatchedBids = bids.size();
+        // record the offer and the matched bids
+        outfile.print(
+                Model.getTime() + ", "
+                        + counter + ", "
+                        + offer.getId() + ", "
+                        + offer.getHouse().id + ", "
+                        + offer.getQuality() + ", "
+                        + offer.getYield() + ", "
+                        + String.format("%.2f",offer.getPrice()) + ", "
+                        + String.format("%.2f",offer.getInitialListedPrice()) + ", "
+                        + offer.gettInitialListing() + ", "
+        );
+        for (HouseBidderRecord bid : bids) {
+            outfile.print(
+                    String.format("%.2f", bid.getPrice()) + ", "
+                            + bid.getBidder().id + ", "
+                            + bid.getBidder().getBankBalance() + ", "
+                            + bid.getBidder().behaviour.isPropertyInvestor() + ", "
+            );
+        }
+        // Offers without matched bids are skipped by the clearing, thus their line ends here
+        if (nMatchedBids == 0) {
+            outfile.println("");
+            ++counter;
+        }
+    }
+
+    @Override
+    public void transaction(HousingMarket market, HouseBidderRecord purchase, HouseOfferRecord sale) {
+        if (!recordingOffer) return;
+        // record the winning bid and the price if there were multiple bids, otherwise just end the line
+        if (nMatchedBids > 1) {
+            outfile.println(purchase.getBidder().id + ", " + sale.getPrice());
+        } else {
+            outfile.println(", ");
+        }
+        ++counter;
+        // write an empty line if the house is still on the sale market (e.g., when let on the rental market)
+        if (sale.getHouse().isOnMarket()) {
+            outfile.println("");
+            ++counter;
+        }
+    }
+
 	public void finishRun() { outfile.close(); }
 }
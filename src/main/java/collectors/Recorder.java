@@ -71,69 +71,80 @@ public class Recorder {
     //-------------------//
 
     public void openMultiRunFiles(boolean recordCoreIndicators) {
+        openMultiRunFiles(recordCoreIndicators, outputFolder);
+    }
+
+    /**
+     * Open the multi-run (core indicator) files in a folder other than the general output folder, as needed, for
+     * instance, when runs executed in parallel write their own core indicator lines to be merged later on
+     *
+     * @param recordCoreIndicators True if core indicators are to be recorded
+     * @param folder Folder in which to create the core indicator files
+     */
+    public void openMultiRunFiles(boolean recordCoreIndicators, String folder) {
         // If recording of core indicators is active...
         if(recordCoreIndicators) {
             // ...try opening necessary files
             try {
-            	HPI = new PrintWriter(outputFolder + "coreIndicator-HPI.csv",
+            	HPI = new PrintWriter(folder + "coreIndicator-HPI.csv",
                 		"UTF-8");
-            	top10NetTotalWealthShare = new PrintWriter(outputFolder + "coreIndicator-top10NetTotalWealthShare.csv",
+            	top10NetTotalWealthShare = new PrintWriter(folder + "coreIndicator-top10NetTotalWealthShare.csv",
                 		"UTF-8");
-            	palmerIndex = new PrintWriter(outputFolder + "coreIndicator-palmerIndex.csv",
+            	palmerIndex = new PrintWriter(folder + "coreIndicator-palmerIndex.csv",
                 		"UTF-8");
-            	numberBankruptcies = new PrintWriter(outputFolder + "coreIndicator-numberBankruptcies.csv",
+            	numberBankruptcies = new PrintWriter(folder + "coreIndicator-numberBankruptcies.csv",
                 		"UTF-8");
-            	shareEmptyHouses = new PrintWriter(outputFolder + "coreIndicator-shareEmptyHouses.csv",
+            	shareEmptyHouses = new PrintWriter(folder + "coreIndicator-shareEmptyHouses.csv",
                 		"UTF-8");
-            	BTLMarketShare = new PrintWriter(outputFolder + "coreIndicator-BTLMarketShare.csv",
+            	BTLMarketShare = new PrintWriter(folder + "coreIndicator-BTLMarketShare.csv",
                 		"UTF-8");
-            	financialWealth = new PrintWriter(outputFolder + "coreIndicator-financialWealth.csv",
+            	financialWealth = new PrintWriter(folder + "coreIndicator-financialWealth.csv",
                 		"UTF-8");
-            	totalConsumption = new PrintWriter(outputFolder + "coreIndicator-totalConsumption.csv", 
+            	totalConsumption = new PrintWriter(folder + "coreIndicator-totalConsumption.csv", 
             			"UTF-8");
-            	incomeConsumption = new PrintWriter(outputFolder + "coreIndicator-incomeConsumption.csv",
+            	incomeConsumption = new PrintWriter(folder + "coreIndicator-incomeConsumption.csv",
                 		"UTF-8");
-            	financialConsumption = new PrintWriter(outputFolder + "coreIndicator-financialConsumption.csv",
+            	financialConsumption = new PrintWriter(folder + "coreIndicator-financialConsumption.csv",
                 		"UTF-8");
-            	grossHousingWealthConsumption = new PrintWriter(outputFolder + "coreIndicator-grossHousingWealthConsumption.csv",
+            	grossHousingWealthConsumption = new PrintWriter(folder + "coreIndicator-grossHousingWealthConsumption.csv",
                 		"UTF-8");
-            	debtConsumption = new PrintWriter(outputFolder + "coreIndicator-debtConsumption.csv",
+            	debtConsumption = new PrintWriter(folder + "coreIndicator-debtConsumption.csv",
                 		"UTF-8");
-            	savingDeleveraging = new PrintWriter(outputFolder + "coreIndicator-savingDeleveraging.csv",
+            	savingDeleveraging = new PrintWriter(folder + "coreIndicator-savingDeleveraging.csv",
                 		"UTF-8");           	
-            	consumptionToIncome = new PrintWriter(outputFolder + "coreIndicator-consumptionToIncome.csv",
+            	consumptionToIncome = new PrintWriter(folder + "coreIndicator-consumptionToIncome.csv",
                 		"UTF-8");
-                ooLTI = new PrintWriter(outputFolder + "coreIndicator-ooLTI.csv",
+                ooLTI = new PrintWriter(folder + "coreIndicator-ooLTI.csv",
                         "UTF-8");
-                btlLTV = new PrintWriter(outputFolder + "coreIndicator-btlLTV.csv",
+                btlLTV = new PrintWriter(folder + "coreIndicator-btlLTV.csv",
                         "UTF-8");
-                creditGrowth = new PrintWriter(outputFolder + "coreIndicator-creditGrowth.csv",
+                creditGrowth = new PrintWriter(folder + "coreIndicator-creditGrowth.csv",
                         "UTF-8");
-                debtToIncome = new PrintWriter(outputFolder + "coreIndicator-debtToIncome.csv",
+                debtToIncome = new PrintWriter(folder + "coreIndicator-debtToIncome.csv",
                         "UTF-8");
-                ooDebtToIncome = new PrintWriter(outputFolder + "coreIndicator-ooDebtToIncome.csv",
+                ooDebtToIncome = new PrintWriter(folder + "coreIndicator-ooDebtToIncome.csv",
                         "UTF-8");
-                mortgageApprovals = new PrintWriter(outputFolder + "coreIndicator-mortgageApprovals.csv",
+                mortgageApprovals = new PrintWriter(folder + "coreIndicator-mortgageApprovals.csv",
                         "UTF-8");
-                housingTransactions = new PrintWriter(outputFolder + "coreIndicator-housingTransactions.csv",
+                housingTransactions = new PrintWriter(folder + "coreIndicator-housingTransactions.csv",
                         "UTF-8");
-                advancesToFTBs = new PrintWriter(outputFolder + "coreIndicator-advancesToFTB.csv",
+                advancesToFTBs = new PrintWriter(folder + "coreIndicator-advancesToFTB.csv",
                         "UTF-8");
-                advancesToBTL = new PrintWriter(outputFolder + "coreIndicator-advancesToBTL.csv",
+                advancesToBTL = new PrintWriter(folder + "coreIndicator-advancesToBTL.csv",
                         "UTF-8");
-                advancesToHomeMovers = new PrintWriter(outputFolder + "coreIndicator-advancesToMovers.csv",
+                advancesToHomeMovers = new PrintWriter(folder + "coreIndicator-advancesToMovers.csv",
                         "UTF-8");
-                priceToIncome = new PrintWriter(outputFolder + "coreIndicator-priceToIncome.csv",
+                priceToIncome = new PrintWriter(folder + "coreIndicator-priceToIncome.csv",
                         "UTF-8");
-                rentalYield = new PrintWriter(outputFolder + "coreIndicator-rentalYield.csv",
+                rentalYield = new PrintWriter(folder + "coreIndicator-rentalYield.csv",
                         "UTF-8");
-                housePriceGrowth = new PrintWriter(outputFolder + "coreIndicator-housePriceGrowth.csv",
+                housePriceGrowth = new PrintWriter(folder + "coreIndicator-housePriceGrowth.csv",
                         "UTF-8");
-                interestRateSpread = new PrintWriter(outputFolder + "coreIndicator-interestRateSpread.csv",
+                interestRateSpread = new PrintWriter(folder + "coreIndicator-interestRateSpread.csv",
                         "UTF-8");
-                ooLTVAboveMedian = new PrintWriter(outputFolder + "coreIndicator-ooLTVAboveMedian.csv",
+                ooLTVAboveMedian = new PrintWriter(folder + "coreIndicator-ooLTVAboveMedian.csv",
                         "UTF-8");
-                ooLTV = new PrintWriter(outputFolder + "coreIndicator-ooLTV.csv",
+                ooLTV = new PrintWriter(folder + "coreIndicator-ooLTV.csv",
                         "UTF-8");
             } catch (FileNotFoundException | UnsupportedEncodingException e) {
                 e.printStackTrace();
@@ -18,6 +18,7 @@ public class RentalMarketStats extends HousingMarketStats {
 	//----- Fields -----//
 	//------------------//
 
+	private static final long serialVersionUID = 1L;
 	// General fields
 	private HousingMarketStats  		housingMarketStats;
 	private Config 						config = Model.config; // Passes the Model's configuration parameters object to a private field
@@ -4,6 +4,7 @@ import housing.Config;
 import housing.Model;
 
 import utilities.BinnedDataDouble;
+import utilities.DataTableCache;
 
 /**************************************************************************************************
  * Class to read and work with demographics data before passing it to the Demographics class. Note
@@ -21,8 +22,9 @@ public class Demographics {
 
     private static Config config = Model.config; // Passes the Model's configuration parameters object to a private field
 
-    // Read original age distribution from file
-    private static BinnedDataDouble ageDistribution = new BinnedDataDouble(config.DATA_AGE_DISTRIBUTION);
+    // Read original age distribution from file (or take it from the cache, if already read)
+    private static BinnedDataDouble ageDistribution = DataTableCache.get(config.DATA_AGE_DISTRIBUTION,
+            "ageDistribution", () -> new BinnedDataDouble(config.DATA_AGE_DISTRIBUTION));
 
     // Transform original age distribution to a new distribution with monthly bins (linear assumption)
     private static BinnedDataDouble monthlyAgeDistribution = transformAgeDistributionToMonthly(ageDistribution);
@@ -12,6 +12,7 @@ import org.apache.commons.csv.CSVRecord;
 
 import utilities.BinnedData;
 import utilities.BinnedDataDouble;
+import utilities.DataTableCache;
 import utilities.Pdf;
 
 /**************************************************************************************************
@@ -30,7 +31,8 @@ public class EmploymentIncome {
     /***
      * Calibrated against LCFS 2012 data
      */
-    static private BinnedData<Pdf> lnIncomeGivenAge = loadGrossEmploymentIncomePDFGivenAge();
+    static private BinnedData<Pdf> lnIncomeGivenAge = DataTableCache.get(Model.config.DATA_INCOME_GIVEN_AGE,
+            "lnIncomeGivenAge", EmploymentIncome::loadGrossEmploymentIncomePDFGivenAge);
 
     //-------------------//
     //----- Methods -----//
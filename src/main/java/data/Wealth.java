@@ -5,6 +5,7 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import utilities.BinnedData;
 import utilities.BinnedDataDouble;
+import utilities.DataTableCache;
 import utilities.Pdf;
 
 import java.io.FileReader;
@@ -24,7 +25,8 @@ public class Wealth {
     //----- Fields -----//
     //------------------//
 
-    static private BinnedData<Pdf> lnWealthGivenLnIncome = loadLnWealthPDFGivenLnIncome();
+    static private BinnedData<Pdf> lnWealthGivenLnIncome = DataTableCache.get(Model.config.DATA_WEALTH_GIVEN_INCOME,
+            "lnWealthGivenLnIncome", Wealth::loadLnWealthPDFGivenLnIncome);
 
     //-------------------//
     //----- Methods -----//
@@ -1,6 +1,8 @@
 package housing;
 
+import java.io.Serializable;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 /**************************************************************************************************
  * Class to represent a mortgage-lender (i.e. a bank or building society), whose only function is
@@ -9,12 +11,13 @@ import java.util.HashSet;
  * @author daniel, davidrpugh, Adrian Carro
  *
  *************************************************************************************************/
-public class Bank {
+public class Bank implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+	private static final long serialVersionUID = 1L;
 	// General fields
 	private Config	                    config = Model.config; // Passes the Model's configuration parameters object to a private field
     private CentralBank                 centralBank; // Connection to the central bank to ask for policy
@@ -50,7 +53,7 @@ public class Bank {
 
 	public Bank(CentralBank centralBank) {
 	    this.centralBank = centralBank;
-		mortgages = new HashSet<>();
+		mortgages = new LinkedHashSet<>(); // Insertion-ordered for a reproducible iteration order, also after restoring a snapshot
 	}
 
     //-------------------//
@@ -0,0 +1,63 @@
+package housing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import collectors.ClearingTelemetry;
+
+/**************************************************************************************************
+ * Clearing engine resolving all matches in a single sweep. Bids are sorted once by descending
+ * price (and descending id for equal prices) and, in this order, each bid takes the best offer
+ * left on the market for it, at the list price of the offer, as long as the offer is not from the
+ * bidder itself. Offers are thus never oversubscribed, and never bid up, and there is a single
+ * round of clearing, instead of as many as it takes the iterative engine for bids or offers to run
+ * out. Results diverge from those of IterativeClearingEngine: the highest bids get the first pick
+ * instead of competing for the same offers, prices are not bid up, and fewer random numbers are
+ * drawn. Note that, when any event listener is registered, roundStarted is fired once per sweep
+ * and offerMatched only for the offers actually matched, each of them with a single bid, and
+ * that, in the clearing telemetry, the sorting of bids counts as matching time and the sweep as
+ * clearing time.
+ *
+ *************************************************************************************************/
+public class BatchClearingEngine implements ClearingEngine {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long serialVersionUID = 1L;
+    private static final Comparator<HouseBidderRecord> DESCENDING_PRICE =
+            new HouseBidderRecord.PComparator().reversed();
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void clear(HousingMarket market) {
+        ArrayList<HouseBidderRecord> bids = market.getBids();
+        if (bids.isEmpty() || market.getnHousesOnMarket() == 0) return;
+        ClearingTelemetry telemetry = market.getClearingTelemetry();
+        int nBids = bids.size();
+        market.countClearingRound(nBids);
+        long start = (telemetry != null) ? System.nanoTime() : 0L;
+        bids.sort(DESCENDING_PRICE);
+        long sorted = (telemetry != null) ? System.nanoTime() : 0L;
+        market.fireRoundStarted();
+        // Unmatched bids are moved to the front of the list, to be left on the market once all bids have been swept
+        int nUnmatched = 0;
+        for (HouseBidderRecord bid : bids) {
+            HouseOfferRecord offer = (market.getnHousesOnMarket() > 0) ? market.getBestOffer(bid) : null;
+            if (offer != null && offer.getHouse().owner != bid.getBidder()) {
+                market.clearSingleMatch(bid, offer);
+            } else {
+                bids.set(nUnmatched++, bid);
+            }
+        }
+        bids.subList(nUnmatched, bids.size()).clear();
+        if (telemetry != null) {
+            telemetry.finishRound(market.getnClearingRounds(), nBids, 0, market.getnHousesOnMarket(), sorted - start,
+                    System.nanoTime() - sorted);
+        }
+    }
+}
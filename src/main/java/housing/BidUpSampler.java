@@ -0,0 +1,118 @@
+package housing;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+
+/**************************************************************************************************
+ * Class to sample, without allocating any objects, the number of bid-ups for an offer matched with
+ * several bids, and to find the corresponding factor by which its price is bid up. The number of
+ * bid-ups follows a geometric distribution, whose probability of success for a given number of
+ * bids is computed only once and kept in a table, together with the cumulative probabilities of
+ * the first numbers of bid-ups, as are the powers of the bid-up factor. Samples are drawn by
+ * inverse transform from a single uniform random number, finding the least number of bid-ups whose
+ * cumulative probability, computed exactly as GeometricDistribution does, reaches the uniform
+ * random number. This is the value found by the bisection search of the sample method of
+ * GeometricDistribution, thus drawing exactly the same samples from the same random numbers.
+ *
+ *************************************************************************************************/
+public class BidUpSampler implements Serializable {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long   serialVersionUID = 1L;
+    private static final int    N_TABULATED = 64; // Number of tabulated cumulative probabilities and powers of the bid-up factor
+
+    private double              monthsUnderOffer;
+    private double              bidUp;
+    private double []           probabilityOfFailure = new double[0]; // 1 - probability of success, for each number of bids
+    private double []           logProbabilityOfFailure = new double[0]; // Its logarithm, for each number of bids
+    private double [][]         cumulativeProbabilities = new double[0][]; // For each number of bids and of bid-ups
+    private double []           bidUpPowers = new double[N_TABULATED]; // Powers of the bid-up factor, for each number of bid-ups
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param monthsUnderOffer Fraction of a month for which a house is under offer
+     * @param bidUp Factor by which the price of a house is increased with each bid-up
+     */
+    BidUpSampler(double monthsUnderOffer, double bidUp) {
+        this.monthsUnderOffer = monthsUnderOffer;
+        this.bidUp = bidUp;
+        for (int k = 0; k < N_TABULATED; k++) bidUpPowers[k] = Math.pow(bidUp, k);
+        tabulate(N_TABULATED); // Further numbers of bids are tabulated when first needed
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Draw the number of bid-ups for an offer matched with several bids. Assuming bids are randomly distributed
+     * throughout the month, the probability of success is the probability of two consecutive bids having at least a
+     * week between them, and the number of bid-ups is the number of attempts before a success
+     *
+     * @param nBids Number of bids matched with the offer
+     * @param prng Random number generator from which to draw a single uniform random number
+     * @return Number of bid-ups
+     */
+    int sample(int nBids, RandomGenerator prng) {
+        double u = prng.nextDouble();
+        if (u == 0.0) return 0;
+        if (nBids >= probabilityOfFailure.length) tabulate(Math.max(nBids + 1, 2*probabilityOfFailure.length));
+        double q = probabilityOfFailure[nBids];
+        // If the probability of success is too small to make any difference, the cumulative probability never reaches
+        // the uniform random number, and the bisection search stops at the upper bound of the support, as it does
+        // whenever the number of bid-ups would be beyond the range of integers
+        if (q == 1.0) return Integer.MAX_VALUE;
+        // Most often, the number of bid-ups is small enough to be found among the tabulated cumulative probabilities...
+        double [] cumulativeProbability = cumulativeProbabilities[nBids];
+        if (u <= cumulativeProbability[N_TABULATED - 1]) {
+            int nBidUps = 0;
+            while (cumulativeProbability[nBidUps] < u) nBidUps++;
+            return nBidUps;
+        }
+        // ...otherwise, estimate the number of bid-ups in closed form, and then correct it for rounding errors, using the same
+        // expression for the cumulative probability as GeometricDistribution
+        int nBidUps = (int)Math.max(0.0, Math.ceil(Math.log1p(-u)/logProbabilityOfFailure[nBids]) - 1.0);
+        while (nBidUps > 0 && 1.0 - FastMath.pow(q, nBidUps) >= u) nBidUps--;
+        while (nBidUps < Integer.MAX_VALUE && 1.0 - FastMath.pow(q, nBidUps + 1) < u) nBidUps++;
+        return nBidUps;
+    }
+
+    /**
+     * @param nBidUps Number of bid-ups
+     * @return Factor by which the price of the offer is to be multiplied, that is, the bid-up factor to the power of
+     * the number of bid-ups
+     */
+    double getBidUpFactor(int nBidUps) {
+        return (nBidUps < N_TABULATED) ? bidUpPowers[nBidUps] : Math.pow(bidUp, nBidUps);
+    }
+
+    /**
+     * Fill in the probabilities of failure and the cumulative probabilities of the first N_TABULATED numbers of
+     * bid-ups for all numbers of bids up to length - 1
+     */
+    private void tabulate(int length) {
+        int start = probabilityOfFailure.length;
+        probabilityOfFailure = Arrays.copyOf(probabilityOfFailure, length);
+        logProbabilityOfFailure = Arrays.copyOf(logProbabilityOfFailure, length);
+        cumulativeProbabilities = Arrays.copyOf(cumulativeProbabilities, length);
+        for (int nBids = start; nBids < length; nBids++) {
+            double pSuccessfulBid = Math.pow((1.0 - monthsUnderOffer), (nBids - 1));
+            if (pSuccessfulBid == 0.0) pSuccessfulBid = Float.MIN_VALUE; // Keeping the probability non-zero
+            probabilityOfFailure[nBids] = 1.0 - pSuccessfulBid;
+            logProbabilityOfFailure[nBids] = Math.log(probabilityOfFailure[nBids]);
+            cumulativeProbabilities[nBids] = new double[N_TABULATED];
+            for (int k = 0; k < N_TABULATED; k++) {
+                cumulativeProbabilities[nBids][k] = 1.0 - FastMath.pow(probabilityOfFailure[nBids], k + 1);
+            }
+        }
+    }
+}
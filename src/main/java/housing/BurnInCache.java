@@ -0,0 +1,258 @@
+package housing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**************************************************************************************************
+ * Class to cache, on disk, the model state at the end of the burn-in period (the time steps before
+ * config.TIME_TO_START_RECORDING), such that simulations sharing the same burn-in, for instance
+ * those of a sweep over policy parameters only active after the burn-in, skip it entirely. Cached
+ * states are keyed by a SHA-256 hash over:
+ * - every parameter in Config, except those which cannot affect the burn-in period: output
+ *   parameters (record*, microDataRecordIntervall), N_STEPS, N_SIMS, the cache parameters
+ *   themselves, the performance parameters which do not change results (parallelHouseholdStep,
+ *   the order books, batchBidMatching, clearMatchedOffersOnly, parallelBidMatching,
+ *   bulkRepricing and marketIntake), and any parameter listed in
+ *   config.burnInCacheExcludedParameters,
+ * - the contents of every data file referenced by a DATA_* parameter,
+ * - the compiled model classes.
+ * Note that the seed (SEED + run - 1 for isolated runs) is thus part of the key. As the cache
+ * cannot tell by itself whether a parameter affects the burn-in, the verification mode re-runs the
+ * burn-in even if a cached state exists, and compares the result with it, replacing it if needed.
+ * States are always stored with PriorityQueue2D order books, which are rebuilt with the order
+ * books of the current configuration upon restoring. Note that, in verification mode, states are
+ * only found equal if written with the same result-neutral performance parameters, as these may
+ * leave different clearing counters and buffer capacities in the markets. Note also that
+ * parallelHouseholdStats and the clearing engines are part of the key, as they do change results
+ * (the former through the order of floating point sums). Once the cache folder exceeds config.burnInCacheMaxSizeMB, the least
+ * recently used states are evicted, except those used within the last EVICTION_GRACE_MILLIS,
+ * which might be about to be restored by a concurrent simulation.
+ *
+ *************************************************************************************************/
+public class BurnInCache {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String     EXTENSION = ".gz";
+    private static final Set<String> NON_BURN_IN_PARAMETERS = new HashSet<>(Arrays.asList("N_STEPS", "N_SIMS",
+            "microDataRecordIntervall", "burnInCache", "burnInCacheFolder", "burnInCacheMaxSizeMB",
+            "burnInCacheVerify", "burnInCacheExcludedParameters", "parallelHouseholdStep", "saleOfferBook",
+            "rentalOfferBook", "saleYieldOfferBook", "batchBidMatching", "clearMatchedOffersOnly",
+            "parallelBidMatching", "bulkRepricing", "marketIntake"));
+    private static final String     STORED_OFFER_BOOK = "PriorityQueue2D"; // Order books of all stored states
+    private static final long       EVICTION_GRACE_MILLIS = 10*60*1000L; // States used more recently are never evicted
+
+    private static byte[]           classesFingerprint; // Computed once per class loader, as classes do not change
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * @param freshState True if the model state has just been created, i.e., no previous simulation has changed
+     *                   the random number generator or the id counters
+     * @return True if the burn-in period of the current simulation can be taken from, or stored in, the cache
+     */
+    static boolean isApplicable(boolean freshState) {
+        return Model.config.burnInCache && freshState && Model.config.TIME_TO_START_RECORDING > 0
+                && Model.config.TIME_TO_START_RECORDING <= Model.config.N_STEPS;
+    }
+
+    /**
+     * Bring the model to the end of the burn-in period, i.e., to the end of time step TIME_TO_START_RECORDING - 1,
+     * either by restoring a cached state or by initialising the model and running the burn-in period, in which case
+     * the resulting state is stored in the cache
+     */
+    static void runBurnIn() {
+        Config config = Model.config;
+        int nSimulation = Model.nSimulation;
+        String key = computeKey(config);
+        File cacheFolder = new File(config.burnInCacheFolder);
+        File cachedState = new File(cacheFolder, key + EXTENSION);
+        // Mark the cached state as used before restoring it, such that concurrent simulations do not evict it meanwhile
+        if (!config.burnInCacheVerify && cachedState.setLastModified(System.currentTimeMillis())) {
+            try {
+                // Restore the cached state, with the current configuration values (which can only differ in
+                // parameters not affecting the burn-in) copied into the restored configuration object, as agents
+                // refer to it, and with the order books of the current configuration
+                ModelSnapshot.restore(cachedState.getPath(), restoredConfig -> restoredConfig.copyValuesFrom(config));
+                Model.nSimulation = nSimulation;
+                Model.rebuildOfferBooks(config.saleOfferBook, config.saleYieldOfferBook, config.rentalOfferBook);
+                return;
+            } catch (RuntimeException e) {
+                // A state evicted before it could be opened leaves the model untouched, thus the burn-in can be run
+                if (cachedState.exists()) throw e;
+                System.out.println("Cached burn-in state " + cachedState + " was evicted while restoring it, " +
+                        "running the burn-in period instead");
+            }
+        }
+        Model.init();
+        Model.runSteps(0, config.TIME_TO_START_RECORDING - 1);
+        store(cachedState);
+        evict(cacheFolder, cachedState, (long)config.burnInCacheMaxSizeMB*1024*1024);
+    }
+
+    /**
+     * Write the current model state to the cache, first to a temporary file which is then moved into place, such that
+     * concurrent simulations never read a partially written state. In verification mode, if a cached state already
+     * exists, it is compared with the current one, and only replaced if they differ. If the state cannot be completely
+     * written, the temporary file is deleted and any cached state is kept
+     */
+    private static void store(File cachedState) {
+        File cacheFolder = cachedState.getParentFile();
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            System.out.println("Strange: could not create burn-in cache folder " + cacheFolder);
+            return;
+        }
+        try {
+            Path tempFile = Files.createTempFile(cacheFolder.toPath(), "burnIn", ".tmp");
+            // States are stored with the same order books whatever the configuration, as these are not part of the key
+            Model.rebuildOfferBooks(STORED_OFFER_BOOK, STORED_OFFER_BOOK, STORED_OFFER_BOOK);
+            try {
+                ModelSnapshot.save(tempFile.toString());
+            } catch (UncheckedIOException uioe) {
+                // A partially written state must never replace a cached one, nor be left in the cache folder
+                System.out.println("Exception " + uioe + " while trying to store burn-in state " + cachedState);
+                Files.deleteIfExists(tempFile);
+                return;
+            } finally {
+                Config config = Model.config;
+                Model.rebuildOfferBooks(config.saleOfferBook, config.saleYieldOfferBook, config.rentalOfferBook);
+            }
+            if (cachedState.exists()) {
+                if (Arrays.equals(ModelSnapshot.digest(tempFile.toString()),
+                        ModelSnapshot.digest(cachedState.getPath()))) {
+                    System.out.println("Burn-in cache verified: " + cachedState);
+                    Files.delete(tempFile);
+                    return;
+                }
+                System.out.println("Strange: burn-in state differs from cached state " + cachedState + ", replacing " +
+                        "it. A parameter affecting the burn-in might be listed in burnInCacheExcludedParameters");
+            }
+            try {
+                Files.move(tempFile, cachedState.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(tempFile, cachedState.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while trying to store burn-in state " + cachedState);
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * Delete least recently used cached states until the cache folder fits within the maximum size, always keeping
+     * the state just stored and any state used within the last EVICTION_GRACE_MILLIS
+     */
+    private static void evict(File cacheFolder, File keptState, long maxSize) {
+        File[] cachedStates = cacheFolder.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (cachedStates == null) return;
+        Arrays.sort(cachedStates, Comparator.comparingLong(File::lastModified).reversed());
+        long size = 0;
+        long graceStart = System.currentTimeMillis() - EVICTION_GRACE_MILLIS;
+        for (File cachedState : cachedStates) {
+            size += cachedState.length();
+            if (size > maxSize && !cachedState.equals(keptState) && cachedState.lastModified() < graceStart) {
+                size -= cachedState.length();
+                if (cachedState.delete()) {
+                    System.out.println("Evicted cached burn-in state " + cachedState);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Hexadecimal SHA-256 hash over all burn-in relevant parameters, data files and model classes
+     */
+    static String computeKey(Config config) {
+        Set<String> excluded = new HashSet<>(NON_BURN_IN_PARAMETERS);
+        for (String name : config.burnInCacheExcludedParameters.split(",")) excluded.add(name.trim());
+        MessageDigest digest = newDigest();
+        try {
+            List<Field> fields = Arrays.stream(Config.class.getDeclaredFields())
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                    .sorted(Comparator.comparing(Field::getName)).collect(Collectors.toList());
+            for (Field field : fields) {
+                Class<?> type = field.getType();
+                if (field.getName().startsWith("record") || excluded.contains(field.getName())
+                        || (type != int.class && type != double.class && type != boolean.class
+                        && type != String.class)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = field.get(config);
+                digest.update((field.getName() + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+                if (field.getName().startsWith("DATA_") && value != null) {
+                    File dataFile = new File((String)value);
+                    if (dataFile.isFile()) digest.update(Files.readAllBytes(dataFile.toPath()));
+                }
+            }
+        } catch (IllegalAccessException | IOException e) {
+            throw new RuntimeException("Could not compute burn-in cache key", e);
+        }
+        digest.update(getClassesFingerprint());
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) key.append(String.format("%02x", b));
+        return key.toString();
+    }
+
+    /**
+     * @return SHA-256 hash over the compiled model classes (classes folder or jar) this class was loaded from
+     */
+    private static synchronized byte[] getClassesFingerprint() {
+        if (classesFingerprint == null) {
+            MessageDigest digest = newDigest();
+            try {
+                Path location = Paths.get(BurnInCache.class.getProtectionDomain().getCodeSource().getLocation()
+                        .toURI());
+                if (Files.isDirectory(location)) {
+                    List<Path> classFiles;
+                    try (Stream<Path> paths = Files.walk(location)) {
+                        classFiles = paths.filter(path -> path.toString().endsWith(".class")).sorted()
+                                .collect(Collectors.toCollection(ArrayList::new));
+                    }
+                    for (Path classFile : classFiles) {
+                        digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(classFile));
+                    }
+                } else {
+                    digest.update(Files.readAllBytes(location));
+                }
+            } catch (IOException | URISyntaxException e) {
+                throw new RuntimeException("Could not fingerprint model classes", e);
+            }
+            classesFingerprint = digest.digest();
+        }
+        return classesFingerprint;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new RuntimeException(nsae);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package housing;
+
+import java.io.Serializable;
+
+/**************************************************************************************************
+ * Interface for the algorithms clearing a housing market, i.e., matching the bids on the market
+ * with its offers and completing the resulting transactions. HousingMarket.clearMarket delegates
+ * to the engine of the market once the priorities of its offers are sorted, and discards any bid
+ * left once the engine has finished. Engines work on the market through its package-private
+ * methods, such that market-specific behaviour, like the search for offers for BTL bids on the
+ * sale market, applies under any engine. The engine of each market is selected by
+ * config.saleClearingEngine and config.rentalClearingEngine.
+ *
+ *************************************************************************************************/
+public interface ClearingEngine extends Serializable {
+
+    /**
+     * Clear the market, leaving on it only those bids which could not be matched with any offer
+     *
+     * @param market Market to clear, with its priorities sorted
+     */
+    void clear(HousingMarket market);
+}
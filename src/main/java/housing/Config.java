@@ -2,7 +2,9 @@ package housing;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
@@ -15,7 +17,8 @@ import java.util.Set;
  * @since 20/02/2017
  *
  *************************************************************************************************/
-public class Config {
+public class Config implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     //---------------------------------//
     //----- Fields and subclasses -----//
@@ -25,6 +28,8 @@ public class Config {
 
     // General model control parameters
     int SEED;                                   // Seed for the random number generator
+    String randomGenerator;                     // Random number generator to use, "MersenneTwister" or "Xoroshiro128"
+    boolean splitRandomStreams;                 // True for separate random number streams per subsystem and household
     int N_STEPS;				                // Simulation duration in time steps
     public int TIME_TO_START_RECORDING;	            // Time steps before recording statistics (initialisation time)
     int N_SIMS; 					            // Number of simulations to run (monte-carlo)
@@ -45,6 +50,9 @@ public class Config {
     public boolean recordMonthlyMortgagePayments;	// True to write individual households monthly mortgage payments (interest and principal)
     public boolean recordAgentData;					// True to write micro data for each agent each period
     public boolean recordAgentDecisions; 			// True to write data from agent decision methods
+    boolean recordStepProfile;                  // True to write the time and allocated bytes of each phase of each time step
+    String recordOrderBooksAt;                  // Comma-separated time steps at which to capture the order books of both markets before clearing
+    boolean recordClearingTelemetry;            // True to write rounds, matches, bid-ups and times of the clearing of both markets
     public boolean recordDebt;					// True to write individual household debt (after market clearing) (boolean)
     public boolean recordConsumption;			// True to write individual household total consumption
     public boolean recordIncomeConsumption; 	// True to write individual households consumption induced by income
@@ -67,8 +75,25 @@ public class Config {
 	public boolean recordFinancialVulnerability;       // True to write the reason an agent is vulnerable and for how long
 	public boolean recordShockedMonthlyDisposableIncome; 
 
+    // Performance parameters
+    boolean burnInCache;                        // True to reuse cached model states at the end of the burn-in period (TIME_TO_START_RECORDING)
+    String burnInCacheFolder;                   // Folder where burn-in states are cached
+    int burnInCacheMaxSizeMB;                   // Maximum size of the burn-in cache folder, least recently used states are evicted beyond it
+    boolean burnInCacheVerify;                  // True to re-run the burn-in even if cached, comparing the result with the cached state
+    String burnInCacheExcludedParameters;       // Comma-separated parameters that do not affect the burn-in period, excluded from the cache key
+    boolean parallelHouseholdStep;              // True to run the private part of the household step in parallel
+    public boolean parallelHouseholdStats;      // True to accumulate household statistics in parallel over chunks of households
+    String saleOfferBook;                       // Order book for the price-quality queue of the sale market, "PriorityQueue2D" or "QualityBuckets"
+    String rentalOfferBook;                     // Order book for the price-quality queue of the rental market, "PriorityQueue2D" or "QualityBuckets"
+    String saleYieldOfferBook;                  // Order book for the price-yield queue of the sale market, "PriorityQueue2D" or "RangeMax"
+    boolean batchBidMatching;                   // True to find the best offers for all bids of a clearing round at once
+    boolean clearMatchedOffersOnly;             // True to visit only offers matched in the current round when clearing matches
+    boolean parallelBidMatching;                // True to find the best offers for the bids of each clearing round in parallel
+    boolean bulkRepricing;                      // True to apply all offer price changes of each time step in bulk
+    String saleClearingEngine;                  // Engine clearing the sale market, "Iterative" or "Batch"
+    String rentalClearingEngine;                // Engine clearing the rental market, "Iterative" or "Batch"
+    String marketIntake;                        // Intake of household offers and bids, "Direct", "ThreadBuffers" or "LockFreeBids"
 
-    
     // Model version parameters
     boolean fixedInterestRates;					// bank uses a fixed interest rate as opposed to basing it on the difference between actual and target credit supply
     boolean procyclicalCreditConstraints;			// toggle flexible LTV, LTI and affordability ratios by the bank
@@ -259,7 +284,8 @@ public class Config {
      * Class to contain all parameters which are not read from the configuration (.properties) file, but derived,
      * instead, from these configuration parameters
      */
-    public class DerivedParams {
+    public class DerivedParams implements Serializable {
+        private static final long serialVersionUID = 1L;
         // Housing market parameters
         public int HPI_RECORD_LENGTH;   // Number of months to record HPI (to compute price growth at different time scales)
         double MONTHS_UNDER_OFFER;      // Time (in months) that a house remains under offer
@@ -295,7 +321,9 @@ public class Config {
     /**
      * Class to contain all constants (not read from the configuration file nor derived from it)
      */
-    public class Constants {
+    public class Constants implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         final int DAYS_IN_MONTH = 30;
         final public int MONTHS_IN_YEAR = 12;
     }
@@ -313,7 +341,15 @@ public class Config {
      * Constructor with full initialization, used only for the original Model Config instance
      */
     public Config (String configFileName) {
-        getConfigValues(configFileName);
+        getConfigValues(configFileName, null);
+    }
+
+    /**
+     * Constructor with full initialization where, on top of the values read from the configuration file, the values in
+     * an in-memory overlay of properties take precedence, as used for parameter sweeps
+     */
+    public Config (String configFileName, Properties overlay) {
+        getConfigValues(configFileName, overlay);
     }
 
     //-------------------//
@@ -331,109 +367,173 @@ public class Config {
     /**
      * Method to read configuration parameters from a configuration (.properties) file
      * @param   configFileName    String with name of configuration (.properties) file (address inside source folder)
+     * @param   overlay           Properties overriding those in the file (null for none)
      */
-    private void getConfigValues(String configFileName) {
+    private void getConfigValues(String configFileName, Properties overlay) {
         // Try-with-resources statement
         try (FileReader fileReader = new FileReader(configFileName)) {
             Properties prop = new Properties();
             prop.load(fileReader);
-            // Check that all parameters declared in the configuration (.properties) file are also declared in this class
-            try {
-                Set<String> setOfFields = new HashSet<>();
-                for (Field field : this.getClass().getDeclaredFields()) {
-                    setOfFields.add(field.getName());
-                }
-                for (String property: prop.stringPropertyNames()) {
-                    if (!setOfFields.contains(property)) {
-                        throw new UndeclaredPropertyException(property);
-                    }
+            // Values in the overlay, if any, take precedence over those in the file
+            if (overlay != null) prop.putAll(overlay);
+            setFieldValues(prop, false);
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while trying to read file '" + configFileName + "'");
+            ioe.printStackTrace();
+        }
+        // Finally, compute and set values for all derived parameters
+        setDerivedParams();
+    }
+
+    /**
+     * Method to apply an overlay of configuration parameters to an already initialised Config instance, such as one
+     * restored from a snapshot, recomputing all derived parameters afterwards. Only the parameters in the overlay are
+     * changed.
+     * @param   overlay           Properties to be applied
+     */
+    public void applyOverlay(Properties overlay) {
+        setFieldValues(overlay, true);
+        setDerivedParams();
+    }
+
+    /**
+     * Method to check whether a field of this class is a parameter read from the configuration file, i.e., a
+     * non-static int, double, boolean or String field, as opposed to derived parameters, constants or static fields
+     * @param   fieldName         Name of the field to be checked
+     * @return  True if the field is declared in this class and is a parameter
+     */
+    static boolean isParameter(String fieldName) {
+        try {
+            Field field = Config.class.getDeclaredField(fieldName);
+            Class<?> type = field.getType();
+            return !Modifier.isStatic(field.getModifiers())
+                    && (type == int.class || type == double.class || type == boolean.class || type == String.class);
+        } catch (NoSuchFieldException nsfe) {
+            return false;
+        }
+    }
+
+    /**
+     * Method to copy all parameter values from another Config instance into this one, recomputing all derived
+     * parameters afterwards, such that objects holding a reference to this instance see the new values
+     * @param   other             Config instance from which to copy values
+     */
+    void copyValuesFrom(Config other) {
+        for (Field field : this.getClass().getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.getName().equals("derivedParams")
+                    && !field.getName().equals("constants")) {
+                try {
+                    field.set(this, field.get(other));
+                } catch (IllegalAccessException iae) {
+                    System.out.println("Exception " + iae + " while trying to copy the field " + field.getName());
+                    iae.printStackTrace();
                 }
-            } catch (UndeclaredPropertyException upe) {
-                upe.printStackTrace();
             }
-            // Run through all the fields of the Class using reflection
+        }
+        setDerivedParams();
+    }
+
+    /**
+     * Method to set the fields of this class from a set of properties, using reflection
+     * @param   prop              Properties with field names as keys
+     * @param   partial           True if only the fields given are to be set, false if all fields are expected
+     */
+    private void setFieldValues(Properties prop, boolean partial) {
+        // Check that all parameters declared in the configuration (.properties) file are also declared in this class
+        try {
+            Set<String> setOfFields = new HashSet<>();
             for (Field field : this.getClass().getDeclaredFields()) {
-                try {
-                    // For int fields, parse the int with appropriate exception handling
-                    if (field.getType().toString().equals("int")) {
-                        try {
-                            if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
-                            field.set(this, Integer.parseInt(prop.getProperty(field.getName())));
-                        } catch (NumberFormatException nfe) {
-                            System.out.println("Exception " + nfe + " while trying to parse the field " +
-                                    field.getName() + " for an integer");
-                            nfe.printStackTrace();
-                        } catch (IllegalAccessException iae) {
-                            System.out.println("Exception " + iae + " while trying to set the field " +
-                                    field.getName());
-                            iae.printStackTrace();
-                        } catch (FieldNotInFileException fnife) {
-                            fnife.printStackTrace();
-                        }
-                    // For double fields, parse the double with appropriate exception handling
-                    } else if (field.getType().toString().equals("double")) {
-                        try {
-                            if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
-                            field.set(this, Double.parseDouble(prop.getProperty(field.getName())));
-                        } catch (NumberFormatException nfe) {
-                            System.out.println("Exception " + nfe + " while trying to parse the field " +
-                                    field.getName() + " for an double");
-                            nfe.printStackTrace();
-                        } catch (IllegalAccessException iae) {
-                            System.out.println("Exception " + iae + " while trying to set the field " +
-                                    field.getName());
-                            iae.printStackTrace();
-                        } catch (FieldNotInFileException fnife) {
-                            fnife.printStackTrace();
-                        }
-                    // For boolean fields, parse the boolean with appropriate exception handling
-                    } else if (field.getType().toString().equals("boolean")) {
-                        try {
-                            if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
-                            if (prop.getProperty(field.getName()).equals("true") ||
-                                    prop.getProperty(field.getName()).equals("false")) {
-                                field.set(this, Boolean.parseBoolean(prop.getProperty(field.getName())));
-                            } else {
-                                throw new BooleanFormatException("For input string \"" +
-                                        prop.getProperty(field.getName()) + "\"");
-                            }
-                        } catch (BooleanFormatException bfe) {
-                            System.out.println("Exception " + bfe + " while trying to parse the field " +
-                                    field.getName() + " for a boolean");
-                            bfe.printStackTrace();
-                        } catch (IllegalAccessException iae) {
-                            System.out.println("Exception " + iae + " while trying to set the field " +
-                                    field.getName());
-                            iae.printStackTrace();
-                        } catch (FieldNotInFileException fnife) {
-                            fnife.printStackTrace();
-                        }
-                    // For string fields, parse the string with appropriate exception handling
-                    } else if (field.getType().toString().equals("class java.lang.String")) {
-                        try {
-                            if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
-                            field.set(this, prop.getProperty(field.getName()).replace("\"", "").replace("\'", ""));
-                        } catch (IllegalAccessException iae) {
-                            System.out.println("Exception " + iae + " while trying to set the field " +
-                                    field.getName());
-                            iae.printStackTrace();
-                        } catch (FieldNotInFileException fnife) {
-                            fnife.printStackTrace();
+                if (!Modifier.isStatic(field.getModifiers())) setOfFields.add(field.getName());
+            }
+            for (String property: prop.stringPropertyNames()) {
+                if (!setOfFields.contains(property)) {
+                    throw new UndeclaredPropertyException(property);
+                }
+            }
+        } catch (UndeclaredPropertyException upe) {
+            upe.printStackTrace();
+        }
+        // Run through all the fields of the Class using reflection
+        for (Field field : this.getClass().getDeclaredFields()) {
+            // Skip static fields, such as serialVersionUID, which are not parameters
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            // When setting only some fields, skip those not given
+            if (partial && prop.getProperty(field.getName()) == null) continue;
+            try {
+                // For int fields, parse the int with appropriate exception handling
+                if (field.getType().toString().equals("int")) {
+                    try {
+                        if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
+                        field.set(this, Integer.parseInt(prop.getProperty(field.getName())));
+                    } catch (NumberFormatException nfe) {
+                        System.out.println("Exception " + nfe + " while trying to parse the field " +
+                                field.getName() + " for an integer");
+                        nfe.printStackTrace();
+                    } catch (IllegalAccessException iae) {
+                        System.out.println("Exception " + iae + " while trying to set the field " +
+                                field.getName());
+                        iae.printStackTrace();
+                    } catch (FieldNotInFileException fnife) {
+                        fnife.printStackTrace();
+                    }
+                // For double fields, parse the double with appropriate exception handling
+                } else if (field.getType().toString().equals("double")) {
+                    try {
+                        if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
+                        field.set(this, Double.parseDouble(prop.getProperty(field.getName())));
+                    } catch (NumberFormatException nfe) {
+                        System.out.println("Exception " + nfe + " while trying to parse the field " +
+                                field.getName() + " for an double");
+                        nfe.printStackTrace();
+                    } catch (IllegalAccessException iae) {
+                        System.out.println("Exception " + iae + " while trying to set the field " +
+                                field.getName());
+                        iae.printStackTrace();
+                    } catch (FieldNotInFileException fnife) {
+                        fnife.printStackTrace();
+                    }
+                // For boolean fields, parse the boolean with appropriate exception handling
+                } else if (field.getType().toString().equals("boolean")) {
+                    try {
+                        if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
+                        if (prop.getProperty(field.getName()).equals("true") ||
+                                prop.getProperty(field.getName()).equals("false")) {
+                            field.set(this, Boolean.parseBoolean(prop.getProperty(field.getName())));
+                        } else {
+                            throw new BooleanFormatException("For input string \"" +
+                                    prop.getProperty(field.getName()) + "\"");
                         }
-                    // For unrecognised field types, except derivedParams and constants, throw exception
-                    } else if (!field.getName().equals("derivedParams") && !field.getName().equals("constants")) {
-                        throw new UnrecognisedFieldTypeException(field);
+                    } catch (BooleanFormatException bfe) {
+                        System.out.println("Exception " + bfe + " while trying to parse the field " +
+                                field.getName() + " for a boolean");
+                        bfe.printStackTrace();
+                    } catch (IllegalAccessException iae) {
+                        System.out.println("Exception " + iae + " while trying to set the field " +
+                                field.getName());
+                        iae.printStackTrace();
+                    } catch (FieldNotInFileException fnife) {
+                        fnife.printStackTrace();
                     }
-                } catch (UnrecognisedFieldTypeException ufte) {
-                    ufte.printStackTrace();
+                // For string fields, parse the string with appropriate exception handling
+                } else if (field.getType().toString().equals("class java.lang.String")) {
+                    try {
+                        if (prop.getProperty(field.getName()) == null) {throw new FieldNotInFileException(field);}
+                        field.set(this, prop.getProperty(field.getName()).replace("\"", "").replace("\'", ""));
+                    } catch (IllegalAccessException iae) {
+                        System.out.println("Exception " + iae + " while trying to set the field " +
+                                field.getName());
+                        iae.printStackTrace();
+                    } catch (FieldNotInFileException fnife) {
+                        fnife.printStackTrace();
+                    }
+                // For unrecognised field types, except derivedParams and constants, throw exception
+                } else if (!field.getName().equals("derivedParams") && !field.getName().equals("constants")) {
+                    throw new UnrecognisedFieldTypeException(field);
                 }
+            } catch (UnrecognisedFieldTypeException ufte) {
+                ufte.printStackTrace();
             }
-        } catch (IOException ioe) {
-            System.out.println("Exception " + ioe + " while trying to read file '" + configFileName + "'");
-            ioe.printStackTrace();
         }
-        // Finally, compute and set values for all derived parameters
-        setDerivedParams();
     }
 
     /**
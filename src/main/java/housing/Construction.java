@@ -1,31 +1,34 @@
 package housing;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 import collectors.HousingMarketStats;
 
+import java.io.Serializable;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 
-public class Construction implements IHouseOwner{
+public class Construction implements IHouseOwner, Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long           serialVersionUID = 1L;
     private int                         housingStock; // Total number of houses in the whole model
     private int                         nNewBuild; // Number of houses built this month
 
     private Config	                    config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister             prng;
+    private RandomGenerator             prng;
     private HashSet<House>              onMarket;
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-	public Construction(MersenneTwister prng) {
+	public Construction(RandomGenerator prng) {
 		housingStock = 0;
-		onMarket = new HashSet<>();
+		onMarket = new LinkedHashSet<>(); // Insertion-ordered for a reproducible iteration order, also after restoring a snapshot
 		this.prng = prng;
 	}
 
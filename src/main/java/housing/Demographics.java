@@ -1,17 +1,19 @@
 package housing;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Iterator;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 
-public class Demographics {
+public class Demographics implements Serializable {
 
 	//------------------//
 	//----- Fields -----//
 	//------------------//
 
-	private MersenneTwister     prng;
+	private static final long serialVersionUID = 1L;
+	private RandomGenerator     prng;
     private double              firstBinMin = data.Demographics.getMonthlyAgeDistributionMinimum();
     private double              binWidth = data.Demographics.getMonthlyAgeDistributionBinWidth();
     private int []              householdsPerAgeBand = new int[data.Demographics.getMonthlyAgeDistributionSize()];
@@ -22,7 +24,7 @@ public class Demographics {
     //----- Constructors -----//
     //------------------------//
 
-	public Demographics(MersenneTwister prng) { this.prng = prng; }
+	public Demographics(RandomGenerator prng) { this.prng = prng; }
 
     //-------------------//
     //----- Methods -----//
@@ -55,14 +57,10 @@ public class Demographics {
     private void updateHouseholdsPerAgeBand() {
         // The array must be reset to zero every time step
         Arrays.fill(householdsPerAgeBand, 0);
-        for (Household h : Model.households) {
-            // First, households age
-            h.ageOneMonth();
-            // Then find the bin at which the age of the household falls...
-            int i = (int) ((h.getAge() - firstBinMin) / binWidth);
-            // ...and increase the number of households in that bin by one (ignoring ages beyond the maximum edge)
-            if (i < householdsPerAgeBand.length) householdsPerAgeBand[i]++;
-        }
+        // Households age and are counted in a single pass over the age column of the household store, whose rows follow
+        // the order of the list of households
+        Model.householdStore.ageAndCountPerAgeBand(1.0/Model.config.constants.MONTHS_IN_YEAR, firstBinMin, binWidth,
+                householdsPerAgeBand);
     }
 
     /**
@@ -86,7 +84,7 @@ public class Demographics {
                 if (r >= firstBinMin + (i + 1) * binWidth) { // To correct for possible rounding errors
                     r = Math.nextDown(firstBinMin + (i + 1) * binWidth);
                 }
-                Model.households.add(new Household(prng, r));
+                Model.households.add(new Household(Model.randomStreams.newHouseholdStream(), r));
                 birthsAndDeaths[i]--;
             }
         }
@@ -120,6 +118,8 @@ public class Demographics {
                 iterator.remove();
                 // Implement inheritance with a randomly chosen heir
                 h.transferAllWealthTo(Model.households.get(prng.nextInt(Model.households.size())));
+                // Detach the household from the household store, its row being removed once all deaths are implemented
+                Model.householdStore.remove(h);
                 // Update the death probability for the corresponding age band. This prevents killing more than strictly
                 // necessary. Note that this will tend to underestimate the number of deaths and this, in its turn, lead
                 // to a slight overpopulation
@@ -128,5 +128,7 @@ public class Demographics {
                 deathProbabilities[i] = -(double) birthsAndDeaths[i] / householdsPerAgeBand[i];
             }
         }
+        // Close the gaps left by deceased households, such that rows of the household store follow the list again
+        Model.householdStore.compact();
 	}
 }
@@ -1,5 +1,7 @@
 package housing;
 
+import java.io.Serializable;
+
 /**************************************************************************************************
  * Class to represent the government, whose only role in the current model is to collect taxes,
  * including both income tax and national insurance contributions
@@ -7,12 +9,13 @@ package housing;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class Government {
+public class Government implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+	private static final long serialVersionUID = 1L;
 	private Config	config = Model.config;	// Passes the Model's configuration parameters object to a private field
 
     //-------------------//
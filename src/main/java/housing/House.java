@@ -1,17 +1,20 @@
 package housing;
 
+import java.io.Serializable;
+
 /**************************************************************************************************
  * Class to represent a house with all its intrinsic characteristics.
  *
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class House implements Comparable<House> {
+public class House implements Comparable<House>, Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long serialVersionUID = 1L;
     private static int 	id_pool = 0;
 
     public IHouseOwner  owner;
@@ -43,7 +46,7 @@ public class House implements Comparable<House> {
     //----- Methods -----//
     //-------------------//
 
-	boolean isOnMarket() { return saleRecord != null; }
+	public boolean isOnMarket() { return saleRecord != null; }
 
 	HouseOfferRecord getSaleRecord() { return saleRecord; }
 
@@ -59,6 +62,10 @@ public class House implements Comparable<House> {
 
 	public int getQuality() { return quality; }
 
+	static int getIdPool() { return id_pool; }
+
+	static void setIdPool(int idPool) { id_pool = idPool; }
+
 	@Override
 	public int compareTo(House o) { return((int)Math.signum(id-o.id)); }
 	
@@ -16,6 +16,7 @@ public class HouseBidderRecord extends HousingMarketRecord {
 	//----- Fields -----//
 	//------------------//
 
+	private static final long serialVersionUID = 1L;
 	private Household bidder; // Household who is bidding to buy or rent a house
 	private boolean BTLBid; // True if the bid is for a buy-to-let property, false for a home bid (Note that rental bids are all set to false)
 
@@ -29,6 +30,15 @@ public class HouseBidderRecord extends HousingMarketRecord {
 		this.BTLBid = BTLBid;
 	}
 
+	/**
+	 * Re-initialise a recycled bid record, exactly as if it was newly created with the same arguments
+	 */
+	void reset(Household h, double price, boolean BTLBid) {
+		super.reset(price);
+		this.bidder = h;
+		this.BTLBid = BTLBid;
+	}
+
 	//----------------------//
 	//----- Subclasses -----//
 	//----------------------//
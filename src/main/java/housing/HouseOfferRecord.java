@@ -1,6 +1,9 @@
 package housing;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**************************************************************************************************
  * This class encapsulates information on a house that is to be offered on the rental or the
@@ -17,27 +20,49 @@ public class HouseOfferRecord extends HousingMarketRecord {
 	//----- Fields -----//
 	//------------------//
 
+    private static final long               serialVersionUID = 1L;
     private House                           house;
-    private ArrayList<HouseBidderRecord>    matchedBids;
+    private ArrayList<HouseBidderRecord>    matchedBids; // Null until the offer is first matched with a bid
     private double                          initialListedPrice;
     private int                             tInitialListing; // Time of initial listing
     private double                          houseSpecificYield;
+    private double                          pendingPrice = Double.NaN; // New price waiting to be applied in bulk by the market, NaN if none
+    private boolean                         fixedYield; // True to keep the yield regardless of price changes (replayed offers only)
     private boolean                         BTLOffer; // True if buy-to-let investor offering an investment property, false if homeowner offering home (Note that rental offers are all set to false)
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-    public HouseOfferRecord(House house, double price, boolean BTLOffer) {
-        super(price);
+    public HouseOfferRecord(House house, double price, boolean BTLOffer) { this(house, price, BTLOffer, false); }
+
+    /**
+     * @param deferId True to create the offer without an id, to be assigned once it is put on the market (see
+     *                MarketIntake)
+     */
+    HouseOfferRecord(House house, double price, boolean BTLOffer, boolean deferId) {
+        super(price, deferId);
         this.house = house;
         this.BTLOffer = BTLOffer;
         initialListedPrice = price;
         tInitialListing = Model.getTime();
-        matchedBids = new ArrayList<>(8); // TODO: Check if this initial size of 8 is good enough or can be improved
         recalculateHouseSpecificYield(price);
     }
 
+    /**
+     * Create an offer replayed from a captured order book (see OrderBookFixture), with its yield as captured, which is
+     * then kept regardless of any price change, as market statistics are not available in isolation
+     */
+    HouseOfferRecord(House house, double price, boolean BTLOffer, double yield) {
+        super(price);
+        this.house = house;
+        this.BTLOffer = BTLOffer;
+        initialListedPrice = price;
+        tInitialListing = Model.getTime();
+        houseSpecificYield = yield;
+        fixedYield = true;
+    }
+
     //-------------------//
     //----- Methods -----//
     //-------------------//
@@ -50,6 +75,7 @@ public class HouseOfferRecord extends HousingMarketRecord {
      * @param price Updated price of the property
      */
     private void recalculateHouseSpecificYield(double price) {
+        if (fixedYield) return;
         int q = house.getQuality();
         if (price > 0) {
             houseSpecificYield = Model.rentalMarketStats.getAvFlowYieldForQuality(q)
@@ -62,8 +88,24 @@ public class HouseOfferRecord extends HousingMarketRecord {
      * Record the match of the offer of this property with a bid
      *
      * @param bid The bid being matched to the offer
+     * @param emptyList Supplier of an empty list for the matched bids, used only if this is the first match
      */
-    void matchWith(HouseBidderRecord bid) { matchedBids.add(bid); }
+    void matchWith(HouseBidderRecord bid, Supplier<ArrayList<HouseBidderRecord>> emptyList) {
+        if (matchedBids == null) matchedBids = emptyList.get();
+        matchedBids.add(bid);
+    }
+
+    /**
+     * Take the list of matched bids away from the offer, for it to be reused once the offer has been cleared, leaving
+     * the offer without matches
+     *
+     * @return List of matched bids, or null if the offer has never been matched
+     */
+    ArrayList<HouseBidderRecord> releaseMatchedBids() {
+        ArrayList<HouseBidderRecord> released = matchedBids;
+        matchedBids = null;
+        return released;
+    }
 
     //----- Getter/setter methods -----//
 
@@ -92,7 +134,13 @@ public class HouseOfferRecord extends HousingMarketRecord {
 
     public House getHouse() { return house; }
 
-    public ArrayList<HouseBidderRecord> getMatchedBids() { return matchedBids; }
+    double getPendingPrice() { return pendingPrice; }
+
+    void setPendingPrice(double pendingPrice) { this.pendingPrice = pendingPrice; }
+
+    public List<HouseBidderRecord> getMatchedBids() {
+        return (matchedBids != null) ? matchedBids : Collections.<HouseBidderRecord>emptyList();
+    }
 
     public double getInitialListedPrice() { return initialListedPrice; }
 
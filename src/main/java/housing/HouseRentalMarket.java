@@ -1,6 +1,6 @@
 package housing;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 
 /**************************************************************************************************
  * Class to represent the rental market
@@ -9,12 +9,15 @@ import org.apache.commons.math3.random.MersenneTwister;
  *
  *************************************************************************************************/
 public class HouseRentalMarket extends HousingMarket {
+    private static final long serialVersionUID = 1L;
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-	public HouseRentalMarket(MersenneTwister prng) { super(prng); }
+	public HouseRentalMarket(RandomGenerator prng) {
+		super(prng, Model.config.rentalOfferBook, Model.config.rentalClearingEngine);
+	}
 
     //-------------------//
     //----- Methods -----//
@@ -29,6 +32,9 @@ public class HouseRentalMarket extends HousingMarket {
 		Model.rentalMarketStats.recordSale(purchase, sale);
 	}
 
+	@Override
+	void recordBidUps(int nBidUps) { Model.rentalMarketStats.recordBidUps(nBidUps); }
+
 	@Override
 	public HouseOfferRecord offer(House house, double price, boolean BTLOffer) {
 		HouseOfferRecord hsr = super.offer(house, price, false);
@@ -1,9 +1,12 @@
 package housing;
 
 import java.util.Iterator;
+import java.util.List;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import utilities.OrderBook;
 import utilities.PriorityQueue2D;
+import utilities.RangeMaxOrderBook;
 
 /*******************************************************
  * Class that represents market for houses for-sale.
@@ -12,13 +15,40 @@ import utilities.PriorityQueue2D;
  *
  *****************************************************/
 public class HouseSaleMarket extends HousingMarket {
+    private static final long serialVersionUID = 1L;
 
 	private Config                                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private PriorityQueue2D<HousingMarketRecord>    offersPY;
+    private OrderBook<HousingMarketRecord>          offersPY;
 
-	HouseSaleMarket(MersenneTwister prng) {
-		super(prng);
-		offersPY = new PriorityQueue2D<>(new HousingMarketRecord.PYComparator());
+	HouseSaleMarket(RandomGenerator prng) {
+		super(prng, Model.config.saleOfferBook, Model.config.saleClearingEngine);
+		offersPY = newYieldOfferBook(config.saleYieldOfferBook);
+	}
+
+	/**
+	 * @param yieldOfferBook Order book for the price-yield queue of offers, either "PriorityQueue2D" or "RangeMax"
+	 * @return New empty order book of the given kind
+	 */
+	private static OrderBook<HousingMarketRecord> newYieldOfferBook(String yieldOfferBook) {
+		if (yieldOfferBook.equals("PriorityQueue2D")) {
+			return new PriorityQueue2D<>(new HousingMarketRecord.PYComparator());
+		} else if (yieldOfferBook.equals("RangeMax")) {
+			return new RangeMaxOrderBook<>(new HousingMarketRecord.PYComparator());
+		} else {
+			throw new IllegalArgumentException("Unrecognised yield offer book '" + yieldOfferBook + "'");
+		}
+	}
+
+	/**
+	 * Move all offers of the offersPY queue into a new order book of the given kind, as done for the offersPQ queue by
+	 * rebuildOfferBooks
+	 *
+	 * @param yieldOfferBook Order book for the price-yield queue of offers, either "PriorityQueue2D" or "RangeMax"
+	 */
+	void rebuildYieldOfferBook(String yieldOfferBook) {
+		OrderBook<HousingMarketRecord> newOffersPY = newYieldOfferBook(yieldOfferBook);
+		for (HousingMarketRecord offer : offersPY) newOffersPY.add(offer);
+		offersPY = newOffersPY;
 	}
 	
 	@Override
@@ -42,26 +72,54 @@ public class HouseSaleMarket extends HousingMarket {
 		sale.getHouse().owner = buyer;
 	}
 
+	@Override
+	void recordBidUps(int nBidUps) { Model.housingMarketStats.recordBidUps(nBidUps); }
+
 	@Override
 	public HouseOfferRecord offer(House house, double price, boolean BTLOffer) {
         HouseOfferRecord hsr = super.offer(house, price, BTLOffer);
-        offersPY.add(hsr);
         house.putForSale(hsr);
         return(hsr);
 	}
+
+	@Override
+	void listOffer(HouseOfferRecord hsr) {
+		super.listOffer(hsr);
+		offersPY.add(hsr);
+	}
 	
 	@Override
 	public void removeOffer(HouseOfferRecord hsr) {
 		super.removeOffer(hsr);
-		offersPY.remove(hsr);
 		hsr.getHouse().resetSaleRecord();
 	}
-	
+
 	@Override
-	public void updateOffer(HouseOfferRecord hsr, double newPrice) {
+	void withdrawOffer(HouseOfferRecord hsr) {
+		super.withdrawOffer(hsr);
 		offersPY.remove(hsr);
-		super.updateOffer(hsr, newPrice);
-		offersPY.add(hsr);
+	}
+	
+	@Override
+	void changeOfferPrice(HouseOfferRecord hsr, double newPrice) {
+		if (config.bulkRepricing) { // New price only recorded, to be applied later by repriceOffers
+			super.changeOfferPrice(hsr, newPrice);
+		} else {
+			offersPY.remove(hsr);
+			super.changeOfferPrice(hsr, newPrice);
+			offersPY.add(hsr);
+		}
+	}
+
+	/**
+	 * Overrides corresponding method at HousingMarket in order to also remove the repriced offers from and add them
+	 * back to the offersPY queue
+	 */
+	@Override
+	void repriceOffers(List<HouseOfferRecord> offers) {
+		offersPY.removeAll(offers);
+		super.repriceOffers(offers);
+		offersPY.addAll(offers);
 	}
 
     /**
@@ -69,8 +127,8 @@ public class HouseSaleMarket extends HousingMarket {
      */
     @Override
     void clearMarket() {
-        // Before any use, priorities must be sorted by filling in the uncoveredElements TreeSet at the corresponding
-        // PriorityQueue2D. In particular, we sort here the price-yield priorities
+        // Before any use, priorities must be sorted, e.g., by filling in the uncoveredElements TreeSet at the
+        // corresponding PriorityQueue2D. In particular, we sort here the price-yield priorities
         offersPY.sortPriorities();
         // Then continue with the normal HousingMarket clearMarket mechanism
         super.clearMarket();
@@ -78,30 +136,55 @@ public class HouseSaleMarket extends HousingMarket {
 	
 	@Override
 	protected HouseOfferRecord getBestOffer(HouseBidderRecord bid) {
-		double minDownpayment;
 		if (bid.isBTLBid()) { // BTL bidder (yield driven)
-			HouseOfferRecord bestOffer = (HouseOfferRecord)offersPY.peek(bid);
-			if (bestOffer != null) {
-				if(config.allCreditConstraintsActive==false 
-						&& config.procyclicalCreditConstraints) {
-					minDownpayment = bestOffer.getPrice() * (1.0 - Model.bank.getLoanToValueLimit(false, false));
-				} else {
-					minDownpayment = 
-							bestOffer.getPrice()*(1.0
-									- Model.rentalMarketStats.getExpAvFlowYield()
-									/(Model.centralBank.getInterestCoverRatioLimit(false)
-											*config.CENTRAL_BANK_BTL_STRESSED_INTEREST));
-				}
-				if (bid.getBidder().getBankBalance() >= minDownpayment) {
-					return bestOffer;
-				}
-			}
-			return null;
+			return getAffordableBTLOffer(bid, (HouseOfferRecord)offersPY.peek(bid));
 		} else { // must be OO buyer (quality driven)
 			return super.getBestOffer(bid);
 		}
 	}
 
+    /**
+     * Overrides corresponding method at HousingMarket in order to find the best offers for BTL bids among the uncovered
+     * offers of the price-yield queue, applying to them the same downpayment check as getBestOffer
+     */
+	@Override
+	protected HouseOfferRecord[] getBestOffers() {
+		List<HousingMarketRecord> uncoveredPQ = getOffersPQ().getUncoveredElements();
+		List<HousingMarketRecord> uncoveredPY = offersPY.getUncoveredElements();
+		double[] pricesPQ = getPrices(uncoveredPQ);
+		double[] pricesPY = getPrices(uncoveredPY);
+		return findBestOffers(bid -> bid.isBTLBid()
+				? getAffordableBTLOffer(bid, findBestOffer(uncoveredPY, pricesPY, bid))
+				: findBestOffer(uncoveredPQ, pricesPQ, bid));
+	}
+
+	/**
+	 * @return The best offer for a BTL bid if the bidder can afford its downpayment, null otherwise
+	 */
+	private HouseOfferRecord getAffordableBTLOffer(HouseBidderRecord bid, HouseOfferRecord bestOffer) {
+		if (bestOffer != null) {
+			double minDownpayment = bestOffer.getPrice()*getBTLMinDownpaymentFraction();
+			if (bid.getBidder().getBankBalance() >= minDownpayment) {
+				return bestOffer;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return Fraction of the price of a house that a BTL bidder needs to be able to pay as downpayment
+	 */
+	double getBTLMinDownpaymentFraction() {
+		if(config.allCreditConstraintsActive==false
+				&& config.procyclicalCreditConstraints) {
+			return 1.0 - Model.bank.getLoanToValueLimit(false, false);
+		} else {
+			return 1.0 - Model.rentalMarketStats.getExpAvFlowYield()
+					/(Model.centralBank.getInterestCoverRatioLimit(false)
+							*config.CENTRAL_BANK_BTL_STRESSED_INTEREST);
+		}
+	}
+
     /**
      * Overrides corresponding method at HousingMarket in order to remove successfully matched and cleared offers from
      * the offersPY queue
@@ -114,4 +197,15 @@ public class HouseSaleMarket extends HousingMarket {
         record.remove();
         offersPY.remove(offer);
     }
+
+    /**
+     * Overrides corresponding method at HousingMarket in order to also remove the offer from the offersPY queue
+     *
+     * @param offer Offer to remove from queues
+     */
+	@Override
+    void removeOfferFromQueues(HouseOfferRecord offer) {
+        super.removeOfferFromQueues(offer);
+        offersPY.remove(offer);
+    }
 }
@@ -1,11 +1,13 @@
 package housing;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 
 /**************************************************************************************************
  * This represents a household who receives an income, consumes, saves and can buy, sell, let, and
@@ -15,51 +17,41 @@ import org.apache.commons.math3.random.MersenneTwister;
  *
  *************************************************************************************************/
 
-public class Household implements IHouseOwner {
+public class Household implements IHouseOwner, Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long   serialVersionUID = 1L;
     public static int          id_pool;
+    private static boolean      inPrivatePhase; // True while households run the private phase of their step in parallel
 
     public int                  id; // Only used for identifying households within the class TransactionRecorder
-    private double              annualGrossEmploymentIncome;
-    private double              monthlyGrossEmploymentIncome;
-    private double				monthlyGrossTotalIncome;
-    private double 				monthlyNetTotalIncome;
-    private double 				monthlyDisposableIncome;
     private double 				monthlyDividendIncome;
     private double				socialHousingRent;
     private double				equityPosition;
-    private double				consumption;
     private double				incomeConsumption;
     private double				financialWealthConsumption;
     private double				housingWealthConsumption;
     private double				debtConsumption;
     private double 				savingForDeleveraging;
     public HouseholdBehaviour   behaviour; // Behavioural plugin
-
-    double                      incomePercentile; // Fixed for the whole lifetime of the household
+    // Age, income percentile, bank balance, incomes, monthly payments, consumption and first-time buyer, bankruptcy and
+    // vulnerability flags are kept in the columns of a HouseholdStore, at the row of the household
+    private HouseholdStore      store;
+    private int                 row;
 
     private House                           home;
     private Map<House, PaymentAgreement>    housePayments = new TreeMap<>(); // Houses owned and their payment agreements
     private Map<House, RentalAgreement> 	rentalContracts = new TreeMap<>(); // Houses rented out by this landlord and their payment agreements
     private Config                          config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                 prng;
-    private double                          age; // Age of the household representative person
-    private double                          bankBalance;
+    private RandomGenerator                 prng;
     private double                          monthlyGrossRentalIncome; // Keeps track of monthly rental income, as only tenants keep a reference to the rental contract, not landlords
     private double                          savingRate; // (disposableIncome - Consumption)/grossTotalIncome
-    private boolean                         isFirstTimeBuyer;
-    private boolean							isInFirstHome;
-    private boolean                         isBankrupt;
-    private boolean							isVulnerable; // is the household vulnerable now?
-    private boolean							vulnerableTMinus1; // has the household been vulnerable in the period before?
     private int								vulnerableSince; // records the period the household became vulnerable last
     private String							vulnerableBecause; // records a string standing for the reason (set in householdStats) the household became vulnerable ("not vulnerable" if not)
     private double							shockedMonthlyDisposableIncome; // the shocked disposable income in case there is an actual shock
-    private double 							monthlyPayments;
     private double							principalPaidBack; // records how much of mortgage principal this household paid back this period
     private double							principalPaidBackForInheritance; // this records the repayment of principal the bequeather paid back, before passing its wealth on to this household
     private double							debtReliefForBequeather; // this records the debt reliefed by the bank, as no debt is passed on to the inheriting household (this household)
@@ -76,6 +68,8 @@ public class Household implements IHouseOwner {
     private double							ExposureAtDefaultFactor; // factor for calculating the Exposure at default (following Ampudia et al. (2016)
     private double							airBnBRentalIncome; //PAUL rental income by AirBnB investors
     private int								nAirBnBRentedOut; // PAUL keep track of the number of airbnbs rented out
+    private int                             stepOrder; // Position of the household in the step order (two-phase step only)
+    private transient ArrayList<Runnable>   sharedUpdates; // Updates to shared state deferred to the sequential phase
     
     
     //------------------------//
@@ -86,32 +80,47 @@ public class Household implements IHouseOwner {
      * Initialises behaviour (determine whether the household will be a BTL investor). Households start off in social
      * housing and with their "desired bank balance" in the bank
      */
-    public Household(MersenneTwister prng, double age) {
-        this.prng = prng; // Passes the Model's random number generator to a private field of each instance
-        this.age = age;
+    public Household(RandomGenerator prng, double age) {
+        store = Model.householdStore;
+        row = store.add(this);
+        this.prng = prng; // Passes the household's random number stream to a private field of each instance
+        store.age[row] = age;
         home = null;
-        isFirstTimeBuyer = true;
-        isInFirstHome = false;
-        isBankrupt = false;
-        isVulnerable = false;
-        vulnerableTMinus1 = false;
+        store.isFirstTimeBuyer[row] = true;
+        store.isInFirstHome[row] = false;
+        store.isBankrupt[row] = false;
+        store.isVulnerable[row] = false;
+        store.vulnerableTMinus1[row] = false;
         vulnerableSince = -1;
         vulnerableBecause = "not vulnerable";
         id = ++id_pool;
-        incomePercentile = this.prng.nextDouble();
-        behaviour = new HouseholdBehaviour(incomePercentile);
+        store.incomePercentile[row] = this.prng.nextDouble();
+        behaviour = new HouseholdBehaviour(prng, store.incomePercentile[row]);
         lastHousePurchasePeriod = -1;
         lastHouseSalePeriod = -1;
         // Find initial values for the annual and monthly gross employment income
-        annualGrossEmploymentIncome = data.EmploymentIncome.getAnnualGrossEmploymentIncome(age, incomePercentile);
-        monthlyGrossEmploymentIncome = annualGrossEmploymentIncome/config.constants.MONTHS_IN_YEAR;
-        bankBalance = 0.00000001;
+        store.annualGrossEmploymentIncome[row] = data.EmploymentIncome.getAnnualGrossEmploymentIncome(store.age[row], store.incomePercentile[row]);
+        store.monthlyGrossEmploymentIncome[row] = store.annualGrossEmploymentIncome[row]/config.constants.MONTHS_IN_YEAR;
+        store.bankBalance[row] = 0.00000001;
 //        bankBalance = data.Wealth.getDesiredBankBalance(getAnnualGrossTotalIncome(), behaviour.getPropensityToSave()); // Desired bank balance is used as initial value for actual bank balance
         // record deposits entering the simulation by initial endowment
-        Model.householdStats.recordBankBalanceEndowment(bankBalance);
+        Model.householdStats.recordBankBalanceEndowment(store.bankBalance[row]);
        
     }
 
+    /**
+     * Create a household standing for a bidder or an owner replayed from a captured order book (see OrderBookFixture),
+     * with only its id and bank balance set, and without behaviour, which must not be stepped
+     *
+     * @param store Store where the household keeps its numeric state, separate from the model's one
+     */
+    Household(HouseholdStore store, int id, double bankBalance) {
+        this.store = store;
+        row = store.add(this);
+        this.id = id;
+        store.bankBalance[row] = bankBalance;
+    }
+
     //-------------------//
     //----- Methods -----//
     //-------------------//
@@ -127,7 +136,66 @@ public class Household implements IHouseOwner {
      * - Buy/sell/rent out properties if BTL investor
      */
     public void step() {
-        isBankrupt = false; // Delete bankruptcies from previous time step
+        stepPrivate();
+        stepMarket();
+    }
+
+    /**
+     * Step all households in two phases, with the same results as stepping them one after another in list order. First,
+     * the private phase of every household runs in parallel on the common fork-join pool. This phase only updates the
+     * household's own state, deferring any update to shared state (household statistics, bank mortgage list, rental
+     * agreements) by means of applyShared. Then, in list order, each household applies its deferred updates and runs
+     * its market phase. Note that, during the private phase, landlords see the rental agreements of tenants preceding
+     * them in list order as if these tenants had already paid this month, as it would happen in a sequential step.
+     *
+     * @param households List of households to step, in step order
+     */
+    static void stepInTwoPhases(ArrayList<Household> households) {
+        for (int i = 0; i < households.size(); i++) households.get(i).stepOrder = i;
+        inPrivatePhase = true;
+        try {
+            households.parallelStream().forEach(Household::stepPrivate);
+        } finally {
+            inPrivatePhase = false;
+        }
+        for (Household h : households) {
+            if (h.sharedUpdates != null) {
+                for (Runnable update : h.sharedUpdates) update.run();
+                h.sharedUpdates.clear();
+            }
+            if (Model.marketIntake != null) Model.marketIntake.setAgent(h.stepOrder);
+            h.stepMarket();
+        }
+    }
+
+    /**
+     * @return True during the parallel private phase of a two-phase step, when updates to shared state are to be
+     *         deferred by means of applyShared. Otherwise, callers apply them directly, so as not to allocate an update
+     */
+    static boolean isDeferringShared() { return inPrivatePhase; }
+
+    /**
+     * Apply an update to state shared with other agents or collectors. The update is applied immediately, except during
+     * the parallel private phase of a two-phase step, when it is deferred to the sequential phase, to be applied in
+     * household order
+     *
+     * @param update Update to be applied
+     */
+    void applyShared(Runnable update) {
+        if (inPrivatePhase) {
+            if (sharedUpdates == null) sharedUpdates = new ArrayList<>();
+            sharedUpdates.add(update);
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Private phase of the step: reset counters, receive income, make housing payments, consume, and check for
+     * bankruptcy and vulnerability, updating only the household's own state
+     */
+    private void stepPrivate() {
+        store.isBankrupt[row] = false; // Delete bankruptcies from previous time step
     	// set payment counters and cashInjection to zero, so they can be updated 
     	principalPaidBack = 0.0;
     	principalPaidBackDueToHouseSale = 0.0;
@@ -137,7 +205,7 @@ public class Household implements IHouseOwner {
         monthlyGrossRentalIncome = 0.0;
     	rentalPayment = 0.0;
     	cashInjection = 0.0;
-    	monthlyPayments = 0.0;
+    	store.monthlyPayments[row] = 0.0;
     	netHouseTransactionRevenue = 0.0;
     	newCredit = 0.0;
     	// PAUL reset the airBnB income (and number of flats rented each month) in every step, so that it does not add up over the periods
@@ -145,39 +213,55 @@ public class Household implements IHouseOwner {
     	nAirBnBRentedOut = 0;
     	
     	// record bankBalance very beginning of period
-    	Model.householdStats.recordBankBalanceVeryBeginningOfPeriod(bankBalance);
+    	final double bankBalanceVeryBeginningOfPeriod = store.bankBalance[row];
+    	if (inPrivatePhase) {
+    	    applyShared(() -> Model.householdStats.recordBankBalanceVeryBeginningOfPeriod(bankBalanceVeryBeginningOfPeriod));
+    	} else {
+    	    Model.householdStats.recordBankBalanceVeryBeginningOfPeriod(bankBalanceVeryBeginningOfPeriod);
+    	}
         // Update annual and monthly gross employment income
-        annualGrossEmploymentIncome = data.EmploymentIncome.getAnnualGrossEmploymentIncome(age, incomePercentile);
-        monthlyGrossEmploymentIncome = annualGrossEmploymentIncome/config.constants.MONTHS_IN_YEAR;
+        store.annualGrossEmploymentIncome[row] = data.EmploymentIncome.getAnnualGrossEmploymentIncome(store.age[row], store.incomePercentile[row]);
+        store.monthlyGrossEmploymentIncome[row] = store.annualGrossEmploymentIncome[row]/config.constants.MONTHS_IN_YEAR;
 //        // PAUL calculate the Airbnb income
 //        if(behaviour.isAirBnBInvestor()) airBnBRentalIncome = calculateAirBnBIncome();
 //        
     	// Add monthly disposable income (net total income and housing expenses) to bank balance
-    	monthlyDisposableIncome = getMonthlyDisposableIncome();
-    	bankBalance += monthlyDisposableIncome;
+    	store.monthlyDisposableIncome[row] = getMonthlyDisposableIncome();
+    	store.bankBalance[row] += store.monthlyDisposableIncome[row];
     	// reset shockedMonthlyDisposableIncome to monthlyDisposable income
     	shockedMonthlyDisposableIncome = 0.0;
     	// record bankBalance before consumption
-    	Model.householdStats.recordBankBalanceBeforeConsumption(bankBalance);
+    	final double bankBalanceBeforeConsumption = store.bankBalance[row];
+    	if (inPrivatePhase) {
+    	    applyShared(() -> Model.householdStats.recordBankBalanceBeforeConsumption(bankBalanceBeforeConsumption));
+    	} else {
+    	    Model.householdStats.recordBankBalanceBeforeConsumption(bankBalanceBeforeConsumption);
+    	}
     	// set the equityPosition of the household for the beginning of the period. This way HouseholdStats at the end of the period 
     	// does not recalculate the equity position with new HPI and different bank balances
     	setEquityPosition();
     	// Consume according to gross annual income and capped by current bank balance (after disposable income has been added)
-    	consumption = behaviour.getDesiredConsumption(this, bankBalance, incomePercentile, monthlyDisposableIncome, monthlyNetTotalIncome); 
-    	bankBalance -= consumption;
+    	store.consumption[row] = behaviour.getDesiredConsumption(this, store.bankBalance[row], store.incomePercentile[row], store.monthlyDisposableIncome[row], store.monthlyNetTotalIncome[row]); 
+    	store.bankBalance[row] -= store.consumption[row];
     	// Compute saving rate
-    	savingRate = (monthlyDisposableIncome - consumption)/returnMonthlyGrossTotalIncome();
+    	savingRate = (store.monthlyDisposableIncome[row] - store.consumption[row])/returnMonthlyGrossTotalIncome();
     	// Deal with bankruptcies
     	// TODO: Improve bankruptcy procedures (currently, simple cash injection), such as terminating contracts!
-    	if (bankBalance < 0.0) {
-    		setCashInjection(-bankBalance);
+    	if (store.bankBalance[row] < 0.0) {
+    		setCashInjection(-store.bankBalance[row]);
     		//System.out.println("household " + id +  " bankrupt. bankbalance: " + bankBalance + " and mDispIncome: " + monthlyDisposableIncome);
-    		bankBalance = 1.0;
-    		isBankrupt = true;
+    		store.bankBalance[row] = 1.0;
+    		store.isBankrupt[row] = true;
     	}
     	// check if the household is vulnerable by Ampudia et al. (2016) measures
     	recordVulnerability();
-    	
+    }
+
+    /**
+     * Market phase of the step: manage owned properties and make housing decisions, placing offers and bids on the
+     * markets
+     */
+    private void stepMarket() {
     	// Manage owned properties and close debts on previously owned properties. To this end, first, create an
     	// iterator over the house-paymentAgreement pairs at the household's housePayments object
     	Iterator<Entry<House, PaymentAgreement>> paymentIt = housePayments.entrySet().iterator();
@@ -228,23 +312,23 @@ public class Household implements IHouseOwner {
     
     // get the annual gross employment income depending if a trend or inequality  or neither are introduced
     private double setAnnualGrossEmploymentIncome() {
-    	annualGrossEmploymentIncome = data.EmploymentIncome.getAnnualGrossEmploymentIncome(age, incomePercentile);
+    	store.annualGrossEmploymentIncome[row] = data.EmploymentIncome.getAnnualGrossEmploymentIncome(store.age[row], store.incomePercentile[row]);
 
     	if(config.trend && config.periodTrendStarting >= Model.getTime()) {
     		//TODO check if yearly to monthly percentage change is implemented correctly. Same is true for inequality below
-    		annualGrossEmploymentIncome = annualGrossEmploymentIncome
+    		store.annualGrossEmploymentIncome[row] = store.annualGrossEmploymentIncome[row]
     				*Math.pow((1+config.yearlyIncreaseEmploymentIncome/config.constants.MONTHS_IN_YEAR), (Model.getTime()-config.periodTrendStarting));
     	}
     	// implement rising income inequality
     	else if(config.risingIncomeInequality && Model.getTime() >= config.periodIncomeInequalityRises) {
     		// this implies that the top 5% receive additional income. 
-    		if(incomePercentile >=0.95) { 
-    			annualGrossEmploymentIncome = annualGrossEmploymentIncome*
+    		if(store.incomePercentile[row] >=0.95) { 
+    			store.annualGrossEmploymentIncome[row] = store.annualGrossEmploymentIncome[row]*
     					Math.pow((1+config.yearlyInequalityIncrease/config.constants.MONTHS_IN_YEAR), (Model.getTime()-config.periodIncomeInequalityRises));
     		}
     	}
     	// return the annual gross employment income
-    	return annualGrossEmploymentIncome;
+    	return store.annualGrossEmploymentIncome[row];
     }
     
     /**
@@ -254,10 +338,10 @@ public class Household implements IHouseOwner {
     public double getMonthlyDisposableIncome() {
 
     	// Start with net monthly income
-    	monthlyDisposableIncome = getMonthlyNetTotalIncome();
+    	store.monthlyDisposableIncome[row] = getMonthlyNetTotalIncome();
      	// Subtract housing consumption
     	for(PaymentAgreement payment: housePayments.values()) {
-    		monthlyPayments += payment.makeMonthlyPayment(this);
+    		store.monthlyPayments[row] += payment.makeMonthlyPayment(this);
     		//        	if(monthlyDisposableIncome < -1000) {
     		//        	//	System.out.println("MonthlyDisposableIncome is negative: " + monthlyDisposableIncome);
     		//        	}
@@ -266,7 +350,7 @@ public class Household implements IHouseOwner {
     	// if true, Monthly Interest payments of t-1 will be distributed according to their share of deposits/totalDeposits 
     	if(config.dividendPayments) {
     		monthlyDividendIncome = calculateMonthlyDividendIncome();
-    		monthlyDisposableIncome += monthlyDividendIncome;
+    		store.monthlyDisposableIncome[row] += monthlyDividendIncome;
        	}
     	
     	// households in social housing pay rent equal to average local authority rent prices for England from 2013-14 
@@ -275,10 +359,10 @@ public class Household implements IHouseOwner {
     	// this is yearly rental cost of 3,957.12 pounds per and can therefore be higher than private rents
     	if(home==null && !config.GERVersion) {
     		socialHousingRent = 4*82.44;
-    		monthlyDisposableIncome -= socialHousingRent;
+    		store.monthlyDisposableIncome[row] -= socialHousingRent;
     	}
-    	monthlyDisposableIncome -= monthlyPayments;
-    	return monthlyDisposableIncome;
+    	store.monthlyDisposableIncome[row] -= store.monthlyPayments[row];
+    	return store.monthlyDisposableIncome[row];
     }
     
     /**
@@ -289,10 +373,10 @@ public class Household implements IHouseOwner {
     	// Income tax (with finance costs tax relief)
         monthlyTaxesPaid = Model.government.incomeTaxDue(getAnnualGrossTotalIncome() - getAnnualFinanceCosts())/config.constants.MONTHS_IN_YEAR;
         // National insurance contributions
-    	monthlyNICPaid = Model.government.class1NICsDue(annualGrossEmploymentIncome)/config.constants.MONTHS_IN_YEAR; 
+    	monthlyNICPaid = Model.government.class1NICsDue(store.annualGrossEmploymentIncome[row])/config.constants.MONTHS_IN_YEAR; 
     	
-    	monthlyNetTotalIncome = getMonthlyGrossTotalIncome() - monthlyTaxesPaid - monthlyNICPaid;
-    	return monthlyNetTotalIncome;
+    	store.monthlyNetTotalIncome[row] = getMonthlyGrossTotalIncome() - monthlyTaxesPaid - monthlyNICPaid;
+    	return store.monthlyNetTotalIncome[row];
     }
 
     /**
@@ -305,8 +389,8 @@ public class Household implements IHouseOwner {
      */
     double getMonthlyNetEmploymentIncome() {
         return getMonthlyGrossEmploymentIncome()
-                - (Model.government.incomeTaxDue(annualGrossEmploymentIncome)  // Income tax
-                + Model.government.class1NICsDue(annualGrossEmploymentIncome))  // National insurance contributions
+                - (Model.government.incomeTaxDue(store.annualGrossEmploymentIncome[row])  // Income tax
+                + Model.government.class1NICsDue(store.annualGrossEmploymentIncome[row]))  // National insurance contributions
                 /config.constants.MONTHS_IN_YEAR;
     }
 
@@ -321,7 +405,8 @@ public class Household implements IHouseOwner {
             House house = entry.getKey();
             PaymentAgreement payment = entry.getValue();
             if (payment instanceof MortgageAgreement && house.owner == this && payment.nextPayment() != 0.0
-                    && house.resident != null && house.resident.getHousePayments().get(house).nextPayment() != 0.0) {
+                    && house.resident != null
+                    && nextRentalPayment(house, house.resident.getHousePayments().get(house)) != 0.0) {
                 financeCosts += payment.nextPayment();
             }
         }
@@ -331,7 +416,7 @@ public class Household implements IHouseOwner {
     /**
      * Annualised gross total income, i.e., both employment and rental income
      */
-    public double getAnnualGrossTotalIncome() { return monthlyGrossTotalIncome*config.constants.MONTHS_IN_YEAR; }
+    public double getAnnualGrossTotalIncome() { return store.monthlyGrossTotalIncome[row]*config.constants.MONTHS_IN_YEAR; }
 
     /**
      * Adds up all sources of (gross) income on a monthly basis, i.e., both employment and rental income
@@ -339,11 +424,11 @@ public class Household implements IHouseOwner {
     public double getMonthlyGrossTotalIncome() { 
 //    	// if true, Monthly Interest payments of t-1 will be distributed according to their share of deposits/totalDeposits 
     	if(config.dividendPayments) {
-    		monthlyGrossTotalIncome = monthlyGrossEmploymentIncome + getMonthlyGrossRentalIncome() + calculateMonthlyDividendIncome();
+    		store.monthlyGrossTotalIncome[row] = store.monthlyGrossEmploymentIncome[row] + getMonthlyGrossRentalIncome() + calculateMonthlyDividendIncome();
        	} else {
-    		monthlyGrossTotalIncome = monthlyGrossEmploymentIncome + getMonthlyGrossRentalIncome();
+    		store.monthlyGrossTotalIncome[row] = store.monthlyGrossEmploymentIncome[row] + getMonthlyGrossRentalIncome();
     	}
-    	return monthlyGrossTotalIncome; 
+    	return store.monthlyGrossTotalIncome[row]; 
     }
 
     /**
@@ -351,44 +436,56 @@ public class Household implements IHouseOwner {
      */
     public double getMonthlyGrossRentalIncome() {
 //    	double monthlyGrossRentalIncome = 0.0;
-    	for(RentalAgreement rentalAgreement: rentalContracts.values()) {
-    		monthlyGrossRentalIncome += rentalAgreement.nextPayment();
+    	for(Map.Entry<House, RentalAgreement> entry: rentalContracts.entrySet()) {
+    		monthlyGrossRentalIncome += nextRentalPayment(entry.getKey(), entry.getValue());
     	}
         return monthlyGrossRentalIncome;
     }
     
+    /**
+     * Next payment of a rental agreement on a house let by this household. During the private phase of a two-phase
+     * step, tenants' payments are deferred, so for tenants preceding this household in step order, the payment is
+     * computed as if they had already paid this month, as it would be in a sequential step
+     */
+    private double nextRentalPayment(House house, PaymentAgreement rentalAgreement) {
+        if (inPrivatePhase && house.resident != null && house.resident.stepOrder < stepOrder) {
+            return rentalAgreement.nextPaymentAfterMonthlyPayment();
+        }
+        return rentalAgreement.nextPayment();
+    }
+
     public double calculateMonthlyDividendIncome() {
     	return monthlyDividendIncome = Model.householdStats.getTotalInterestRepayments()
-    			*bankBalance/Math.max(Model.householdStats.getTotalBankBalancesVeryBeginningOfPeriod(),0.01);
+    			*store.bankBalance[row]/Math.max(Model.householdStats.getTotalBankBalancesVeryBeginningOfPeriod(),0.01);
     }
     
     // test if the household is vulnerable 
     private void recordVulnerability() {
-    	vulnerableTMinus1 = isVulnerable;
+    	store.vulnerableTMinus1[row] = store.isVulnerable[row];
     	double financialMargin;
     	// if gross total income is not shocked extra, then only shock according to "povertyLinePercentMedianIncome". If it is 0.4 it is effectively not shocked
     	// 0.6 means a shock of 20% of median income
     	if(config.incomeShock == 0) {
     		financialMargin = 
-    				monthlyDisposableIncome - config.povertyLinePercentMedianIncome * Model.householdStats.getMonthlyMedianIncome();
+    				store.monthlyDisposableIncome[row] - config.povertyLinePercentMedianIncome * Model.householdStats.getMonthlyMedianIncome();
     	} else {
         	
     		financialMargin = 
     				calculateShockedDisposableIncomeForVulnerability()  - 
 				config.povertyLinePercentMedianIncome * Model.householdStats.getMonthlyMedianIncome();
     	}
-    	double monthsCoveredByDeposits = bankBalance / financialMargin;
+    	double monthsCoveredByDeposits = store.bankBalance[row] / financialMargin;
     	// only vulnerable if household has mortgage debt and deposits are less than 24 (or X) times the
     	// negative financial margin
     	if(getTotalDebt() < 0.0 && principalPaidBack == 0.0 && !config.BTLinterestOnly) {
     		System.out.println("weird, household is vulnerable withoug having paid back principle");
     	}
     	if(monthsCoveredByDeposits < 0.0 &
-    			( - config.finVulMonthsToCover * financialMargin) > bankBalance &
+    			( - config.finVulMonthsToCover * financialMargin) > store.bankBalance[row] &
     			getTotalDebt() < 0.0 ) {
-    		isVulnerable = true;
+    		store.isVulnerable[row] = true;
     	} else {
-    		isVulnerable = false;
+    		store.isVulnerable[row] = false;
     	}
     	// calculate the factor with which the exposure at default will be calculated with
     	// as a linear function where the factor is 1 if months covered are 0 and 1 when 
@@ -404,11 +501,11 @@ public class Household implements IHouseOwner {
     	// for using an %-income shock to Gross total income: calculate net income from a reduced GTI, while not 
     	// overriding the recorded values for the household
     	// first: calculate the share of employment income in gross total income
-    	double shareEmploymentIncomeInTotalIncome = annualGrossEmploymentIncome / (12 * monthlyGrossTotalIncome);
-    	double shockedMonthlyGrossTotalIncome = monthlyGrossTotalIncome - config.incomeShock * monthlyGrossTotalIncome;
+    	double shareEmploymentIncomeInTotalIncome = store.annualGrossEmploymentIncome[row] / (12 * store.monthlyGrossTotalIncome[row]);
+    	double shockedMonthlyGrossTotalIncome = store.monthlyGrossTotalIncome[row] - config.incomeShock * store.monthlyGrossTotalIncome[row];
     	// to arrive a the shocked disposable income, the new shocked net income is reduced 
     	// by the difference between original net income and disposable income
-    	double differenceNetIncomeDisposableIncome = monthlyNetTotalIncome - monthlyDisposableIncome;
+    	double differenceNetIncomeDisposableIncome = store.monthlyNetTotalIncome[row] - store.monthlyDisposableIncome[row];
     	double shockedMonthlyDisposableIncome_tmp = shockedMonthlyGrossTotalIncome - differenceNetIncomeDisposableIncome -
     			// minus income tax (with finance costs tax relief)
     			Model.government.incomeTaxDue(shockedMonthlyGrossTotalIncome - getAnnualFinanceCosts()) / config.constants.MONTHS_IN_YEAR - 
@@ -558,8 +655,8 @@ public class Household implements IHouseOwner {
         if(mortgage == null) {
             // TODO: need to either provide a way for house sales to fall through or to ensure that pre-approvals are always satisfiable
             System.out.println("Can't afford to buy house: strange");
-            System.out.println("Bank balance is "+bankBalance);
-            System.out.println("Annual income is "+ monthlyGrossEmploymentIncome *config.constants.MONTHS_IN_YEAR);
+            System.out.println("Bank balance is "+store.bankBalance[row]);
+            System.out.println("Annual income is "+ store.monthlyGrossEmploymentIncome[row] *config.constants.MONTHS_IN_YEAR);
             if(isRenting()) System.out.println("Is renting");
             if(isHomeowner()) System.out.println("Is homeowner");
             if(isInSocialHousing()) System.out.println("Is homeless");
@@ -568,7 +665,7 @@ public class Household implements IHouseOwner {
             System.out.println("House owner = "+ sale.getHouse().owner);
             System.out.println("me = "+this);
         } else {
-            bankBalance -= mortgage.downPayment;
+            store.bankBalance[row] -= mortgage.downPayment;
             // record the effect of this transaction on the bank balance
             netHouseTransactionRevenue -= mortgage.downPayment;
             // record the new principal taken out
@@ -586,18 +683,18 @@ public class Household implements IHouseOwner {
 
             // In order to be able to understand if a household is living in its first home, check if it was a firstTimeBuyerBefore
             // and deactivate when it was no first time buyer          
-            if(isFirstTimeBuyer==true) {
-            	isInFirstHome = true;
+            if(store.isFirstTimeBuyer[row]==true) {
+            	store.isInFirstHome[row] = true;
                 // If a BTL investor bought her first property, don't consider them as inFirstHome anymore
             	// As getNProperties is counted with the help of "housePayments", put 2 here for a BTL investor that 
                 // has more than one property
                 if(getNProperties()>2 && behaviour.isPropertyInvestor()) {
-                	isInFirstHome = false;
+                	store.isInFirstHome[row] = false;
                 }
                 
-            } else { isInFirstHome = false;}
+            } else { store.isInFirstHome[row] = false;}
 
-            isFirstTimeBuyer = false;
+            store.isFirstTimeBuyer[row] = false;
             
             // record the time of this purchase
             lastHousePurchasePeriod = Model.getTime();
@@ -610,11 +707,11 @@ public class Household implements IHouseOwner {
     public void completeHouseSale(HouseOfferRecord sale) {
         // First, receive money from sale
     	double salePrice = sale.getPrice();
-        bankBalance += salePrice;
+        store.bankBalance[row] += salePrice;
         // Second, find mortgage object and pay off as much outstanding debt as possible given bank balance
         MortgageAgreement mortgage = mortgageFor(sale.getHouse());
-        double mortgagePayoff = mortgage.payoff(bankBalance, this, true);
-        bankBalance -= mortgagePayoff;
+        double mortgagePayoff = mortgage.payoff(store.bankBalance[row], this, true);
+        store.bankBalance[row] -= mortgagePayoff;
         netHouseTransactionRevenue += salePrice - mortgagePayoff;
         // Third, if there is no more outstanding debt, remove the house from the household's housePayments object
         if (mortgage.nPayments == 0) {
@@ -727,7 +824,7 @@ public class Household implements IHouseOwner {
      ********************************************************/
     private void bidForAHome() {
         // Find household's desired housing expenditure
-        double desiredPurchasePrice = behaviour.getDesiredPurchasePrice(annualGrossEmploymentIncome);
+        double desiredPurchasePrice = behaviour.getDesiredPurchasePrice(store.annualGrossEmploymentIncome[row]);
 
         // Cap this expenditure to the maximum mortgage available to the household
         double price = Math.min(desiredPurchasePrice, Model.bank.getMaxMortgage(this, true, false));
@@ -745,7 +842,7 @@ public class Household implements IHouseOwner {
             Model.houseSaleMarket.bid(this, price, false);
         } else {
             // ... if renting, bid in the house rental market for the desired rent price
-            Model.houseRentalMarket.bid(this, behaviour.desiredRent(monthlyGrossEmploymentIncome), false);
+            Model.houseRentalMarket.bid(this, behaviour.desiredRent(store.monthlyGrossEmploymentIncome[row]), false);
         }
     }
 
@@ -829,19 +926,19 @@ public class Household implements IHouseOwner {
     		// If payment agreement is a mortgage, then try to pay off as much as possible from the deceased household's bank balance
     		if (payment instanceof MortgageAgreement) {
     			double payoff = ((MortgageAgreement) payment).payoff(beneficiary);
-    			double bankBalanceBeforePayoff = bankBalance;
-    			bankBalance -= payoff;
+    			double bankBalanceBeforePayoff = store.bankBalance[row];
+    			store.bankBalance[row] -= payoff;
     			// record the payoff of principal at the beneficiaries, as it will otherwise not be recorded. 
     			// ... if the was higher than the bank balance, then record the amount that was paid off and the rest, which was not...
-    			if(bankBalance < 0.0 && bankBalanceBeforePayoff >= 0.0) {
+    			if(store.bankBalance[row] < 0.0 && bankBalanceBeforePayoff >= 0.0) {
     				Model.householdStats.recordPrincipalRepaymentDeceasedHousehold(bankBalanceBeforePayoff);
-    				Model.householdStats.recordDebtReliefDeceasedHousehold(-bankBalance);
+    				Model.householdStats.recordDebtReliefDeceasedHousehold(-store.bankBalance[row]);
     				if(Model.getTime()>=config.TIME_TO_START_RECORDING) {
     					beneficiary.setPrincipalPaidBackForInheritance(bankBalanceBeforePayoff);
-    					beneficiary.setDebtReliefForBequeather(-bankBalance);
+    					beneficiary.setDebtReliefForBequeather(-store.bankBalance[row]);
     				}
     				// ... if the bank balance was already negative, due to former payoff (like 2nd mortgage), record debt relief as the amount of the principal..
-    			} else if(bankBalance < 0.0 && bankBalanceBeforePayoff < 0.0) {
+    			} else if(store.bankBalance[row] < 0.0 && bankBalanceBeforePayoff < 0.0) {
     				Model.householdStats.recordDebtReliefDeceasedHousehold(payoff);
     				//... if the bankBalance is positive, this means no debt was relieved and the bankBalance can be transfered
     				//... record the principal paid back
@@ -860,7 +957,7 @@ public class Household implements IHouseOwner {
     	beneficiary.setDebtReliefForBequeather(getDebtReliefForBequeather());
     	
     	// Finally, transfer all remaining liquid wealth to the beneficiary household
-    	beneficiary.bankBalance += Math.max(0.0, bankBalance);
+    	beneficiary.store.bankBalance[beneficiary.row] += Math.max(0.0, store.bankBalance[row]);
     }
     
     /**
@@ -895,7 +992,7 @@ public class Household implements IHouseOwner {
             }
             home = h;
             h.resident = this;
-            isFirstTimeBuyer = false; // Households inheriting a home cannot be considered fist-time buyers anymore
+            store.isFirstTimeBuyer[row] = false; // Households inheriting a home cannot be considered fist-time buyers anymore
         // If owning a home and having the BTL gene...
         } else if(behaviour.isPropertyInvestor()) {
             // ...decide whether to sell the inherited house
@@ -915,9 +1012,19 @@ public class Household implements IHouseOwner {
     
     public int getId() { return id;}
 
-    public double getAge() { return age; }
+    int getRow() { return row; }
+
+    /**
+     * Point the household to the row where its numeric state has been moved by its store
+     */
+    void moveTo(HouseholdStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    public double getAge() { return store.age[row]; }
     
-    public double getConsumption() {return consumption; }
+    public double getConsumption() {return store.consumption[row]; }
     
     public double getIncomeConsumption() { return incomeConsumption;}
     
@@ -945,7 +1052,6 @@ public class Household implements IHouseOwner {
 	public void setSavingForDeleveraging(double savingForDeleveraging) {
 		this.savingForDeleveraging = savingForDeleveraging;
 	}
-    void ageOneMonth() { age += 1.0/config.constants.MONTHS_IN_YEAR; }
 
     public boolean isHomeowner() {
         if(home == null) return(false);
@@ -959,23 +1065,23 @@ public class Household implements IHouseOwner {
 
     public boolean isInSocialHousing() { return home == null; }
 
-    public boolean isFirstTimeBuyer() { return isFirstTimeBuyer; }
+    public boolean isFirstTimeBuyer() { return store.isFirstTimeBuyer[row]; }
     
-    public boolean isInFirstHome() {return isInFirstHome;}
+    public boolean isInFirstHome() {return store.isInFirstHome[row];}
 
-    public boolean isBankrupt() { return isBankrupt; }
+    public boolean isBankrupt() { return store.isBankrupt[row]; }
 
-    public double getBankBalance() { return bankBalance; }
+    public double getBankBalance() { return store.bankBalance[row]; }
 
     public House getHome() { return home; }
 
     public Map<House, PaymentAgreement> getHousePayments() { return housePayments; }
 
-    public double getAnnualGrossEmploymentIncome() { return annualGrossEmploymentIncome; }
+    public double getAnnualGrossEmploymentIncome() { return store.annualGrossEmploymentIncome[row]; }
 
-    public double getMonthlyGrossEmploymentIncome() { return monthlyGrossEmploymentIncome; }
+    public double getMonthlyGrossEmploymentIncome() { return store.monthlyGrossEmploymentIncome[row]; }
     
-	public double returnMonthlyDisposableIncome() { return monthlyDisposableIncome; }
+	public double returnMonthlyDisposableIncome() { return store.monthlyDisposableIncome[row]; }
 	
 	public double returnMonthlyGrossRentalIncome() { return monthlyGrossRentalIncome; }
 
@@ -1100,9 +1206,9 @@ public class Household implements IHouseOwner {
 
     public double getSavingRate() { return savingRate; }
     
-    public double getIncomePercentile() {return incomePercentile;}
+    public double getIncomePercentile() {return store.incomePercentile[row];}
     
-    public double getMonthlyPayments() {return monthlyPayments;}
+    public double getMonthlyPayments() {return store.monthlyPayments[row];}
 
 	public double getPrincipalPaidBack() {
 		return principalPaidBack;
@@ -1189,11 +1295,11 @@ public class Household implements IHouseOwner {
 	}
 
 	public double returnMonthlyNetTotalIncome() {
-		return monthlyNetTotalIncome;
+		return store.monthlyNetTotalIncome[row];
 	}
 	
 	public double returnMonthlyGrossTotalIncome() {
-		return monthlyGrossTotalIncome;
+		return store.monthlyGrossTotalIncome[row];
 	}
 	
 	public double getSocialHousingRent() {
@@ -1205,15 +1311,15 @@ public class Household implements IHouseOwner {
 	}
 	
 	public boolean isVulnerable() {
-		return isVulnerable;
+		return store.isVulnerable[row];
 	}
 
 	public void setVulnerable(boolean isVulnerable) {
-		this.isVulnerable = isVulnerable;
+		store.isVulnerable[row] = isVulnerable;
 	}
 	
 	public boolean isVulnerableTMinus1() {
-		return vulnerableTMinus1;
+		return store.vulnerableTMinus1[row];
 	}
 
 	public int getLastHousePurchasePeriod() {
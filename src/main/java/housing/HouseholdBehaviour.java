@@ -1,12 +1,12 @@
 package housing;
 
-import org.apache.commons.math3.distribution.LogNormalDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+import java.io.Serializable;
 
-import collectors.HousingMarketStats;
-import collectors.RentalMarketStats;
+import org.apache.commons.math3.distribution.LogNormalDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
 
 import utilities.BinnedDataDouble;
+import utilities.DataTableCache;
 import utilities.Pdf;
 
 /**************************************************************************************************
@@ -15,22 +15,24 @@ import utilities.Pdf;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class HouseholdBehaviour {
+public class HouseholdBehaviour implements Serializable {
 
 	//------------------//
 	//----- Fields -----//
 	//------------------//
 
+	private static final long serialVersionUID = 1L;
 	private static Config                   config = Model.config; // Passes the Model's configuration parameters object to a private static field
-	private static MersenneTwister	        prng = Model.prng; // Passes the Model's random number generator to a private static field
-	private static HousingMarketStats       housingMarketStats = Model.housingMarketStats; // Passes the Model's housing market stats object to a private static field
-	private static RentalMarketStats        rentalMarketStats = Model.rentalMarketStats; // Passes the Model's rental market stats object to a private static field
-	private static Pdf                      saleMarkUpPdf = new Pdf(config.DATA_INITIAL_SALE_MARKUP_DIST); // Read initial sale price mark-up distribution from file
-	private static Pdf                      rentMarkUpPdf = new Pdf(config.DATA_INITIAL_RENT_MARKUP_DIST); // Read initial rent price mark-up distribution from file
-	private static LogNormalDistribution    downpaymentDistFTB = new LogNormalDistribution(prng,
+	private static Pdf                      saleMarkUpPdf = DataTableCache.get(config.DATA_INITIAL_SALE_MARKUP_DIST,
+            "markUpPdf", () -> new Pdf(config.DATA_INITIAL_SALE_MARKUP_DIST)); // Read initial sale price mark-up distribution from file
+	private static Pdf                      rentMarkUpPdf = DataTableCache.get(config.DATA_INITIAL_RENT_MARKUP_DIST,
+            "markUpPdf", () -> new Pdf(config.DATA_INITIAL_RENT_MARKUP_DIST)); // Read initial rent price mark-up distribution from file
+	// Downpayment distributions are only used through their inverse cumulative probability, thus need no generator
+	private static LogNormalDistribution    downpaymentDistFTB = new LogNormalDistribution(null,
 			config.DOWNPAYMENT_FTB_SCALE, config.DOWNPAYMENT_FTB_SHAPE); // Size distribution for downpayments of first-time-buyers
-	private static LogNormalDistribution    downpaymentDistOO = new LogNormalDistribution(prng,
+	private static LogNormalDistribution    downpaymentDistOO = new LogNormalDistribution(null,
 			config.DOWNPAYMENT_OO_SCALE, config.DOWNPAYMENT_OO_SHAPE); // Size distribution for downpayments of owner-occupiers
+	private RandomGenerator                 prng; // Random number stream of the household
 	private boolean                         BTLInvestor;
 	private double                          BTLCapGainCoefficient; // Sensitivity of BTL investors to capital gain, 0.0 cares only about rental yield, 1.0 cares only about cap gain
 	private double                          propensityToSave;
@@ -46,9 +48,11 @@ public class HouseholdBehaviour {
 	 * investor "gene" (provided its income percentile is above a certain minimum), and whether the household will be a
 	 * fundamentalist or a trend follower investor (provided it has received the BTL investor gene)
 	 *
+	 * @param prng Random number stream of the household
 	 * @param incomePercentile Fixed income percentile for the household (assumed constant over a lifetime)
 	 */
-	HouseholdBehaviour(double incomePercentile) {
+	HouseholdBehaviour(RandomGenerator prng, double incomePercentile) {
+		this.prng = prng;
 		// Compute propensity to save, so that it is constant for a given household
 		propensityToSave = prng.nextDouble();
 		// Decide if household is a BTL investor and, if so, its tendency to seek capital gains or rental yields
@@ -326,8 +330,15 @@ public class HouseholdBehaviour {
 				System.out.println("weird, consumption value is NaN, agentID: " + me.id + "; period: " + Model.getTime());
 			}
 			// record the consumption contributors for the aggregate recorders
-			Model.householdStats.countIncomeAndWealthConsumption(saving, consumption, incomeConsumption, 
-					financialWealthConsumption, housingWealthConsumption, debtConsumption, savingForDeleveraging);
+			if (Household.isDeferringShared()) {
+				final double[] components = {saving, consumption, incomeConsumption, financialWealthConsumption,
+						housingWealthConsumption, debtConsumption, savingForDeleveraging};
+				me.applyShared(() -> Model.householdStats.countIncomeAndWealthConsumption(components[0],
+						components[1], components[2], components[3], components[4], components[5], components[6]));
+			} else {
+				Model.householdStats.countIncomeAndWealthConsumption(saving, consumption, incomeConsumption,
+						financialWealthConsumption, housingWealthConsumption, debtConsumption, savingForDeleveraging);
+			}
 
 			// record the single consumption components
 			me.setIncomeConsumption(incomeConsumption);
@@ -352,7 +363,14 @@ public class HouseholdBehaviour {
 					config.CONSUMPTION_FRACTION*Math.max(bankBalance
 					- data.Wealth.getDesiredBankBalance(annualGrossTotalIncome, propensityToSave), 0.0);
 			saving = disposableIncome-consumption;
-			Model.householdStats.countIncomeAndWealthConsumption(saving, consumption, 0.0, 0.0, 0.0, 0.0, 0.0);
+			if (Household.isDeferringShared()) {
+				final double finalSaving = saving;
+				final double finalConsumption = consumption;
+				me.applyShared(() -> Model.householdStats.countIncomeAndWealthConsumption(finalSaving,
+						finalConsumption, 0.0, 0.0, 0.0, 0.0, 0.0));
+			} else {
+				Model.householdStats.countIncomeAndWealthConsumption(saving, consumption, 0.0, 0.0, 0.0, 0.0, 0.0);
+			}
 			return consumption;
 		}
 	}
@@ -382,7 +400,7 @@ public class HouseholdBehaviour {
 	 * @param principal Amount of principal left on any mortgage on this house
 	 */
 	double getInitialSalePrice(int quality, double principal) {
-		return Math.max(saleMarkUpPdf.nextDouble(prng) * housingMarketStats.getExpAvSalePriceForQuality(quality),
+		return Math.max(saleMarkUpPdf.nextDouble(prng) * Model.housingMarketStats.getExpAvSalePriceForQuality(quality),
 				principal);
 	}
 
@@ -394,8 +412,8 @@ public class HouseholdBehaviour {
 	 * @param quality Quality of the house to be rented out
 	 */
 	double getInitialRentPrice(int quality) {
-		return rentMarkUpPdf.nextDouble(prng) * rentalMarketStats.getExpAvSalePriceForQuality(quality);
-		//        return rentalMarketStats.getExpAvSalePriceForQuality(quality);
+		return rentMarkUpPdf.nextDouble(prng) * Model.rentalMarketStats.getExpAvSalePriceForQuality(quality);
+		//        return Model.rentalMarketStats.getExpAvSalePriceForQuality(quality);
 	}
 
 	/**
@@ -423,8 +441,8 @@ public class HouseholdBehaviour {
 		if (me.isFirstTimeBuyer()) {
 			// Since the function of the HPI is to move the down payments distribution upwards or downwards to
 			// accommodate current price levels, and the distribution is itself aggregate, we use the aggregate HPI
-			downpayment = housingMarketStats.getHPI()*downpaymentDistFTB.inverseCumulativeProbability(Math.max(0.0,
-					(me.incomePercentile - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
+			downpayment = Model.housingMarketStats.getHPI()*downpaymentDistFTB.inverseCumulativeProbability(Math.max(0.0,
+					(me.getIncomePercentile() - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
 		} else if (isPropertyInvestor()) {
 			//TODO: by Ruben, this method also gets called by the completeTransaction method (via the requestLoan method)
 			// Does this mean the random number generator uses a different number here than before the household is making 
@@ -432,8 +450,8 @@ public class HouseholdBehaviour {
 			downpayment = housePrice*(Math.max(0.0,
 					config.DOWNPAYMENT_BTL_MEAN + config.DOWNPAYMENT_BTL_EPSILON * prng.nextGaussian()));
 		} else {
-			downpayment = housingMarketStats.getHPI()*downpaymentDistOO.inverseCumulativeProbability(Math.max(0.0,
-					(me.incomePercentile - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
+			downpayment = Model.housingMarketStats.getHPI()*downpaymentDistOO.inverseCumulativeProbability(Math.max(0.0,
+					(me.getIncomePercentile() - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
 		}
 		if (downpayment > me.getBankBalance()) {
 			//System.out.println("bankBalance restricts downpayment, desired downpayment " + downpayment/me.getBankBalance()+ "% bigger");
@@ -568,7 +586,7 @@ public class HouseholdBehaviour {
 		// ...find the mortgage agreement for this property
 		MortgageAgreement mortgage = me.mortgageFor(h);
 		// ...find its current (fair market value) sale price
-		double currentMarketPrice = housingMarketStats.getExpAvSalePriceForQuality(h.getQuality());
+		double currentMarketPrice = Model.housingMarketStats.getExpAvSalePriceForQuality(h.getQuality());
 		// ...find equity, or assets minus liabilities
 		double equity = Math.max(0.01, currentMarketPrice - mortgage.principal); // The 0.01 prevents possible divisions by zero later on
 		// ...find the leverage on that mortgage (Assets divided by equity, or return on equity)
@@ -576,9 +594,9 @@ public class HouseholdBehaviour {
 		// ...find the expected rental yield of this property as its current rental price (under current average
 		// occupancy) divided by its current (fair market value) sale price
 		//        double currentRentalYield = h.getRentalRecord().getPrice() * config.constants.MONTHS_IN_YEAR
-		//                * rentalMarketStats.getAvOccupancyForQuality(h.getQuality()) / currentMarketPrice;
+		//                * Model.rentalMarketStats.getAvOccupancyForQuality(h.getQuality()) / currentMarketPrice;
 		double currentRentalYield = Model.rentalMarketStats.getAvFlowYieldForQuality(h.getQuality()) * 
-				rentalMarketStats.getAvOccupancyForQuality(h.getQuality()) / currentMarketPrice;;
+				Model.rentalMarketStats.getAvOccupancyForQuality(h.getQuality()) / currentMarketPrice;;
 				// ...find the mortgage rate (pounds paid a year per pound of equity)
 				double mortgageRate = mortgage.nextPayment()*config.constants.MONTHS_IN_YEAR/equity;
 				// ...finally, find expected equity yield, or yield on equity
@@ -710,7 +728,7 @@ public class HouseholdBehaviour {
 	 * @return Expectation of HPI in one year's time divided by today's HPI
 	 */
 	public double getLongTermHPAExpectation() {
-		return housingMarketStats.getLongTermHPA() * config.HPA_EXPECTATION_FACTOR + config.HPA_EXPECTATION_CONST;
+		return Model.housingMarketStats.getLongTermHPA() * config.HPA_EXPECTATION_FACTOR + config.HPA_EXPECTATION_CONST;
 	}
 
 	public double getBTLCapGainCoefficient() { return BTLCapGainCoefficient; }
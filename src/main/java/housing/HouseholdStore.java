@@ -0,0 +1,228 @@
+package housing;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**************************************************************************************************
+ * Columnar store of the hot numeric state of households: age, income percentile, bank balance,
+ * incomes, payments, consumption and flags are held in primitive arrays, with one row per
+ * household, while the Household objects keep their row and read and write these fields through
+ * it. Rows of live households are kept dense and in the same order as Model.households, with
+ * newly born households appended at the end and the rows of deceased households removed in a
+ * single stable sweep (see compact), such that passes over the whole population (e.g., aging in
+ * Demographics) can run as tight loops over the columns, visiting households in list order.
+ * Removed households are detached onto a private single-row store, such that any remaining
+ * reference to them still reads their last values. Households with no behaviour, such as those
+ * replayed from order book fixtures, can live on their own store. Note that rows of different
+ * households can be written concurrently, as during the private phase of a two-phase step, but no
+ * household can be added or removed meanwhile.
+ *
+ *************************************************************************************************/
+public class HouseholdStore implements Serializable {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long serialVersionUID = 1L;
+    private int             size = 0; // Number of rows in use
+    private int             nRemoved = 0; // Number of rows removed since the last compaction
+    private Household[]     views; // Household of each row (null for rows removed since the last compaction)
+    // Columns
+    double[]                age; // Age of the household representative person
+    double[]                incomePercentile;
+    double[]                bankBalance;
+    double[]                annualGrossEmploymentIncome;
+    double[]                monthlyGrossEmploymentIncome;
+    double[]                monthlyGrossTotalIncome;
+    double[]                monthlyNetTotalIncome;
+    double[]                monthlyDisposableIncome;
+    double[]                consumption;
+    double[]                monthlyPayments;
+    boolean[]               isFirstTimeBuyer;
+    boolean[]               isInFirstHome;
+    boolean[]               isBankrupt;
+    boolean[]               isVulnerable;
+    boolean[]               vulnerableTMinus1;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param initialCapacity Number of rows to allocate upfront, doubled whenever exhausted
+     */
+    public HouseholdStore(int initialCapacity) { allocate(Math.max(initialCapacity, 1)); }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Append a row for a household, with all its columns set to zero or false
+     *
+     * @param household Household to be stored at the new row
+     * @return Index of the new row
+     */
+    int add(Household household) {
+        if (size == views.length) allocate(2*views.length);
+        views[size] = household;
+        clearRow(size);
+        return size++;
+    }
+
+    /**
+     * Detach a household from this store, copying its row onto a private single-row store, and mark its row for
+     * removal at the next compaction. Rows of the remaining households do not change until then
+     *
+     * @param household Household to be removed, which must be stored here
+     */
+    void remove(Household household) {
+        int row = household.getRow();
+        HouseholdStore detached = new HouseholdStore(1);
+        detached.add(household);
+        detached.copyRow(this, row, 0);
+        household.moveTo(detached, 0);
+        views[row] = null;
+        nRemoved++;
+    }
+
+    /**
+     * Close the gaps left by removed households, moving the rows of the remaining ones down while keeping their order
+     */
+    void compact() {
+        if (nRemoved == 0) return;
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            Household household = views[row];
+            if (household == null) continue;
+            if (target != row) {
+                copyRow(this, row, target);
+                views[target] = household;
+                household.moveTo(this, target);
+            }
+            target++;
+        }
+        Arrays.fill(views, target, size, null);
+        size = target;
+        nRemoved = 0;
+    }
+
+    /**
+     * Remove all rows, keeping the allocated capacity
+     */
+    void clear() {
+        Arrays.fill(views, 0, size, null);
+        size = 0;
+        nRemoved = 0;
+    }
+
+    /**
+     * Increase the age of every stored household by the given amount, and count how many of them fall in each age band
+     * after aging, ignoring those beyond the last band. All rows must belong to live households, i.e., the store must
+     * have been compacted after the last removal
+     *
+     * @param ageIncrease Amount to add to the age of every household
+     * @param firstBinMin Lower edge of the first age band
+     * @param binWidth Width of the age bands
+     * @param householdsPerAgeBand Array where the counts are to be added, one element per age band
+     */
+    void ageAndCountPerAgeBand(double ageIncrease, double firstBinMin, double binWidth, int[] householdsPerAgeBand) {
+        double[] age = this.age;
+        for (int row = 0; row < size; row++) {
+            double newAge = age[row] + ageIncrease;
+            age[row] = newAge;
+            int i = (int)((newAge - firstBinMin)/binWidth);
+            if (i < householdsPerAgeBand.length) householdsPerAgeBand[i]++;
+        }
+    }
+
+    /**
+     * Copy all columns of a row of a store onto a row of this store
+     */
+    private void copyRow(HouseholdStore source, int sourceRow, int row) {
+        age[row] = source.age[sourceRow];
+        incomePercentile[row] = source.incomePercentile[sourceRow];
+        bankBalance[row] = source.bankBalance[sourceRow];
+        annualGrossEmploymentIncome[row] = source.annualGrossEmploymentIncome[sourceRow];
+        monthlyGrossEmploymentIncome[row] = source.monthlyGrossEmploymentIncome[sourceRow];
+        monthlyGrossTotalIncome[row] = source.monthlyGrossTotalIncome[sourceRow];
+        monthlyNetTotalIncome[row] = source.monthlyNetTotalIncome[sourceRow];
+        monthlyDisposableIncome[row] = source.monthlyDisposableIncome[sourceRow];
+        consumption[row] = source.consumption[sourceRow];
+        monthlyPayments[row] = source.monthlyPayments[sourceRow];
+        isFirstTimeBuyer[row] = source.isFirstTimeBuyer[sourceRow];
+        isInFirstHome[row] = source.isInFirstHome[sourceRow];
+        isBankrupt[row] = source.isBankrupt[sourceRow];
+        isVulnerable[row] = source.isVulnerable[sourceRow];
+        vulnerableTMinus1[row] = source.vulnerableTMinus1[sourceRow];
+    }
+
+    /**
+     * Set all columns of a row to zero or false, as rows are reused after removals and clearing
+     */
+    private void clearRow(int row) {
+        age[row] = 0.0;
+        incomePercentile[row] = 0.0;
+        bankBalance[row] = 0.0;
+        annualGrossEmploymentIncome[row] = 0.0;
+        monthlyGrossEmploymentIncome[row] = 0.0;
+        monthlyGrossTotalIncome[row] = 0.0;
+        monthlyNetTotalIncome[row] = 0.0;
+        monthlyDisposableIncome[row] = 0.0;
+        consumption[row] = 0.0;
+        monthlyPayments[row] = 0.0;
+        isFirstTimeBuyer[row] = false;
+        isInFirstHome[row] = false;
+        isBankrupt[row] = false;
+        isVulnerable[row] = false;
+        vulnerableTMinus1[row] = false;
+    }
+
+    /**
+     * Allocate all columns with the given capacity, keeping the rows in use
+     */
+    private void allocate(int capacity) {
+        if (views == null) {
+            views = new Household[capacity];
+            age = new double[capacity];
+            incomePercentile = new double[capacity];
+            bankBalance = new double[capacity];
+            annualGrossEmploymentIncome = new double[capacity];
+            monthlyGrossEmploymentIncome = new double[capacity];
+            monthlyGrossTotalIncome = new double[capacity];
+            monthlyNetTotalIncome = new double[capacity];
+            monthlyDisposableIncome = new double[capacity];
+            consumption = new double[capacity];
+            monthlyPayments = new double[capacity];
+            isFirstTimeBuyer = new boolean[capacity];
+            isInFirstHome = new boolean[capacity];
+            isBankrupt = new boolean[capacity];
+            isVulnerable = new boolean[capacity];
+            vulnerableTMinus1 = new boolean[capacity];
+        } else {
+            views = Arrays.copyOf(views, capacity);
+            age = Arrays.copyOf(age, capacity);
+            incomePercentile = Arrays.copyOf(incomePercentile, capacity);
+            bankBalance = Arrays.copyOf(bankBalance, capacity);
+            annualGrossEmploymentIncome = Arrays.copyOf(annualGrossEmploymentIncome, capacity);
+            monthlyGrossEmploymentIncome = Arrays.copyOf(monthlyGrossEmploymentIncome, capacity);
+            monthlyGrossTotalIncome = Arrays.copyOf(monthlyGrossTotalIncome, capacity);
+            monthlyNetTotalIncome = Arrays.copyOf(monthlyNetTotalIncome, capacity);
+            monthlyDisposableIncome = Arrays.copyOf(monthlyDisposableIncome, capacity);
+            consumption = Arrays.copyOf(consumption, capacity);
+            monthlyPayments = Arrays.copyOf(monthlyPayments, capacity);
+            isFirstTimeBuyer = Arrays.copyOf(isFirstTimeBuyer, capacity);
+            isInFirstHome = Arrays.copyOf(isInFirstHome, capacity);
+            isBankrupt = Arrays.copyOf(isBankrupt, capacity);
+            isVulnerable = Arrays.copyOf(isVulnerable, capacity);
+            vulnerableTMinus1 = Arrays.copyOf(vulnerableTMinus1, capacity);
+        }
+    }
+
+    //----- Getter/setter methods -----//
+
+    public int size() { return size; }
+
+    public int getCapacity() { return views.length; }
+}
@@ -1,12 +1,21 @@
 package housing;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
-import org.apache.commons.math3.distribution.GeometricDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 
+import collectors.ClearingTelemetry;
+import utilities.OrderBook;
 import utilities.PriorityQueue2D;
+import utilities.QualityBucketedOrderBook;
 
 /**************************************************************************************************
  * Class that implements the market mechanism behind both the sale and the rental markets
@@ -14,188 +23,450 @@ import utilities.PriorityQueue2D;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public abstract class HousingMarket {
+public abstract class HousingMarket implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long                       serialVersionUID = 1L;
+    private static final int                        CHUNK_SIZE = 1024; // Number of bids per chunk when finding best offers in parallel
+    private static final Comparator<HousingMarketRecord> OFFER_COMPARATOR = new HousingMarketRecord.PQComparator()::XYCompare;
+    private static final Comparator<HouseBidderRecord> BID_COMPARATOR = new HouseBidderRecord.PComparator();
+
     private Config                                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                         prng;
-    private PriorityQueue2D<HousingMarketRecord>    offersPQ;
+    private RandomGenerator                         prng;
+    private OrderBook<HousingMarketRecord>          offersPQ;
+    private ClearingEngine                          clearingEngine;
     private ArrayList<HouseBidderRecord>            bids;
-    private int []                                  nBidUpFrequency; // Counts the frequency of the number of bid-ups. TODO: Move to a collector class
+    private BidUpSampler                            bidUpSampler = new BidUpSampler(config.derivedParams.MONTHS_UNDER_OFFER,
+                                                                                    config.BIDUP);
+    private int                                     nBidsAtClearing; // Number of bids at the start of the last clearing
+    private int                                     nOffersAtClearing; // Number of offers at the start of the last clearing
+    private int                                     nClearingRounds; // Number of rounds of matching and clearing in the last clearing
+    private int                                     nRoundBids; // Number of bids summed over all rounds of the last clearing
+    private int                                     nVisitedOffers; // Number of offers visited by clearMatches over all rounds of the last clearing
+    private ArrayList<HouseOfferRecord>             matchedOffers = new ArrayList<>(); // Offers matched with bids in the current round
+    private ArrayList<HouseOfferRecord>             repricedOffers = new ArrayList<>(); // Offers with a new price waiting to be applied in bulk
+    private ArrayList<HouseBidderRecord>            bidRecords = new ArrayList<>(); // Bid records for reuse, the first nBidRecordsInUse of them holding current bids
+    private int                                     nBidRecordsInUse = 0;
+    private MatchListPool                           matchListPool = new MatchListPool(); // Lists of matched bids for reuse
+    private transient MarketEventListener[]         listeners; // Listeners of the events of this market, null if none
+    private transient ClearingTelemetry             telemetry; // Collector of clearing telemetry, null if not recorded
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-    HousingMarket(MersenneTwister prng) {
-        offersPQ = new PriorityQueue2D<>(new HousingMarketRecord.PQComparator()); //Priority Queue of (Price, Quality)
+    /**
+     * @param prng Random number generator for this market
+     * @param offerBook Order book for the price-quality queue of offers, either "PriorityQueue2D" or "QualityBuckets"
+     * @param clearingEngine Engine clearing the market, either "Iterative" or "Batch" (see ClearingEngine)
+     */
+    HousingMarket(RandomGenerator prng, String offerBook, String clearingEngine) {
+        //Priority Queue of (Price, Quality)
+        offersPQ = newOfferBook(offerBook);
+        if (clearingEngine.equals("Iterative")) {
+            this.clearingEngine = new IterativeClearingEngine();
+        } else if (clearingEngine.equals("Batch")) {
+            this.clearingEngine = new BatchClearingEngine();
+        } else {
+            throw new IllegalArgumentException("Unrecognised clearing engine '" + clearingEngine + "'");
+        }
         // The integer passed to the ArrayList constructor is an initially declared capacity (for initial memory
         // allocation purposes), it will actually have size zero and only grow by adding elements
         bids = new ArrayList<>(config.TARGET_POPULATION/10);
         this.prng = prng;
     }
 
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Iterator through the offers matched in the current round, once sorted, whose remove method removes the last
+     * returned offer from offersPQ, as the iterator of offersPQ would
+     */
+    private class MatchedOffersIterator implements Iterator<HousingMarketRecord> {
+        // Fields
+        int next = 0;
+        // Methods
+        @Override
+        public boolean hasNext() { return next < matchedOffers.size(); }
+        @Override
+        public HousingMarketRecord next() { return matchedOffers.get(next++); }
+        @Override
+        public void remove() { offersPQ.remove(matchedOffers.get(next - 1)); }
+    }
+
+    /**
+     * Pool of empty lists for the matched bids of offers, taken by offers when first matched with a bid and given back
+     * once they have been cleared
+     */
+    private static class MatchListPool implements Supplier<ArrayList<HouseBidderRecord>>, Serializable {
+        // Fields
+        private static final long serialVersionUID = 1L;
+        ArrayList<ArrayList<HouseBidderRecord>> lists = new ArrayList<>();
+        // Methods
+        @Override
+        public ArrayList<HouseBidderRecord> get() {
+            return lists.isEmpty() ? new ArrayList<>(8) : lists.remove(lists.size() - 1);
+        }
+        void recycle(ArrayList<HouseBidderRecord> list) {
+            list.clear();
+            lists.add(list);
+        }
+    }
+
     //-------------------//
     //----- Methods -----//
     //-------------------//
 
+    /**
+     * @param offerBook Order book for the price-quality queue of offers, either "PriorityQueue2D" or "QualityBuckets"
+     * @return New empty order book of the given kind
+     */
+    private OrderBook<HousingMarketRecord> newOfferBook(String offerBook) {
+        if (offerBook.equals("PriorityQueue2D")) {
+            return new PriorityQueue2D<>(new HousingMarketRecord.PQComparator());
+        } else if (offerBook.equals("QualityBuckets")) {
+            return new QualityBucketedOrderBook<>(config.N_QUALITY, new HousingMarketRecord.QualityBand(),
+                    new HousingMarketRecord.Price(), new HousingMarketRecord.PQComparator());
+        } else {
+            throw new IllegalArgumentException("Unrecognised offer book '" + offerBook + "'");
+        }
+    }
+
+    /**
+     * Move all offers into new order books of the given kind, such as after restoring a model state written with
+     * other order books. As all order books return exactly the same matches, results are not affected
+     *
+     * @param offerBook Order book for the price-quality queue of offers, either "PriorityQueue2D" or "QualityBuckets"
+     */
+    void rebuildOfferBooks(String offerBook) {
+        OrderBook<HousingMarketRecord> newOffersPQ = newOfferBook(offerBook);
+        for (HousingMarketRecord offer : offersPQ) newOffersPQ.add(offer);
+        offersPQ = newOffersPQ;
+    }
+
     //----- Initialisation methods -----//
     
-    public void init() { offersPQ.clear(); }
+    public void init() {
+        offersPQ.clear();
+        repricedOffers.clear();
+    }
 
     //----- Methods to add, update, remove offers and bids -----//
     
     /**
-     * Put a new offer on the market
+     * Put a new offer on the market. If the market intake is open, the offer is only put in the order books once the
+     * intake is closed (see MarketIntake)
      *
      * @param house House to put on the market
      * @param price List price for the house
      * @return HouseOfferRecord for the house
      */
     public HouseOfferRecord offer(House house, double price, boolean BTLOffer) {
-        HouseOfferRecord hsr = new HouseOfferRecord(house, price, BTLOffer);
-        offersPQ.add(hsr);
+        MarketIntake intake = Model.marketIntake;
+        HouseOfferRecord hsr;
+        if (intake != null && intake.isOpen()) {
+            hsr = new HouseOfferRecord(house, price, BTLOffer, true);
+            intake.offer(this, hsr);
+        } else {
+            hsr = new HouseOfferRecord(house, price, BTLOffer);
+            listOffer(hsr);
+        }
         return hsr;
     }
+
+    /**
+     * Put a new offer in the order books
+     */
+    void listOffer(HouseOfferRecord hsr) {
+        offersPQ.add(hsr);
+        if (listeners != null) for (MarketEventListener listener : listeners) listener.offerListed(this, hsr);
+    }
     
     /**
-     * Change the list-price on a house that is already on the market
+     * Change the list-price on a house that is already on the market. If config.bulkRepricing is true, the new price
+     * is only recorded, to be applied together with all other price changes of the time step by applyRepricing, such
+     * that the offer keeps its old price until then (note that the price of an offer is thus expected to change at
+     * most once per time step, and not to be read again after changing it). The same applies while the market intake
+     * is open, until it is closed
      * 
      * @param hsr The HouseOfferRecord of the house to change the price for
      * @param newPrice The new price of the house
      */
     public void updateOffer(HouseOfferRecord hsr, double newPrice) {
-        offersPQ.remove(hsr);
-        hsr.setPrice(newPrice);
-        offersPQ.add(hsr);
+        MarketIntake intake = Model.marketIntake;
+        if (intake != null && intake.isOpen()) {
+            intake.updateOffer(this, hsr, newPrice);
+        } else {
+            changeOfferPrice(hsr, newPrice);
+        }
+    }
+
+    /**
+     * Change the list-price of an offer in the order books, or record it to be applied in bulk
+     */
+    void changeOfferPrice(HouseOfferRecord hsr, double newPrice) {
+        if (config.bulkRepricing) {
+            if (Double.isNaN(hsr.getPendingPrice())) repricedOffers.add(hsr);
+            hsr.setPendingPrice(newPrice);
+        } else {
+            double oldPrice = hsr.getPrice();
+            offersPQ.remove(hsr);
+            hsr.setPrice(newPrice);
+            offersPQ.add(hsr);
+            if (listeners != null) for (MarketEventListener listener : listeners) listener.offerRepriced(this, hsr, oldPrice);
+        }
+    }
+
+    /**
+     * Apply all price changes recorded by updateOffer since the last call, if config.bulkRepricing is true, by
+     * removing all repriced offers from the offer queues at once, changing their prices, and adding them back, which
+     * must be done before any use of the offers, in particular, before recording pre-clearing statistics
+     */
+    void applyRepricing() {
+        if (repricedOffers.isEmpty()) return;
+        // Offers taken off the market after being repriced have had their new price cancelled
+        repricedOffers.removeIf(offer -> Double.isNaN(offer.getPendingPrice()));
+        repriceOffers(repricedOffers);
+        repricedOffers.clear();
+    }
+
+    /**
+     * Change the prices of the given offers to their pending prices, removing them from and adding them back to the
+     * offer queues
+     *
+     * @param offers Offers with a pending price, all of them currently on the market
+     */
+    void repriceOffers(List<HouseOfferRecord> offers) {
+        offersPQ.removeAll(offers);
+        for (HouseOfferRecord offer : offers) {
+            double oldPrice = offer.getPrice();
+            offer.setPrice(offer.getPendingPrice());
+            offer.setPendingPrice(Double.NaN);
+            if (listeners != null) for (MarketEventListener listener : listeners) listener.offerRepriced(this, offer, oldPrice);
+        }
+        offersPQ.addAll(offers);
     }
     
     /**
-     * Take a house off the market
+     * Take a house off the market, cancelling any pending price change. If the market intake is open, the offer is
+     * only taken out of the order books once the intake is closed
      * 
      * @param hsr The HouseOfferRecord of the house to take off the market
      */
-    public void removeOffer(HouseOfferRecord hsr) { offersPQ.remove(hsr); }
+    public void removeOffer(HouseOfferRecord hsr) {
+        MarketIntake intake = Model.marketIntake;
+        if (intake != null && intake.isOpen()) {
+            intake.removeOffer(this, hsr);
+        } else {
+            withdrawOffer(hsr);
+        }
+    }
+
+    /**
+     * Take an offer out of the order books, cancelling any pending price change
+     */
+    void withdrawOffer(HouseOfferRecord hsr) {
+        offersPQ.remove(hsr);
+        hsr.setPendingPrice(Double.NaN);
+        if (listeners != null) for (MarketEventListener listener : listeners) listener.offerWithdrawn(this, hsr);
+    }
 
     /**
-     * Make a non-BTL bid on the market, i.e. make an offer on a (yet to be decided) house to become the household's home
+     * Make a non-BTL bid on the market, i.e. make an offer on a (yet to be decided) house to become the household's home.
+     * If the market intake is open, the bid is only added to the bids once the intake is closed
      * 
      * @param buyer The household that is making the bid
      * @param price The price that the household is willing to pay
      */
     public void bid(Household buyer, double price, boolean BTLBid) {
-        bids.add(new HouseBidderRecord(buyer, price, BTLBid));
+        MarketIntake intake = Model.marketIntake;
+        if (intake != null && intake.isOpen()) {
+            intake.bid(this, buyer, price, BTLBid);
+        } else {
+            addBid(buyer, price, BTLBid);
+        }
+    }
+
+    /**
+     * Add a bid to the bids. Bid records are reused from previous time steps, as they are not referenced anymore once
+     * the market has been cleared
+     */
+    void addBid(Household buyer, double price, boolean BTLBid) {
+        HouseBidderRecord bid;
+        if (nBidRecordsInUse < bidRecords.size()) {
+            bid = bidRecords.get(nBidRecordsInUse);
+            bid.reset(buyer, price, BTLBid);
+        } else {
+            bid = new HouseBidderRecord(buyer, price, BTLBid);
+            bidRecords.add(bid);
+        }
+        nBidRecordsInUse++;
+        bids.add(bid);
     }
 
     //----- Market clearing methods -----//
 
     /**
-     * Main simulation step. For a number of rounds, matches bids with offers and clears the matches.
+     * Main simulation step. Matches bids with offers and clears the matches by means of the clearing engine of this
+     * market (see ClearingEngine), after which all bids left are discarded.
      */
     void clearMarket() {
-        nBidUpFrequency = new int[21]; // Re-start bid-up counter (while this array size is arbitrary, anything above 10 should be enough)
-        // Before any use, priorities must be sorted by filling in the uncoveredElements TreeSet at the corresponding
-        // PriorityQueue2D, in this case, the offersPQ object contains a Price-Quality 2D-priority queue of offers
+        // Before any use, priorities must be sorted, e.g., by filling in the uncoveredElements TreeSet at the
+        // corresponding PriorityQueue2D, in this case, the offersPQ object contains a Price-Quality order book of offers
         offersPQ.sortPriorities();
-        while (bids.size() > 0 && offersPQ.size() > 0) {
+        nBidsAtClearing = bids.size();
+        nOffersAtClearing = offersPQ.size();
+        nClearingRounds = 0;
+        nRoundBids = 0;
+        nVisitedOffers = 0;
+        if (telemetry != null) telemetry.startClearing();
+        clearingEngine.clear(this);
+        if (telemetry != null) {
+            telemetry.finishClearing(nBidsAtClearing, nOffersAtClearing, nClearingRounds, nRoundBids, bids.size(),
+                    offersPQ.size());
+        }
+        bids.clear();
+        // All bid records can now be reused
+        nBidRecordsInUse = 0;
+    }
+
+    /**
+     * Run a single round of the iterative clearing (see IterativeClearingEngine), matching every bid with the best
+     * offer for it and then clearing the matches, with unsuccessful bids of oversubscribed offers left on the market
+     * for the next round
+     */
+    void runClearingRound() {
+        int nBids = bids.size();
+        countClearingRound(nBids);
+        if (telemetry != null) {
+            long start = System.nanoTime();
+            matchBidsWithOffers();
+            long matched = System.nanoTime();
+            clearMatches();
+            telemetry.finishRound(nClearingRounds, nBids, bids.size(), offersPQ.size(), matched - start,
+                    System.nanoTime() - matched);
+        } else {
             matchBidsWithOffers(); // Step 1: iterate through bids
             clearMatches(); // Step 2: iterate through offers
         }
-        bids.clear();
+    }
+
+    /**
+     * Count a round of clearing, whatever the engine running it, in the clearing counters of this market, which are the
+     * only ones kept for rounds and their bids, read by both the step profiler and the clearing telemetry
+     *
+     * @param nBids Number of bids going into the round
+     */
+    void countClearingRound(int nBids) {
+        nRoundBids += nBids;
+        nClearingRounds++;
+    }
+
+    /**
+     * Tell every registered listener that a new round of clearing matches starts, as done once per round by the
+     * iterative clearing and once per sweep by other engines
+     */
+    void fireRoundStarted() {
+        if (listeners != null) for (MarketEventListener listener : listeners) listener.roundStarted(this);
+    }
+
+    /**
+     * Clear the match of an offer with a single bid at the offer price, as done by engines matching every offer with one
+     * bid only, taking the offer off the market and completing the transaction
+     *
+     * @param bid Bid matched with the offer
+     * @param offer Offer matched with the bid
+     */
+    void clearSingleMatch(HouseBidderRecord bid, HouseOfferRecord offer) {
+        nVisitedOffers++;
+        if (telemetry != null) telemetry.offerCleared(1);
+        if (listeners != null) {
+            List<HouseBidderRecord> matchedBids = Collections.singletonList(bid);
+            for (MarketEventListener listener : listeners) listener.offerMatched(this, offer, matchedBids);
+        }
+        recordBidUps(0);
+        removeOfferFromQueues(offer);
+        completeTransaction(bid, offer);
+        if (listeners != null) for (MarketEventListener listener : listeners) listener.transaction(this, bid, offer);
     }
 
     /**
      * First step to clear the market. Iterate through all bids and, for each bid, find the best quality house being
      * offered for that price or lower (if it exists) and record the match. Note that offers could be matched with
-     * multiple bids.
+     * multiple bids. Best offers are first found for all bids, possibly at once (if config.batchBidMatching is true,
+     * see getBestOffers) and in parallel (if config.parallelBidMatching is true, see findBestOffers), and only then
+     * are matches recorded, in the order of the bids, thus with identical results in all cases.
      */
     private void matchBidsWithOffers() {
-        HouseOfferRecord offer;
-        for(HouseBidderRecord bid : bids) {
-            offer = getBestOffer(bid);
-            // If buyer and seller is the same household, then the bid falls through and the household will need to
-            // reissue it next month. Also, if the bid price is not enough to buy anything in this market and at this
-            // time, the bid also falls through
-            if(offer != null && (offer.getHouse().owner != bid.getBidder())) {
-                offer.matchWith(bid);
-            }
-        }
+        HouseOfferRecord[] bestOffers = config.batchBidMatching ? getBestOffers() : findBestOffers(this::getBestOffer);
+        for (int i = 0; i < bids.size(); i++) matchBidWithOffer(bids.get(i), bestOffers[i]);
         // To keep only matched bids, we clear the bids ArrayList, it will be refilled with unsuccessful bids when
         // matches are cleared at clearMatches
         bids.clear();
     }
 
+    private void matchBidWithOffer(HouseBidderRecord bid, HouseOfferRecord offer) {
+        // If buyer and seller is the same household, then the bid falls through and the household will need to
+        // reissue it next month. Also, if the bid price is not enough to buy anything in this market and at this
+        // time, the bid also falls through
+        if (offer != null && (offer.getHouse().owner != bid.getBidder())) {
+            if (config.clearMatchedOffersOnly && offer.getMatchedBids().isEmpty()) matchedOffers.add(offer);
+            offer.matchWith(bid, matchListPool);
+        }
+    }
+
     /**
      * Second step to clear the market. Iterate through all offers and, for each offer, loop through its matched bids.
      * If BIDUP is activated, the offer price is bid up according to a geometric distribution with mean dependent on the
-     * number of matched bids.
+     * number of matched bids. If config.clearMatchedOffersOnly is true, only offers matched in this round are iterated
+     * through, in the same price-quality order, thus with identical results, unless any event listener is registered,
+     * as listeners are then told about every offer on the market.
      */
     private void clearMatches() {
         // Clear and resolve oversubscribed offers
         HouseOfferRecord offer;
-        GeometricDistribution geomDist;
         int nBids;
-        double pSuccessfulBid;
         double salePrice;
         int winningBid;
-        Iterator<HousingMarketRecord> record = getOffersIterator();
-        // counter to record below
-        int i = 1;
+        Iterator<HousingMarketRecord> record;
+        if (config.clearMatchedOffersOnly && listeners == null) {
+            matchedOffers.sort(OFFER_COMPARATOR);
+            record = new MatchedOffersIterator();
+        } else {
+            record = getOffersIterator();
+        }
+        fireRoundStarted();
         while(record.hasNext()) {
             offer = (HouseOfferRecord)record.next();
+            nVisitedOffers++;
             nBids = offer.getMatchedBids().size();
- //*****************************************************           
-            // record the offer and the matched bids, but only the housing market
-            if(Model.getTime() >= Model.config.TIME_TO_START_RECORDING 
-            		&& Model.config.recordOffersAndBids
-            		&& offer.getHouse().isOnMarket()== true) {
-            	Model.offerAndBidRecorder.outfile.print(
-            			Model.getTime() + ", " 
-            					+ i + ", " 
-            					+ offer.getId() + ", " 
-            					+ offer.getHouse().id + ", "
-            					+ offer.getQuality() + ", "
-                    			+ offer.getYield() + ", " 
-            					+ String.format("%.2f",offer.getPrice()) + ", "
-            					+ String.format("%.2f",offer.getInitialListedPrice()) + ", "
-            					+ offer.gettInitialListing() + ", "
-            			);
-
-            	for(HouseBidderRecord bid : offer.getMatchedBids()){
-            		Model.offerAndBidRecorder.outfile.print(
-            				String.format("%.2f", bid.getPrice()) + ", "
-            						+ bid.getBidder().id + ", "
-            						+ bid.getBidder().getBankBalance() + ", "
-            						+ bid.getBidder().behaviour.isPropertyInvestor() + ", "
-            				);
-            	};
+            if (telemetry != null && nBids > 0) telemetry.offerCleared(nBids);
+            if (listeners != null) {
+                for (MarketEventListener listener : listeners) listener.offerMatched(this, offer, offer.getMatchedBids());
             }
-//******************************************************            
             // If matches for this offer are multiple...
             if(nBids > 1) {
                 // ...first bid up the price
                 if(config.BIDUP > 1.0) {
-                    // Assuming bids a randomly distributed throughout the month, this is the probability of two
-                    // consecutive bids having at least a week between them
-                    pSuccessfulBid = Math.pow((1.0 - config.derivedParams.MONTHS_UNDER_OFFER), (nBids - 1));
-                    if (pSuccessfulBid == 0.0) pSuccessfulBid = Float.MIN_VALUE; // Keeping the probability non-zero
-                    // Given the previous probability of success (two consecutive bids more than a week apart), find the
-                    // number of attempts before a success (number of consecutive bids less than a week apart before two
-                    // consecutive bids more than a week apart), which corresponds to a draw from a geometric
-                    // distribution
-                    geomDist = new GeometricDistribution(prng, pSuccessfulBid);
-                    int nBidUps = geomDist.sample();
-                    addNBidUps(nBidUps);
+                    // Find the number of attempts before a success (number of consecutive bids less than a week apart
+                    // before two consecutive bids more than a week apart), which corresponds to a draw from a geometric
+                    // distribution (see BidUpSampler)
+                    int nBidUps = bidUpSampler.sample(nBids, prng);
+                    recordBidUps(nBidUps);
+                    if (telemetry != null) telemetry.offerBidUp(nBidUps);
+                    if (listeners != null) for (MarketEventListener listener : listeners) listener.offerBidUp(this, offer, nBidUps);
                     // Finally compute the new price
-                    salePrice = offer.getPrice()*Math.pow(config.BIDUP, nBidUps);
+                    salePrice = offer.getPrice()*bidUpSampler.getBidUpFactor(nBidUps);
                 } else {
                     salePrice = offer.getPrice();                    
                 }
                 // ...then choose a bid above the new price
-                offer.getMatchedBids().sort(new HouseBidderRecord.PComparator()); // This orders the list with the highest price last
+                offer.getMatchedBids().sort(BID_COMPARATOR); // This orders the list with the highest price last
                 while(nBids > 0 && offer.getMatchedBids().get(nBids - 1).getPrice() >= salePrice) {
                     --nBids; // This counts the number of bids above the new price
                 }
@@ -212,48 +483,34 @@ public abstract class HousingMarket {
                 removeOfferFromQueues(record, offer);
                 // ...update price for the offer
                 offer.setPrice(salePrice);
-  //*********************************************************              
-                // record the winning bid
-                if(Model.getTime() >= Model.config.TIME_TO_START_RECORDING
-                		&& Model.config.recordOffersAndBids
-                		&& offer.getHouse().isOnMarket()== true) {
-                	Model.offerAndBidRecorder.outfile.println(
-                			offer.getMatchedBids().get(winningBid).getBidder().id + ", "
-                			+ salePrice);
-                	++i;
-                }
-  //**********************************************************
                 // ...complete successful transaction and record it into the corresponding housingMarketStats
                 completeTransaction(offer.getMatchedBids().get(winningBid), offer);
+                if (listeners != null) {
+                    for (MarketEventListener listener : listeners) {
+                        listener.transaction(this, offer.getMatchedBids().get(winningBid), offer);
+                    }
+                }
                 // Put the rest of the bids for this property (failed bids) back on bids array
                 bids.addAll(offer.getMatchedBids().subList(0, winningBid));
                 bids.addAll(offer.getMatchedBids().subList(winningBid + 1, offer.getMatchedBids().size()));
+                matchListPool.recycle(offer.releaseMatchedBids());
             // If there is only one match...
             } else if (nBids == 1) {
-  //*********************************************************              
-                // end line in csv file and increase the counter
-                if(Model.getTime() >= Model.config.TIME_TO_START_RECORDING
-                		&& Model.config.recordOffersAndBids
-                		&& offer.getHouse().isOnMarket()== true) {
-                	Model.offerAndBidRecorder.outfile.println(", ");
-                	++i;
-                }
-  //**********************************************************
-                addNBidUps(0);
+                recordBidUps(0);
                 // ...complete successful transaction and record it into the corresponding housingMarketStats
                 completeTransaction(offer.getMatchedBids().get(0), offer);
+                if (listeners != null) {
+                    for (MarketEventListener listener : listeners) {
+                        listener.transaction(this, offer.getMatchedBids().get(0), offer);
+                    }
+                }
                 // ...remove this offer from the offers priority queue, offersPQ, underlying the record iterator (and, for HouseSaleMarket, also from the PY queue)
                 removeOfferFromQueues(record, offer);
+                matchListPool.recycle(offer.releaseMatchedBids());
             }
             // Note that we skip the whole process if there are no matches
-            // end the line in the csv file
-            if(Model.getTime() >= Model.config.TIME_TO_START_RECORDING
-            		&& Model.config.recordOffersAndBids
-            		&& offer.getHouse().isOnMarket()== true) {	
-            	Model.offerAndBidRecorder.outfile.println("");
-            	++i;
-            }
         }
+        matchedOffers.clear();
     }
 
     /**
@@ -267,6 +524,15 @@ public abstract class HousingMarket {
         record.remove();
     }
 
+    /**
+     * Remove a successfully matched and cleared offer from the priority queues, without any iterator over them
+     *
+     * @param offer Offer to remove from queues
+     */
+    void removeOfferFromQueues(HouseOfferRecord offer) {
+        offersPQ.remove(offer);
+    }
+
     /**
      * This abstract method allows for the different implementations at HouseSaleMarket and HouseRentalMarket to be
      * called as appropriate
@@ -276,20 +542,42 @@ public abstract class HousingMarket {
      */
     public abstract void completeTransaction(HouseBidderRecord purchase, HouseOfferRecord sale);
 
-    // Add a transaction with a number nBidUps of bid-up attempts
-    private void addNBidUps(int nBidUps) {
-        if (nBidUps < nBidUpFrequency.length) {
-            nBidUpFrequency[nBidUps] += 1;
-        } else {
-            nBidUpFrequency[nBidUpFrequency.length - 1] += 1;
-        }
-    }
+    /**
+     * This abstract method allows for the bid-ups of each transaction to be recorded into the statistics of the sale or
+     * the rental market, as appropriate
+     *
+     * @param nBidUps Number of bid-up attempts before the transaction
+     */
+    abstract void recordBidUps(int nBidUps);
 
     //----- Getter/setter methods -----//
 
     public ArrayList<HouseBidderRecord> getBids() { return bids; }
 
-    public PriorityQueue2D<HousingMarketRecord> getOffersPQ() { return offersPQ; }
+    public OrderBook<HousingMarketRecord> getOffersPQ() { return offersPQ; }
+
+    /**
+     * Set the listeners of the events of this market, replacing any previous ones. Note that listeners are not part of
+     * the state of the market, thus not kept in snapshots of the model
+     *
+     * @param listeners Listeners of the events of this market, possibly none
+     */
+    public void setEventListeners(MarketEventListener... listeners) {
+        this.listeners = (listeners.length > 0) ? listeners.clone() : null;
+    }
+
+    /**
+     * Set the collector of telemetry on the clearing of this market, replacing any previous one. Note that, as
+     * listeners, the collector is not part of the state of the market, thus not kept in snapshots of the model
+     *
+     * @param telemetry Collector of clearing telemetry, or null for none
+     */
+    public void setClearingTelemetry(ClearingTelemetry telemetry) { this.telemetry = telemetry; }
+
+    /**
+     * @return Collector of clearing telemetry, or null if none
+     */
+    ClearingTelemetry getClearingTelemetry() { return telemetry; }
 
     private Iterator<HousingMarketRecord> getOffersIterator() { return(offersPQ.iterator()); }
 
@@ -300,5 +588,84 @@ public abstract class HousingMarket {
      */
     protected HouseOfferRecord getBestOffer(HouseBidderRecord bid) { return (HouseOfferRecord)offersPQ.peek(bid); }
 
+    /**
+     * Get the best offer for each bid, as getBestOffer would, but reading the uncovered offers (those of higher quality
+     * than any cheaper offer) only once per round into a flat array of prices, in which each bid is then located by
+     * binary search
+     *
+     * @return Array with the best offer (or null if none) for each bid, in the order of the bids
+     */
+    protected HouseOfferRecord[] getBestOffers() {
+        List<HousingMarketRecord> uncovered = offersPQ.getUncoveredElements();
+        double[] prices = getPrices(uncovered);
+        return findBestOffers(bid -> findBestOffer(uncovered, prices, bid));
+    }
+
+    /**
+     * Find the best offer for each bid with the given lookup, which must not modify anything. If
+     * config.parallelBidMatching is true, bids are looked up in parallel, over chunks of CHUNK_SIZE bids, each chunk
+     * writing to its own part of the resulting array
+     *
+     * @param lookup Function returning the best offer (or null if none) for a bid
+     * @return Array with the best offer (or null if none) for each bid, in the order of the bids
+     */
+    HouseOfferRecord[] findBestOffers(Function<HouseBidderRecord, HouseOfferRecord> lookup) {
+        HouseOfferRecord[] bestOffers = new HouseOfferRecord[bids.size()];
+        if (config.parallelBidMatching && bids.size() > CHUNK_SIZE) {
+            int nChunks = (bids.size() + CHUNK_SIZE - 1)/CHUNK_SIZE;
+            IntStream.range(0, nChunks).parallel().forEach(chunk -> {
+                int end = Math.min((chunk + 1)*CHUNK_SIZE, bids.size());
+                for (int i = chunk*CHUNK_SIZE; i < end; i++) bestOffers[i] = lookup.apply(bids.get(i));
+            });
+        } else {
+            for (int i = 0; i < bestOffers.length; i++) bestOffers[i] = lookup.apply(bids.get(i));
+        }
+        return bestOffers;
+    }
+
+    /**
+     * @return Array with the prices of the given records, in the same order
+     */
+    static double[] getPrices(List<HousingMarketRecord> records) {
+        double[] prices = new double[records.size()];
+        for (int i = 0; i < prices.length; i++) prices[i] = records.get(i).getPrice();
+        return prices;
+    }
+
+    /**
+     * Find the best offer for a bid among the uncovered offers of a book, i.e., the most expensive of them not more
+     * expensive than the bid, as peek would
+     *
+     * @param uncovered Uncovered offers of a book, in ascending price order
+     * @param prices Prices of the uncovered offers
+     * @param bid Bid to find the best offer for
+     * @return Best offer for the bid or null if there is none
+     */
+    static HouseOfferRecord findBestOffer(List<HousingMarketRecord> uncovered, double[] prices, HouseBidderRecord bid) {
+        double price = bid.getPrice();
+        // Find the first offer more expensive than the bid
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (low > 0) ? (HouseOfferRecord)uncovered.get(low - 1) : null;
+    }
+
     int getnHousesOnMarket() { return offersPQ.size(); }
+
+    int getnBidsAtClearing() { return nBidsAtClearing; }
+
+    int getnOffersAtClearing() { return nOffersAtClearing; }
+
+    int getnClearingRounds() { return nClearingRounds; }
+
+    int getnRoundBids() { return nRoundBids; }
+
+    int getnVisitedOffers() { return nVisitedOffers; }
 }
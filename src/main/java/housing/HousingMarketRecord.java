@@ -1,6 +1,9 @@
 package housing;
 
+import java.io.Serializable;
+
 import utilities.PriorityQueue2D;
+import utilities.QualityBucketedOrderBook;
 
 /**************************************************************************************************
  * Root class to encapsulate information on housing market transactions, both offers and bids. Both
@@ -11,12 +14,13 @@ import utilities.PriorityQueue2D;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public abstract class HousingMarketRecord {
+public abstract class HousingMarketRecord implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long serialVersionUID = 1L;
     private double price;
     private int id;  // In order to get a unique, repeatable ordering
     private static int id_pool = 0;
@@ -25,11 +29,34 @@ public abstract class HousingMarketRecord {
     //----- Constructors -----//
     //------------------------//
 
-    HousingMarketRecord(double price) {
+    HousingMarketRecord(double price) { this(price, false); }
+
+    /**
+     * @param price Price of the record
+     * @param deferId True to create the record without an id, which must then be assigned by assignId before the
+     *                record is put on a market, as done for records created from several threads while the
+     *                MarketIntake is open
+     */
+    HousingMarketRecord(double price, boolean deferId) {
         this.price = price;
-        id = id_pool++;
+        if (!deferId) assignId();
     }
 
+    /**
+     * Re-initialise a recycled record with a new price and a new id, exactly as if it was newly created
+     *
+     * @param price New price of the record
+     */
+    void reset(double price) {
+        this.price = price;
+        assignId();
+    }
+
+    /**
+     * Assign the next id to this record
+     */
+    void assignId() { id = id_pool++; }
+
     //----------------------//
     //----- Subclasses -----//
     //----------------------//
@@ -38,7 +65,8 @@ public abstract class HousingMarketRecord {
      * Class that implements the comparators needed for inserting HousingMarketRecord objects into PriorityQueue2D. In
      * particular, this class implements the comparators for a price-quality priority queue.
      */
-    public static class PQComparator implements PriorityQueue2D.XYComparator<HousingMarketRecord> {
+    public static class PQComparator implements PriorityQueue2D.XYComparator<HousingMarketRecord>, Serializable {
+        private static final long serialVersionUID = 1L;
 
         /**
          * @return -1 or 1 if arg0 is, respectively, cheaper than or more expensive than arg1 solving the arg0 == arg1
@@ -78,7 +106,8 @@ public abstract class HousingMarketRecord {
      * Class that implements the comparators needed for inserting HousingMarketRecord objects into PriorityQueue2D. In
      * particular, this class implements the comparators for a price-yield priority queue.
      */
-    public static class PYComparator implements PriorityQueue2D.XYComparator<HousingMarketRecord> {
+    public static class PYComparator implements PriorityQueue2D.XYComparator<HousingMarketRecord>, Serializable {
+        private static final long serialVersionUID = 1L;
 
         /**
          * @return -1 or 1 if arg0 is, respectively, cheaper than or more expensive than arg1 solving the arg0 == arg1
@@ -114,6 +143,27 @@ public abstract class HousingMarketRecord {
         }
     }
 
+    /**
+     * Class that assigns each HousingMarketRecord object to the band of its quality, for inserting them into
+     * QualityBucketedOrderBook
+     */
+    public static class QualityBand implements QualityBucketedOrderBook.BandFunction<HousingMarketRecord> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int getBand(HousingMarketRecord record) { return record.getQuality(); }
+    }
+
+    /**
+     * Class that returns the price of each HousingMarketRecord object, as its X-value in QualityBucketedOrderBook
+     */
+    public static class Price implements QualityBucketedOrderBook.XFunction<HousingMarketRecord> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double getX(HousingMarketRecord record) { return record.price; }
+    }
+
     //-------------------//
     //----- Methods -----//
     //-------------------//
@@ -131,6 +181,10 @@ public abstract class HousingMarketRecord {
 
     public int getId() { return id; }
 
+    static int getIdPool() { return id_pool; }
+
+    static void setIdPool(int idPool) { id_pool = idPool; }
+
     public double getPrice() { return price; }
 
     public void setPrice(double newPrice) { price = newPrice; }
@@ -0,0 +1,67 @@
+package housing;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**************************************************************************************************
+ * Class loader that loads its own copy of every model class (housing, collectors and data
+ * packages), while delegating any other class (JDK, libraries) to its parent. Since the model
+ * keeps its state in static fields (Model.config, Model.prng, Model.households...), each instance
+ * of this loader provides a completely separate set of model state, thus allowing several
+ * simulations to run concurrently within the same JVM. The utilities package, which holds no
+ * model state, is also delegated to the parent, such that all simulations share the same
+ * utilities classes and, thus, the data tables kept in DataTableCache.
+ *
+ *************************************************************************************************/
+public class IsolatingClassLoader extends URLClassLoader {
+
+    static { ClassLoader.registerAsParallelCapable(); }
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String SHARED_PACKAGE = "utilities."; // Stateless classes shared by all loaders
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * Create a loader isolating the model classes found at the same location as this class (classes folder or jar)
+     */
+    public IsolatingClassLoader() {
+        this(new URL[] {IsolatingClassLoader.class.getProtectionDomain().getCodeSource().getLocation()});
+    }
+
+    /**
+     * @param urls Locations (classes folders or jars) of the classes to be isolated
+     */
+    public IsolatingClassLoader(URL[] urls) {
+        super(urls, IsolatingClassLoader.class.getClassLoader());
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Classes found at this loader's own locations are loaded child-first, except for those of the shared packages,
+     * any other class is loaded by the parent
+     */
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                if (!name.startsWith("java.") && !name.startsWith(SHARED_PACKAGE) && findResource(name.replace('.', '/') + ".class") != null) {
+                    c = findClass(name);
+                } else {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve) resolveClass(c);
+            return c;
+        }
+    }
+}
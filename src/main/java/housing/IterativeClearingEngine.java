@@ -0,0 +1,18 @@
+package housing;
+
+/**************************************************************************************************
+ * Clearing engine running, for as long as there are bids and offers left on the market, rounds in
+ * which every bid is matched with the best offer for it and then every matched offer is cleared,
+ * its price being bid up if matched with several bids, with the unsuccessful bids of oversubscribed
+ * offers left on the market for the next round (see HousingMarket.runClearingRound). This is the
+ * original clearing mechanism of the model.
+ *
+ *************************************************************************************************/
+public class IterativeClearingEngine implements ClearingEngine {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void clear(HousingMarket market) {
+        while (market.getBids().size() > 0 && market.getnHousesOnMarket() > 0) market.runClearingRound();
+    }
+}
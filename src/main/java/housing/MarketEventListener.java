@@ -0,0 +1,60 @@
+package housing;
+
+import java.util.List;
+
+/**************************************************************************************************
+ * Interface for the listeners of the events of a housing market, such as recorders of offers and
+ * bids, to be registered with the market through its setEventListeners method. All methods do
+ * nothing by default, such that listeners only need to implement the events they are interested
+ * in, and the market does no work at all for its events when no listener is registered. Events
+ * are fired during the step of the model, in the order in which they happen, and listeners must
+ * not modify the market, its offers or its bids.
+ *
+ *************************************************************************************************/
+public interface MarketEventListener {
+
+    /**
+     * A new offer has been put on the market (note that the house might not yet refer to this offer)
+     */
+    default void offerListed(HousingMarket market, HouseOfferRecord offer) {}
+
+    /**
+     * The price of an offer has been changed (if config.bulkRepricing is true, only when the change is applied)
+     *
+     * @param oldPrice Price of the offer before the change
+     */
+    default void offerRepriced(HousingMarket market, HouseOfferRecord offer, double oldPrice) {}
+
+    /**
+     * An offer has been taken off the market without being sold or let
+     */
+    default void offerWithdrawn(HousingMarket market, HouseOfferRecord offer) {}
+
+    /**
+     * A new round of matching bids with offers and clearing the matches is starting
+     */
+    default void roundStarted(HousingMarket market) {}
+
+    /**
+     * An offer is being cleared, with the bids matched with it in this round, before any bid-up. Note that, when any
+     * listener is registered, this is fired for every offer on the market, even those without any matched bids
+     *
+     * @param bids Bids matched with the offer, possibly none
+     */
+    default void offerMatched(HousingMarket market, HouseOfferRecord offer, List<HouseBidderRecord> bids) {}
+
+    /**
+     * The price of an offer matched with several bids has been bid up a number of times
+     *
+     * @param nBidUps Number of bid-ups
+     */
+    default void offerBidUp(HousingMarket market, HouseOfferRecord offer, int nBidUps) {}
+
+    /**
+     * A transaction has been completed, with the offer at its final price
+     *
+     * @param purchase Winning bid
+     * @param sale Offer sold or let
+     */
+    default void transaction(HousingMarket market, HouseBidderRecord purchase, HouseOfferRecord sale) {}
+}
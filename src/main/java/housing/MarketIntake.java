@@ -0,0 +1,223 @@
+package housing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**************************************************************************************************
+ * Class to take in the offers, price changes, withdrawals and bids made on both housing markets
+ * from several threads at once. While open, market operations are not applied to the order books,
+ * but appended to a buffer of the calling thread (or, for bids, if lockFreeBids is true, to a
+ * single lock-free queue shared by all threads), each of them tagged with the key of the agent
+ * making it (set by setAgent) and its position among the operations of that agent. When closed,
+ * all operations are merged, sorted by agent key and position, and applied to the markets in this
+ * order. As long as each agent's operations are made from a single thread, results thus depend
+ * neither on the number of threads nor on their scheduling, and they are identical to those of
+ * applying every operation directly if agents are keyed in the order in which they would be
+ * stepped sequentially. In particular, the ids of offer and bid records, which are used to break
+ * ties in the order books, are only assigned when operations are applied. Note that, until then,
+ * new offers are not in the order books and repriced offers keep their old price. Thread buffers
+ * are held by the intake itself, indexed by worker of the common fork-join pool, rather than by
+ * the threads, such that pool threads outliving a simulation (and its class loader, if isolated)
+ * keep no reference to it. Operations can thus only be made from the common pool workers and from
+ * a single other thread, the one running the simulation.
+ *
+ *************************************************************************************************/
+public class MarketIntake {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final Comparator<Operation> ORDER = (a, b) -> (a.key != b.key)
+            ? Integer.compare(a.key, b.key) : Integer.compare(a.position, b.position);
+
+    private boolean                                     lockFreeBids; // True to append bids to a single lock-free queue
+    private boolean                                     open; // True while operations are buffered (only changed while no other thread makes any)
+    private volatile Buffer[]                           buffers = new Buffer[0]; // Buffer of the simulation thread, then of each common pool worker
+    private ConcurrentLinkedQueue<Operation>            sharedBids = new ConcurrentLinkedQueue<>();
+    private ArrayList<Operation>                        merged = new ArrayList<>();
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param lockFreeBids True to append bids to a single lock-free queue shared by all threads, instead of to the
+     *                     buffer of the calling thread
+     */
+    MarketIntake(boolean lockFreeBids) { this.lockFreeBids = lockFreeBids; }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    private enum Kind { OFFER, REPRICE, WITHDRAWAL, BID }
+
+    /**
+     * Operation on a market, reused once applied if taken from a thread buffer
+     */
+    private static class Operation {
+        // Fields
+        Kind                kind;
+        HousingMarket       market;
+        int                 key; // Key of the agent making the operation
+        int                 position; // Position among the operations of that agent
+        HouseOfferRecord    offer;
+        Household           bidder;
+        double              price;
+        boolean             BTLBid;
+        // Methods
+        void apply() {
+            switch (kind) {
+                case OFFER:
+                    offer.assignId();
+                    market.listOffer(offer);
+                    break;
+                case REPRICE:
+                    market.changeOfferPrice(offer, price);
+                    break;
+                case WITHDRAWAL:
+                    market.withdrawOffer(offer);
+                    break;
+                case BID:
+                    market.addBid(bidder, price, BTLBid);
+                    break;
+            }
+            market = null;
+            offer = null;
+            bidder = null;
+        }
+    }
+
+    /**
+     * Buffer of operations of a single thread, with the key of the agent currently making operations on that thread
+     */
+    private static class Buffer {
+        // Fields
+        ArrayList<Operation>    operations = new ArrayList<>();
+        int                     size = 0; // Number of operations in use, the rest being kept for reuse
+        int                     key = 0;
+        int                     nextPosition = 0;
+        // Methods
+        Operation next(boolean shared) {
+            Operation operation;
+            if (shared) {
+                operation = new Operation();
+            } else if (size < operations.size()) {
+                operation = operations.get(size++);
+            } else {
+                operation = new Operation();
+                operations.add(operation);
+                size++;
+            }
+            operation.key = key;
+            operation.position = nextPosition++;
+            return operation;
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * @return Buffer of the calling thread, created upon its first use
+     */
+    private Buffer buffer() {
+        Thread thread = Thread.currentThread();
+        int index = 0;
+        if (thread instanceof ForkJoinWorkerThread
+                && ((ForkJoinWorkerThread)thread).getPool() == ForkJoinPool.commonPool()) {
+            index = ((ForkJoinWorkerThread)thread).getPoolIndex() + 1;
+        }
+        Buffer[] buffers = this.buffers;
+        if (index < buffers.length && buffers[index] != null) return buffers[index];
+        return newBuffer(index);
+    }
+
+    private synchronized Buffer newBuffer(int index) {
+        if (index < buffers.length && buffers[index] != null) return buffers[index];
+        Buffer[] newBuffers = Arrays.copyOf(buffers, Math.max(buffers.length, index + 1));
+        newBuffers[index] = new Buffer();
+        buffers = newBuffers;
+        return newBuffers[index];
+    }
+
+    /**
+     * Start buffering market operations. Must be called while no other thread makes any market operation
+     */
+    void open() { open = true; }
+
+    /**
+     * Stop buffering market operations, and apply all operations buffered since the last call to open, ordered by agent
+     * key and position. Must be called once all threads making market operations have finished
+     */
+    void close() {
+        open = false;
+        for (Buffer buffer : buffers) {
+            if (buffer == null) continue;
+            for (int i = 0; i < buffer.size; i++) merged.add(buffer.operations.get(i));
+            buffer.size = 0;
+            buffer.key = 0;
+            buffer.nextPosition = 0;
+        }
+        merged.addAll(sharedBids);
+        sharedBids.clear();
+        merged.sort(ORDER);
+        for (Operation operation : merged) operation.apply();
+        merged.clear();
+    }
+
+    /**
+     * @return True if market operations are being buffered
+     */
+    boolean isOpen() { return open; }
+
+    /**
+     * Set the key of the agent making the following market operations on the calling thread, which must be different
+     * for agents stepped on different threads, and in the order in which their operations are to be applied
+     *
+     * @param key Key of the agent, such as its position in the step order
+     */
+    void setAgent(int key) {
+        Buffer buffer = buffer();
+        buffer.key = key;
+        buffer.nextPosition = 0;
+    }
+
+    void offer(HousingMarket market, HouseOfferRecord offer) {
+        Operation operation = buffer().next(false);
+        operation.kind = Kind.OFFER;
+        operation.market = market;
+        operation.offer = offer;
+    }
+
+    void updateOffer(HousingMarket market, HouseOfferRecord offer, double newPrice) {
+        Operation operation = buffer().next(false);
+        operation.kind = Kind.REPRICE;
+        operation.market = market;
+        operation.offer = offer;
+        operation.price = newPrice;
+    }
+
+    void removeOffer(HousingMarket market, HouseOfferRecord offer) {
+        Operation operation = buffer().next(false);
+        operation.kind = Kind.WITHDRAWAL;
+        operation.market = market;
+        operation.offer = offer;
+    }
+
+    void bid(HousingMarket market, Household bidder, double price, boolean BTLBid) {
+        Operation operation = buffer().next(lockFreeBids);
+        operation.kind = Kind.BID;
+        operation.market = market;
+        operation.bidder = bidder;
+        operation.price = price;
+        operation.BTLBid = BTLBid;
+        if (lockFreeBids) sharedBids.add(operation);
+    }
+}
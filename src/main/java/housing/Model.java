@@ -1,14 +1,18 @@
 package housing;
 
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Properties;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
 import java.time.Instant;
 
 import collectors.*;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.FileUtils;
 
@@ -26,6 +30,22 @@ import org.apache.commons.io.FileUtils;
  *                      created if it does not exist.
  * -dev                 Removes security question before erasing the content inside output folder
  *                      (if the folder already exists).
+ * -parallel <arg>      Number of worker threads on which to run the config.N_SIMS simulations
+ *                      concurrently, each of them isolated from the others and seeded with
+ *                      SEED + run - 1. By default, simulations run one after another.
+ * -snapshotAt <arg>    Time step at the end of which to write a snapshot of the complete model
+ *                      state, to the file 'snapshot-run<n>-t<arg>.gz' in the output folder.
+ * -restore <arg>       Snapshot file from which to restore the complete model state and continue
+ *                      the simulation up to config.N_STEPS.
+ * -overlay <arg>       Properties file with configuration parameters to be changed when
+ *                      restoring a snapshot (only used together with -restore).
+ * -sweep <arg>         Sweep manifest file describing a parameter sweep over the fields of the
+ *                      configuration file, each job of which is written to its own sub-folder of
+ *                      the output folder (see ParameterSweep for the manifest format).
+ * -serve <arg>         Port (on the local host) on which to keep running as a server, accepting
+ *                      simulation jobs until told to shut down (see SimulationServer for the
+ *                      protocol). Jobs run on -parallel worker threads (by default, number of
+ *                      cores).
  * -help                Print input arguments usage information.
  *
  * Note that the seed for random number generation is set from the config file.
@@ -41,13 +61,15 @@ public class Model {
     //------------------//
 
     public static Config                config;
-    public static MersenneTwister       prng;
+    public static RandomGenerator       prng; // Generator shared by all parts of the model, unless streams are split
+    public static RandomStreams         randomStreams; // Provider of random number streams per subsystem and household
     public static Construction		    construction;
     public static CentralBank		    centralBank;
     public static Bank 				    bank;
     public static HouseSaleMarket       houseSaleMarket;
     public static HouseRentalMarket     houseRentalMarket;
     public static ArrayList<Household>  households;
+    public static HouseholdStore        householdStore; // Columns of numeric household state, with rows in list order
     public static CreditSupply          creditSupply;
     public static CoreIndicators        coreIndicators;
     public static HouseholdStats        householdStats;
@@ -63,10 +85,22 @@ public class Model {
 
     static Government		            government;
 
-    private static Demographics		    demographics;
+    static Demographics		            demographics;
+    static MarketIntake                 marketIntake; // Intake of household market operations (null if applied directly)
     private static Recorder             recorder;
     private static String               configFileName;
     private static String               outputFolder;
+    private static int                  nThreads; // Number of threads for running simulations concurrently (0 for serial)
+    private static String               sweepManifestFileName;
+    private static int                  serverPort = -1; // Port on which to accept simulation jobs (-1 for none)
+    private static int                  snapshotTime = -1; // Time step at which to write a snapshot (-1 for none)
+    private static String               snapshotFileName; // Snapshot from which to restore and continue (null for none)
+    private static String               overlayFileName; // Config overlay to apply to a restored snapshot (null for none)
+    private static boolean              isolated; // True if this simulation runs on its own fresh set of static fields
+    private static StepProfiler         stepProfiler; // Profiler of the phases of each time step (null if not requested)
+    private static ClearingTelemetry    saleClearingTelemetry; // Telemetry of the sale market clearing (null if not requested)
+    private static ClearingTelemetry    rentalClearingTelemetry; // Telemetry of the rental market clearing (null if not requested)
+    private static int[]                orderBookCaptureTimes = new int[0]; // Sorted time steps at which to capture order books
 
     //------------------------//
     //----- Constructors -----//
@@ -77,29 +111,42 @@ public class Model {
      * @param outputFolder String with the address of the folder for storing results
      */
     public Model(String configFileName, String outputFolder) {
-        config = new Config(configFileName);
-        prng = new MersenneTwister(config.SEED);
+        this(configFileName, null, outputFolder);
+    }
+
+    /**
+     * @param configFileName String with the address of the configuration file
+     * @param overlay Properties overriding those in the configuration file (null for none)
+     * @param outputFolder String with the address of the folder for storing results
+     */
+    public Model(String configFileName, Properties overlay, String outputFolder) {
+        config = new Config(configFileName, overlay);
+        randomStreams = new RandomStreams(config.randomGenerator, config.splitRandomStreams, config.SEED);
+        prng = randomStreams.getShared();
 
         government = new Government();
-        demographics = new Demographics(prng);
-        construction = new Construction(prng);
+        demographics = new Demographics(randomStreams.get(RandomStreams.Subsystem.DEMOGRAPHICS));
+        construction = new Construction(randomStreams.get(RandomStreams.Subsystem.CONSTRUCTION));
         centralBank = new CentralBank();
         bank = new Bank(centralBank);
         households = new ArrayList<>(config.TARGET_POPULATION*2);
-        houseSaleMarket = new HouseSaleMarket(prng);
-        houseRentalMarket = new HouseRentalMarket(prng);
+        householdStore = new HouseholdStore(config.TARGET_POPULATION*2);
+        houseSaleMarket = new HouseSaleMarket(randomStreams.get(RandomStreams.Subsystem.SALE_MARKET));
+        houseRentalMarket = new HouseRentalMarket(randomStreams.get(RandomStreams.Subsystem.RENTAL_MARKET));
+        if (config.marketIntake.equals("Direct")) {
+            marketIntake = null;
+        } else if (config.marketIntake.equals("ThreadBuffers") || config.marketIntake.equals("LockFreeBids")) {
+            marketIntake = new MarketIntake(config.marketIntake.equals("LockFreeBids"));
+        } else {
+            throw new IllegalArgumentException("Unrecognised market intake '" + config.marketIntake + "'");
+        }
 
-        recorder = new collectors.Recorder(outputFolder);
-        transactionRecorder = new TransactionRecorder(outputFolder);
-        offerAndBidRecorder = new OfferAndBidRecorder(outputFolder);
-        microDataRecorder = new MicroDataRecorder(outputFolder);
+        createRecorders(outputFolder);
         creditSupply = new collectors.CreditSupply();
         coreIndicators = new collectors.CoreIndicators();
         householdStats = new collectors.HouseholdStats();
         housingMarketStats = new collectors.HousingMarketStats(houseSaleMarket);
         rentalMarketStats = new collectors.RentalMarketStats(housingMarketStats, houseRentalMarket);
-        agentRecorder = new collectors.AgentDataRecorder(outputFolder);
-        agentDecisionRecorder = new collectors.AgentDecisionRecorder(outputFolder);
         
         nSimulation = 0;
     }
@@ -115,6 +162,37 @@ public class Model {
 	    // Handle input arguments from command line
         handleInputArguments(args);
 
+        // If requested, restore the model state from a snapshot and continue the simulation from there
+        if (snapshotFileName != null) {
+            continueFromSnapshot();
+            long elapsedTime = System.nanoTime() - start;
+            System.out.println("Computing time: " + (double)elapsedTime/1_000_000_000);
+            System.exit(0);
+        }
+
+        // If requested, keep running as a server accepting simulation jobs, until told to shut down
+        if (serverPort >= 0) {
+            new SimulationServer(serverPort, nThreads > 0 ? nThreads : Runtime.getRuntime().availableProcessors())
+                    .run();
+            System.exit(0);
+        }
+
+        // If requested, run a parameter sweep instead of the simulations of the config file
+        if (sweepManifestFileName != null) {
+            new ParameterSweep(sweepManifestFileName, configFileName, outputFolder).run();
+            long elapsedTime = System.nanoTime() - start;
+            System.out.println("Computing time: " + (double)elapsedTime/1_000_000_000);
+            System.exit(0);
+        }
+
+        // If requested, run the simulations concurrently, each of them in isolation, instead of one after another
+        if (nThreads > 0) {
+            new MonteCarloRunner(configFileName, outputFolder, nThreads).run();
+            long elapsedTime = System.nanoTime() - start;
+            System.out.println("Computing time: " + (double)elapsedTime/1_000_000_000);
+            System.exit(0);
+        }
+
         // Create an instance of Model in order to initialise it (reading config file)
         new Model(configFileName, outputFolder);
 
@@ -138,104 +216,282 @@ public class Model {
 //	        housingMarketStats = new collectors.HousingMarketStats(houseSaleMarket);
 //	        rentalMarketStats = new collectors.RentalMarketStats(housingMarketStats, houseRentalMarket);
 
+            runSimulation();
+		}
 
-            // For each simulation, open files for writing single-run results
-            recorder.openSingleRunFiles(nSimulation, config.recordOutfile, config.recordQualityBandPrice, config.N_QUALITY);
-            if (config.recordTransactions) { transactionRecorder.openSingleRunFiles(nSimulation); }
-            if (config.recordOffersAndBids) { offerAndBidRecorder.openSingleRunFiles(nSimulation); }
-            if (config.recordBankBalance || config.recordNHousesOwned 
-            		|| config.recordHousingWealth || config.recordSavingRate
-            		|| config.recordMonthlyGrossTotalIncome || config.recordMonthlyGrossEmploymentIncome
-            		|| config.recordMonthlyGrossRentalIncome || config.recordMonthlyDisposableIncome || config.recordMonthlyMortgagePayments
-            		|| config.recordDebt || config.recordConsumption || config.recordIncomeConsumption 
-            		|| config.recordFinancialWealthConsumption || config.recordHousingWealthConsumption
-            		|| config.recordDebtConsumption|| config.recordSavingForDeleveraging || config.recordBTL || config.recordFTB 
-            		||config.recordInFirstHome || config.recordAge || config.recordTransactionRevenue || config.recordId
-            		|| config.recordNewCredit || config.recordPrincipalRepRegular
-            		|| config.recordPrincipalRepIrregular || config.recordPrincipalRepSale
-            		|| config.recordBankcuptcyCashInjection || config.recordPrincipalPaidBackInheritance
-            		|| config.recordFinancialVulnerability || config.recordShockedMonthlyDisposableIncome
-            		) {
-                microDataRecorder.openSingleRunSingleVariableFiles(nSimulation, config.recordBankBalance,
-                        config.recordHousingWealth, config.recordNHousesOwned, config.recordSavingRate,
-                        config.recordMonthlyGrossTotalIncome, config.recordMonthlyGrossEmploymentIncome,
-                        config.recordMonthlyGrossRentalIncome, config.recordMonthlyDisposableIncome, config.recordMonthlyMortgagePayments,
-                        config.recordDebt, config.recordConsumption, config.recordIncomeConsumption, config.recordFinancialWealthConsumption,
-                        config.recordHousingWealthConsumption, config.recordDebtConsumption, config.recordSavingForDeleveraging,
-                		config.recordBTL, config.recordFTB, config.recordInFirstHome, config.recordAge, config.recordTransactionRevenue,
-                		config.recordId, config.recordNewCredit, config.recordPrincipalRepRegular,
-                		config.recordPrincipalRepIrregular, config.recordPrincipalRepSale, config.recordBankcuptcyCashInjection, 
-                		config.recordPrincipalPaidBackInheritance, config.recordFinancialVulnerability, 
-                		config.recordShockedMonthlyDisposableIncome
-                		);
-            }
-            
-            // For each simulation, open the AgentData files
-            if (config.recordAgentData) {agentRecorder.openNewFiles(nSimulation);}
-            
-            // For each simulation, open the agentDecisionRecorder files
-            if (config.recordAgentDecisions) { agentDecisionRecorder.openNewFiles(nSimulation);}
-
-		    // For each simulation, initialise both houseSaleMarket and houseRentalMarket variables (including HPI)
+        // After the last simulation, clean up
+        recorder.finish(config.recordCoreIndicators);
+        //clean up agentRecorder
+        if(config.recordAgentData) {agentRecorder.finish();}
+        if(config.recordAgentDecisions) {agentDecisionRecorder.finish();}
+
+        long elapsedTime = System.nanoTime() - start;
+        System.out.println("Computing time: " + (double)elapsedTime/1_000_000_000);
+
+        //Stop the program when finished
+		System.exit(0);
+	}
+
+    /**
+     * Run a single simulation, with number nSimulation, from initialisation to the last time step, opening and closing
+     * its single-run files and writing its line to the multi-run files
+     */
+    private static void runSimulation() {
+        // For each simulation, open files for writing single-run results
+        openSingleRunFiles();
+
+        if (BurnInCache.isApplicable(isolated || nSimulation == 1)) {
+            // If requested, take the burn-in period from the cache (or run and store it), and run the remaining steps
+            BurnInCache.runBurnIn();
+            setMarketEventListeners();
+            runSteps(config.TIME_TO_START_RECORDING, config.N_STEPS);
+        } else {
+            // For each simulation, initialise both houseSaleMarket and houseRentalMarket variables (including HPI)
             init();
+            setMarketEventListeners();
 
             // For each simulation, run config.N_STEPS time steps
-			for (t = 0; t <= config.N_STEPS; t += 1) {
-				
-                // Steps model and stores sale and rental markets bid and offer prices, and their averages, into their
-                // respective variables
-                modelStep();
+            runSteps(0, config.N_STEPS);
+        }
 
-                if (t >= config.TIME_TO_START_RECORDING) {
-                    //write results of every agent's variable x into the file 
-                    //(this is only provisional, as it only writes one type of data)
-                    if(config.recordAgentData) {agentRecorder.recordAgentData();}
-                    // Write results of this time step and run to both multi- and single-run files
-                    recorder.writeTimeStampResults(config.recordOutfile, config.recordCoreIndicators, t, config.recordQualityBandPrice);
+        // Finish each simulation within the recorders (closing single-run files, changing line in multi-run files)
+        finishSingleRunFiles();
+    }
 
+    /**
+     * Open the single-run files for simulation number nSimulation
+     */
+    private static void openSingleRunFiles() {
+        recorder.openSingleRunFiles(nSimulation, config.recordOutfile, config.recordQualityBandPrice, config.N_QUALITY);
+        if (config.recordTransactions) { transactionRecorder.openSingleRunFiles(nSimulation); }
+        if (config.recordOffersAndBids) { offerAndBidRecorder.openSingleRunFiles(nSimulation); }
+        if (config.recordBankBalance || config.recordNHousesOwned 
+        		|| config.recordHousingWealth || config.recordSavingRate
+        		|| config.recordMonthlyGrossTotalIncome || config.recordMonthlyGrossEmploymentIncome
+        		|| config.recordMonthlyGrossRentalIncome || config.recordMonthlyDisposableIncome || config.recordMonthlyMortgagePayments
+        		|| config.recordDebt || config.recordConsumption || config.recordIncomeConsumption 
+        		|| config.recordFinancialWealthConsumption || config.recordHousingWealthConsumption
+        		|| config.recordDebtConsumption|| config.recordSavingForDeleveraging || config.recordBTL || config.recordFTB 
+        		||config.recordInFirstHome || config.recordAge || config.recordTransactionRevenue || config.recordId
+        		|| config.recordNewCredit || config.recordPrincipalRepRegular
+        		|| config.recordPrincipalRepIrregular || config.recordPrincipalRepSale
+        		|| config.recordBankcuptcyCashInjection || config.recordPrincipalPaidBackInheritance
+        		|| config.recordFinancialVulnerability || config.recordShockedMonthlyDisposableIncome
+        		) {
+            microDataRecorder.openSingleRunSingleVariableFiles(nSimulation, config.recordBankBalance,
+                    config.recordHousingWealth, config.recordNHousesOwned, config.recordSavingRate,
+                    config.recordMonthlyGrossTotalIncome, config.recordMonthlyGrossEmploymentIncome,
+                    config.recordMonthlyGrossRentalIncome, config.recordMonthlyDisposableIncome, config.recordMonthlyMortgagePayments,
+                    config.recordDebt, config.recordConsumption, config.recordIncomeConsumption, config.recordFinancialWealthConsumption,
+                    config.recordHousingWealthConsumption, config.recordDebtConsumption, config.recordSavingForDeleveraging,
+            		config.recordBTL, config.recordFTB, config.recordInFirstHome, config.recordAge, config.recordTransactionRevenue,
+            		config.recordId, config.recordNewCredit, config.recordPrincipalRepRegular,
+            		config.recordPrincipalRepIrregular, config.recordPrincipalRepSale, config.recordBankcuptcyCashInjection, 
+            		config.recordPrincipalPaidBackInheritance, config.recordFinancialVulnerability, 
+            		config.recordShockedMonthlyDisposableIncome
+            		);
+        }
+        
+        // For each simulation, open the AgentData files
+        if (config.recordAgentData) {agentRecorder.openNewFiles(nSimulation);}
+        
+        // For each simulation, open the agentDecisionRecorder files
+        if (config.recordAgentDecisions) { agentDecisionRecorder.openNewFiles(nSimulation);}
+
+        // For each simulation, if requested, create a profiler for the phases of each time step
+        if (config.recordStepProfile) { stepProfiler = new StepProfiler(outputFolder, nSimulation, !isolated); }
+
+        // For each simulation, if requested, create the collectors of telemetry on the clearing of both markets
+        if (config.recordClearingTelemetry) {
+            saleClearingTelemetry = new ClearingTelemetry(outputFolder, "Sale", nSimulation);
+            rentalClearingTelemetry = new ClearingTelemetry(outputFolder, "Rental", nSimulation);
+        }
+
+        // For each simulation, read the time steps at which to capture the order books of both markets, if any
+        orderBookCaptureTimes = Arrays.stream(config.recordOrderBooksAt.split(",")).map(String::trim)
+                .filter(time -> !time.isEmpty()).mapToInt(Integer::parseInt).sorted().toArray();
+    }
+
+    /**
+     * Register the listeners of the events of both markets requested for this simulation, which needs to be done once
+     * the markets are in place, as listeners are not kept in snapshots
+     */
+    private static void setMarketEventListeners() {
+        ArrayList<MarketEventListener> listeners = new ArrayList<>();
+        if (config.recordOffersAndBids) listeners.add(offerAndBidRecorder);
+        houseSaleMarket.setEventListeners(listeners.toArray(new MarketEventListener[0]));
+        houseRentalMarket.setEventListeners(listeners.toArray(new MarketEventListener[0]));
+        houseSaleMarket.setClearingTelemetry(saleClearingTelemetry);
+        houseRentalMarket.setClearingTelemetry(rentalClearingTelemetry);
+    }
+
+    /**
+     * Run time steps, from firstStep to lastStep, recording results as requested
+     *
+     * @param firstStep First time step to run
+     * @param lastStep Last time step to run
+     */
+    static void runSteps(int firstStep, int lastStep) {
+        // Run time steps up to lastStep
+        for (t = firstStep; t <= lastStep; t += 1) {
+
+            // If requested, start timing the phases of this time step
+            if (stepProfiler != null) stepProfiler.startStep();
+
+            // Steps model and stores sale and rental markets bid and offer prices, and their averages, into their
+            // respective variables
+            modelStep();
+
+            if (t >= config.TIME_TO_START_RECORDING) {
+                //write results of every agent's variable x into the file 
+                //(this is only provisional, as it only writes one type of data)
+                if(config.recordAgentData) {agentRecorder.recordAgentData();}
+                // Write results of this time step and run to both multi- and single-run files
+                recorder.writeTimeStampResults(config.recordOutfile, config.recordCoreIndicators, t, config.recordQualityBandPrice);
 
-                }
 
-                // Print time information to screen
-                if (t % 100 == 0) {
-                    System.out.println("Simulation: " + nSimulation + ", time: " + t);
-                }
             }
 
-			// Finish each simulation within the recorders (closing single-run files, changing line in multi-run files)
-            recorder.finishRun(config.recordOutfile, config.recordCoreIndicators, config.recordQualityBandPrice);
-            if (config.recordTransactions) transactionRecorder.finishRun();
-            if (config.recordOffersAndBids) offerAndBidRecorder.finishRun();
-            if (config.recordBankBalance || config.recordNHousesOwned) {
-                microDataRecorder.finishRun(config.recordBankBalance, config.recordHousingWealth,
-                        config.recordNHousesOwned, config.recordSavingRate, config.recordMonthlyGrossTotalIncome,
-                        config.recordMonthlyGrossEmploymentIncome, config.recordMonthlyGrossRentalIncome,
-                        config.recordMonthlyDisposableIncome, config.recordMonthlyMortgagePayments,
-                        config.recordDebt, config.recordConsumption, config.recordIncomeConsumption, 
-                        config.recordFinancialWealthConsumption, config.recordHousingWealthConsumption, 
-                        config.recordDebtConsumption, config.recordSavingForDeleveraging, config.recordBTL,
-                        config.recordFTB, config.recordInFirstHome, config.recordAge, config.recordTransactionRevenue,
-                        config.recordId, config.recordNewCredit, config.recordPrincipalRepRegular,
-                        config.recordPrincipalRepIrregular, config.recordPrincipalRepSale,
-                        config.recordBankcuptcyCashInjection, config.recordPrincipalPaidBackInheritance,
-                        config.recordFinancialVulnerability, config.recordShockedMonthlyDisposableIncome);
+            // If requested, finish timing this time step, with the recording of results as its last phase
+            if (stepProfiler != null) {
+                stepProfiler.lap(StepProfiler.Phase.RECORDING);
+                stepProfiler.endStep(t);
             }
-		}
 
-        // After the last simulation, clean up
+            // If requested, write a snapshot of the complete model state at the end of this time step
+            if (t == snapshotTime) {
+                ModelSnapshot.save(outputFolder + "snapshot-run" + nSimulation + "-t" + t + ".gz");
+            }
+
+            // Print time information to screen
+            if (t % 100 == 0) {
+                System.out.println("Simulation: " + nSimulation + ", time: " + t);
+            }
+
+            // Stop if the thread running this simulation has been interrupted, i.e., if its job has been cancelled
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Simulation " + nSimulation + " cancelled at time " + t);
+            }
+        }
+    }
+
+    /**
+     * Finish simulation number nSimulation within the recorders, closing single-run files and changing line in
+     * multi-run files
+     */
+    private static void finishSingleRunFiles() {
+        if (stepProfiler != null) {
+            stepProfiler.finishRun();
+            stepProfiler = null;
+        }
+        if (saleClearingTelemetry != null) {
+            saleClearingTelemetry.finishRun();
+            rentalClearingTelemetry.finishRun();
+            saleClearingTelemetry = null;
+            rentalClearingTelemetry = null;
+        }
+        recorder.finishRun(config.recordOutfile, config.recordCoreIndicators, config.recordQualityBandPrice);
+        if (config.recordTransactions) transactionRecorder.finishRun();
+        if (config.recordOffersAndBids) offerAndBidRecorder.finishRun();
+        if (config.recordBankBalance || config.recordNHousesOwned) {
+            microDataRecorder.finishRun(config.recordBankBalance, config.recordHousingWealth,
+                    config.recordNHousesOwned, config.recordSavingRate, config.recordMonthlyGrossTotalIncome,
+                    config.recordMonthlyGrossEmploymentIncome, config.recordMonthlyGrossRentalIncome,
+                    config.recordMonthlyDisposableIncome, config.recordMonthlyMortgagePayments,
+                    config.recordDebt, config.recordConsumption, config.recordIncomeConsumption, 
+                    config.recordFinancialWealthConsumption, config.recordHousingWealthConsumption, 
+                    config.recordDebtConsumption, config.recordSavingForDeleveraging, config.recordBTL,
+                    config.recordFTB, config.recordInFirstHome, config.recordAge, config.recordTransactionRevenue,
+                    config.recordId, config.recordNewCredit, config.recordPrincipalRepRegular,
+                    config.recordPrincipalRepIrregular, config.recordPrincipalRepSale,
+                    config.recordBankcuptcyCashInjection, config.recordPrincipalPaidBackInheritance,
+                    config.recordFinancialVulnerability, config.recordShockedMonthlyDisposableIncome);
+        }
+    }
+
+    /**
+     * Entry point for running a single simulation in isolation, i.e., with its own fresh set of static model fields.
+     * This method is meant to be called reflectively by MonteCarloRunner on a copy of this class loaded by an
+     * IsolatingClassLoader, such that several simulations can run concurrently within the same JVM. The seed is derived
+     * deterministically from the run number as SEED + nSim - 1 (thus the first run uses the seed in the config file).
+     * Single-run results are written to outputFolder, while multi-run (core indicator) results are written to
+     * multiRunFolder, to be merged afterwards in run order.
+     *
+     * @param configFileName String with the address of the configuration file
+     * @param overlay Properties overriding those in the configuration file (null for none)
+     * @param outputFolder String with the address of the folder for storing single-run results
+     * @param multiRunFolder String with the address of the folder for storing this run's multi-run results
+     * @param nSim Number of this simulation
+     */
+    public static void runIsolatedSimulation(String configFileName, Properties overlay, String outputFolder,
+                                             String multiRunFolder, int nSim) {
+        new Model(configFileName, overlay, outputFolder);
+        config.setSeed(config.SEED + nSim - 1);
+        randomStreams.setSeed(config.SEED);
+        recorder.openMultiRunFiles(config.recordCoreIndicators, multiRunFolder);
+        nSimulation = nSim;
+        isolated = true;
+        runSimulation();
         recorder.finish(config.recordCoreIndicators);
-        //clean up agentRecorder
         if(config.recordAgentData) {agentRecorder.finish();}
         if(config.recordAgentDecisions) {agentDecisionRecorder.finish();}
+    }
 
-        long elapsedTime = System.nanoTime() - start;
-        System.out.println("Computing time: " + (double)elapsedTime/1_000_000_000);
+    /**
+     * Restore the complete model state from the snapshot file, apply the overlay file (if any) to the restored
+     * configuration, and continue the simulation from the time step following the snapshot up to config.N_STEPS,
+     * writing results to the output folder
+     */
+    private static void continueFromSnapshot() {
+        Properties overlay = null;
+        if (overlayFileName != null) {
+            overlay = new Properties();
+            try (FileReader fileReader = new FileReader(overlayFileName)) {
+                overlay.load(fileReader);
+            } catch (IOException ioe) {
+                System.out.println("Exception " + ioe + " while trying to read file '" + overlayFileName + "'");
+                ioe.printStackTrace();
+            }
+        }
+        ModelSnapshot.restore(snapshotFileName, overlay);
+        // The overlay may select other order books, which return the same matches as those the snapshot was written with
+        rebuildOfferBooks(config.saleOfferBook, config.saleYieldOfferBook, config.rentalOfferBook);
+        createRecorders(outputFolder);
+        recorder.openMultiRunFiles(config.recordCoreIndicators);
+        openSingleRunFiles();
+        setMarketEventListeners();
+        runSteps(t + 1, config.N_STEPS);
+        finishSingleRunFiles();
+        recorder.finish(config.recordCoreIndicators);
+        if(config.recordAgentData) {agentRecorder.finish();}
+        if(config.recordAgentDecisions) {agentDecisionRecorder.finish();}
+    }
 
-        //Stop the program when finished
-		System.exit(0);
-	}
+    /**
+     * Move the offers of both markets into new order books of the given kinds, which return the same matches as any
+     * other kind, such as after restoring a model state
+     */
+    static void rebuildOfferBooks(String saleOfferBook, String saleYieldOfferBook, String rentalOfferBook) {
+        houseSaleMarket.rebuildOfferBooks(saleOfferBook);
+        houseSaleMarket.rebuildYieldOfferBook(saleYieldOfferBook);
+        houseRentalMarket.rebuildOfferBooks(rentalOfferBook);
+    }
+
+    /**
+     * Create all recorders writing results to files, which are not part of the model state
+     *
+     * @param outputFolder String with the address of the folder for storing results
+     */
+    private static void createRecorders(String outputFolder) {
+        recorder = new collectors.Recorder(outputFolder);
+        transactionRecorder = new TransactionRecorder(outputFolder);
+        offerAndBidRecorder = new OfferAndBidRecorder(outputFolder);
+        microDataRecorder = new MicroDataRecorder(outputFolder);
+        agentRecorder = new collectors.AgentDataRecorder(outputFolder);
+        agentDecisionRecorder = new collectors.AgentDecisionRecorder(outputFolder);
+    }
 
-	private static void init() {
+	static void init() {
 		construction.init();
 		houseSaleMarket.init();
 		houseRentalMarket.init();
@@ -245,37 +501,86 @@ public class Model {
         rentalMarketStats.init();
         householdStats.init();
         households.clear();
+        householdStore.clear();
 	}
 
 	private static void modelStep() {
+        StepProfiler profiler = stepProfiler;
+        boolean captureOrderBooks = orderBookCaptureTimes.length > 0
+                && Arrays.binarySearch(orderBookCaptureTimes, t) >= 0;
         // Update population with births and deaths
         demographics.step();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.DEMOGRAPHICS);
         // Update number of houses
         construction.step();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.CONSTRUCTION);
         // Updates regional households consumption, housing decisions, and corresponding regional bids and offers
-		for(Household h : households) h.step();
+        stepHouseholds();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.HOUSEHOLDS);
         // Stores sale market bid and offer prices and averages before bids are matched by clearing the market
         housingMarketStats.preClearingRecord();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.SALE_PRE_CLEARING);
+        // If requested, captures the sale market order books for replay, just before clearing them
+        if (captureOrderBooks) {
+            OrderBookFixture.capture(houseSaleMarket, OrderBookFixture.getFileName(outputFolder, houseSaleMarket,
+                    nSimulation, t));
+        }
         // Clears sale market and updates the HPI
         houseSaleMarket.clearMarket();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.SALE_CLEARING);
         // Computes and stores several housing market statistics after bids are matched by clearing the market (such as HPI, HPA)
         housingMarketStats.postClearingRecord();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.SALE_POST_CLEARING);
         // Stores rental market bid and offer prices and averages before bids are matched by clearing the market
         rentalMarketStats.preClearingRecord();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.RENTAL_PRE_CLEARING);
+        // If requested, captures the rental market order books for replay, just before clearing them
+        if (captureOrderBooks) {
+            OrderBookFixture.capture(houseRentalMarket, OrderBookFixture.getFileName(outputFolder, houseRentalMarket,
+                    nSimulation, t));
+        }
         // Clears rental market
         houseRentalMarket.clearMarket();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.RENTAL_CLEARING);
         // Computes and stores several rental market statistics after bids are matched by clearing the market (such as HPI, HPA)
         rentalMarketStats.postClearingRecord();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.RENTAL_POST_CLEARING);
         // Stores household statistics after both regional markets have been cleared
         householdStats.record();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.HOUSEHOLD_STATS);
         // Update credit supply statistics
         creditSupply.step();
+        if (profiler != null) profiler.lap(StepProfiler.Phase.CREDIT_SUPPLY);
 		// Update bank and interest rate for new mortgages
 		bank.step(Model.households.size());
+        if (profiler != null) profiler.lap(StepProfiler.Phase.BANK);
         // Update central bank policies (currently empty!)
 		centralBank.step(coreIndicators);
+        if (profiler != null) profiler.lap(StepProfiler.Phase.CENTRAL_BANK);
 	}
 
+    /**
+     * Run the household step, in which households issue their bids and offers, taking these in through the market
+     * intake, if any, keyed by household order, and then apply the price changes of offers made by construction and
+     * households, if deferred to be applied in bulk. Also used by the benchmarks, such that they time the same step
+     */
+    static void stepHouseholds() {
+        if (marketIntake != null) marketIntake.open();
+        if (config.parallelHouseholdStep) {
+            Household.stepInTwoPhases(households);
+        } else if (marketIntake != null) {
+            for (int i = 0; i < households.size(); i++) {
+                marketIntake.setAgent(i);
+                households.get(i).step();
+            }
+        } else {
+            for(Household h : households) h.step();
+        }
+        if (marketIntake != null) marketIntake.close();
+        houseSaleMarket.applyRepricing();
+        houseRentalMarket.applyRepricing();
+    }
+
     /**
      * This method handles command line input arguments to
      * determine the address of the input config file and
@@ -296,6 +601,20 @@ public class Model {
                 "folder will be created if it does not exist.");
         options.addOption("dev", false, "Removes security question before erasing the content" +
                 "inside output folder (if the folder already exists).");
+        options.addOption("parallel", true, "Number of worker threads on which to run the config.N_SIMS " +
+                "simulations concurrently, each of them isolated from the others and seeded with SEED + run - 1. By " +
+                "default, simulations run one after another.");
+        options.addOption("snapshotAt", true, "Time step at the end of which to write a snapshot of the " +
+                "complete model state, to the file 'snapshot-run<n>-t<arg>.gz' in the output folder.");
+        options.addOption("restore", true, "Snapshot file from which to restore the complete model state and " +
+                "continue the simulation up to config.N_STEPS.");
+        options.addOption("overlay", true, "Properties file with configuration parameters to be changed when " +
+                "restoring a snapshot (only used together with -restore).");
+        options.addOption("sweep", true, "Sweep manifest file describing a parameter sweep over the " +
+                "fields of the configuration file, each job of which is written to its own sub-folder of the output " +
+                "folder.");
+        options.addOption("serve", true, "Port on which to keep running as a server, accepting simulation jobs " +
+                "over a local socket until told to shut down.");
         options.addOption("help", false, "Print input arguments usage information.");
 
         // Create help formatter in case it will be needed
@@ -337,6 +656,32 @@ public class Model {
                 // If not, use the default value to initialise the respective member variable
                 outputFolder = "Results/" + Instant.now().toString().replace(":", "-") + "/";
             }
+            // Check if parallel argument has been passed
+            if(cmd.hasOption("parallel")) {
+                // If it has, then use its value to set the number of worker threads
+                nThreads = Integer.parseInt(cmd.getOptionValue("parallel"));
+            }
+            // Check if snapshotAt argument has been passed
+            if(cmd.hasOption("snapshotAt")) {
+                // If it has, then use its value as the time step at which to write a snapshot
+                snapshotTime = Integer.parseInt(cmd.getOptionValue("snapshotAt"));
+            }
+            // Check if restore argument has been passed
+            if(cmd.hasOption("restore")) {
+                // If it has, then use its values as the addresses of the snapshot and (optional) overlay files
+                snapshotFileName = cmd.getOptionValue("restore");
+                overlayFileName = cmd.getOptionValue("overlay");
+            }
+            // Check if sweep argument has been passed
+            if(cmd.hasOption("sweep")) {
+                // If it has, then use its value as the address of the sweep manifest file
+                sweepManifestFileName = cmd.getOptionValue("sweep");
+            }
+            // Check if serve argument has been passed
+            if(cmd.hasOption("serve")) {
+                // If it has, then use its value as the port on which to accept simulation jobs
+                serverPort = Integer.parseInt(cmd.getOptionValue("serve"));
+            }
         }
         catch(ParseException pex) {
             // Catch possible parsing errors
@@ -345,6 +690,9 @@ public class Model {
             formatter.printHelp( "spatial-housing-model", options );
         }
 
+        // In server mode, every job comes with its own output folder, so there is nothing else to prepare
+        if (serverPort >= 0) return;
+
         // Check if outputFolder directory already exists
         File f = new File(outputFolder);
         if (f.exists() && !devBoolean) {
@@ -370,9 +718,13 @@ public class Model {
             f.mkdirs();
         }
 
-        // Copy config file to output folder
+        // Copy config file (or, when restoring a snapshot, the overlay file, if any) to output folder
         try {
-            FileUtils.copyFileToDirectory(new File(configFileName), new File(outputFolder));
+            if (snapshotFileName == null) {
+                FileUtils.copyFileToDirectory(new File(configFileName), new File(outputFolder));
+            } else if (overlayFileName != null) {
+                FileUtils.copyFileToDirectory(new File(overlayFileName), new File(outputFolder));
+            }
         } catch (IOException ioe) {
             System.err.println("Copying config file to output folder failed. Reason: " + ioe.getMessage());
         }
@@ -388,5 +740,5 @@ public class Model {
      */
 	static public int getMonth() { return t%12 + 1; }
 
-    public MersenneTwister getPrng() { return prng; }
+    public RandomGenerator getPrng() { return prng; }
 }
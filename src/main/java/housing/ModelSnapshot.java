@@ -0,0 +1,230 @@
+package housing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import collectors.*;
+
+/**************************************************************************************************
+ * Class to write the complete model state to a compressed binary snapshot file, and to restore it
+ * from such a file, so that several scenarios can continue from the same warmed-up state instead
+ * of each of them repeating the burn-in period. The state includes the configuration, the random
+ * number streams, all agents (households with their columnar store, houses and their agreements,
+ * bank, central bank, construction sector), both markets with their order books, all statistics
+ * collectors, the time and the id counters. Recorders writing to files are not part of the state,
+ * and are to be created anew after restoring.
+ *
+ * Snapshots use Java serialization, and are thus only meant to be restored by the same version of
+ * the model that wrote them, though every class in the state declares its serialVersionUID, such
+ * that recompiling does not break them. Restoring must happen in a fresh JVM (or
+ * IsolatingClassLoader), as some classes (e.g., HouseholdBehaviour, data tables) initialise static
+ * fields from Model.config upon first use, which must thus happen after these have been restored.
+ * A digest of a stored state, ignoring the configuration, can also be computed, in order to
+ * compare two states.
+ *
+ *************************************************************************************************/
+public class ModelSnapshot {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String     HEADER = "housing-model-snapshot";
+    private static final long       STACK_SIZE = 1L << 30; // Stack size for (de)serializing the deep agents graph
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Write the complete model state to a snapshot file
+     *
+     * @param fileName String with the address of the snapshot file to be written
+     * @throws UncheckedIOException If the snapshot could not be completely written, in which case the file may be
+     *                              partially written
+     */
+    static void save(String fileName) {
+        runWithLargeStack(() -> {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+                    new FileOutputStream(fileName))))) {
+                out.writeUTF(HEADER);
+                // Configuration and random number streams are written first, so that they can be set before any
+                // class depending on them is initialised during restoring
+                out.writeObject(Model.config);
+                out.writeObject(Model.randomStreams);
+                out.writeInt(Model.nSimulation);
+                out.writeInt(Model.t);
+                out.writeInt(House.getIdPool());
+                out.writeInt(Household.id_pool);
+                out.writeInt(HousingMarketRecord.getIdPool());
+                // All other model objects are written at once, in order to preserve references among them
+                out.writeObject(getAgents());
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Could not write snapshot '" + fileName + "'", ioe);
+            }
+        });
+        System.out.println("Snapshot written to " + fileName);
+    }
+
+    /**
+     * Restore the complete model state from a snapshot file into the static fields of Model
+     *
+     * @param fileName String with the address of the snapshot file to be read
+     * @param overlay Properties to be applied to the restored configuration (null for none)
+     */
+    static void restore(String fileName, Properties overlay) {
+        restore(fileName, (Consumer<Config>)restoredConfig -> {
+            if (overlay != null) restoredConfig.applyOverlay(overlay);
+        });
+    }
+
+    /**
+     * Restore the complete model state from a snapshot file into the static fields of Model
+     *
+     * @param fileName String with the address of the snapshot file to be read
+     * @param configUpdate Update to be applied to the restored configuration before reading the rest of the snapshot
+     */
+    @SuppressWarnings("unchecked")
+    static void restore(String fileName, Consumer<Config> configUpdate) {
+        runWithLargeStack(() -> {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(
+                    new FileInputStream(fileName))))) {
+                if (!in.readUTF().equals(HEADER)) {
+                    throw new IOException("File '" + fileName + "' is not a model snapshot");
+                }
+                // Update the configuration before anything else is read, so that any class initialised while reading
+                // the rest of the snapshot already sees the new configuration
+                Model.config = (Config)in.readObject();
+                configUpdate.accept(Model.config);
+                Model.randomStreams = (RandomStreams)in.readObject();
+                Model.prng = Model.randomStreams.getShared();
+                Model.nSimulation = in.readInt();
+                Model.t = in.readInt();
+                House.setIdPool(in.readInt());
+                Household.id_pool = in.readInt();
+                HousingMarketRecord.setIdPool(in.readInt());
+                Object[] state = (Object[])in.readObject();
+                Model.government = (Government)state[0];
+                Model.demographics = (Demographics)state[1];
+                Model.construction = (Construction)state[2];
+                Model.centralBank = (CentralBank)state[3];
+                Model.bank = (Bank)state[4];
+                Model.houseSaleMarket = (HouseSaleMarket)state[5];
+                Model.houseRentalMarket = (HouseRentalMarket)state[6];
+                Model.households = (ArrayList<Household>)state[7];
+                Model.creditSupply = (CreditSupply)state[8];
+                Model.coreIndicators = (CoreIndicators)state[9];
+                Model.householdStats = (HouseholdStats)state[10];
+                Model.housingMarketStats = (HousingMarketStats)state[11];
+                Model.rentalMarketStats = (RentalMarketStats)state[12];
+                Model.householdStore = (HouseholdStore)state[13];
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException("Could not restore snapshot '" + fileName + "'", e);
+            }
+        });
+        System.out.println("Snapshot restored from " + fileName + " at time " + Model.t);
+    }
+
+    /**
+     * Compute a digest of the model state stored in a snapshot file, excluding the configuration and the simulation
+     * number, such that two states reached by the same dynamics compare equal regardless of their output-related
+     * parameters. The current model state is not changed. Note that only states read from snapshot files are to be
+     * compared, as the serialized form of some collections (e.g., the capacity of hash sets) depends on their history
+     *
+     * @param fileName String with the address of the snapshot file to be read
+     * @return SHA-256 digest of the stored model state
+     */
+    static byte[] digest(String fileName) {
+        byte[][] digest = new byte[1][];
+        runWithLargeStack(() -> {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(
+                    new FileInputStream(fileName))))) {
+                if (!in.readUTF().equals(HEADER)) {
+                    throw new IOException("File '" + fileName + "' is not a model snapshot");
+                }
+                in.readObject(); // Configuration
+                Object randomStreams = in.readObject();
+                in.readInt(); // Simulation number
+                digest[0] = digestState(randomStreams, in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readObject());
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException("Could not read snapshot '" + fileName + "'", e);
+            }
+        });
+        return digest[0];
+    }
+
+    /**
+     * Serialize the given state into a SHA-256 digest, replacing every reference to a Config instance by a marker
+     */
+    private static byte[] digestState(Object randomStreams, int t, int houseIdPool, int householdIdPool, int recordIdPool,
+                                      Object agents) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            try (ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(
+                    NullOutputStream.NULL_OUTPUT_STREAM, messageDigest)) {
+                { enableReplaceObject(true); }
+                @Override
+                protected Object replaceObject(Object obj) { return (obj instanceof Config) ? "config" : obj; }
+            }) {
+                out.writeObject(randomStreams);
+                out.writeInt(t);
+                out.writeInt(houseIdPool);
+                out.writeInt(householdIdPool);
+                out.writeInt(recordIdPool);
+                out.writeObject(agents);
+            }
+            return messageDigest.digest();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not compute digest of the model state", e);
+        }
+    }
+
+    /**
+     * @return Array with all model objects forming the state, other than configuration and random number streams
+     */
+    private static Object[] getAgents() {
+        return new Object[] {Model.government, Model.demographics, Model.construction, Model.centralBank, Model.bank,
+                Model.houseSaleMarket, Model.houseRentalMarket, Model.households, Model.creditSupply,
+                Model.coreIndicators, Model.householdStats, Model.housingMarketStats, Model.rentalMarketStats,
+                Model.householdStore};
+    }
+
+    /**
+     * Run a task on a separate thread with a large stack, as the default recursive (de)serialization of the agents
+     * graph (households linked through houses, agreements and market records) can go very deep for large populations
+     */
+    private static void runWithLargeStack(Runnable task) {
+        RuntimeException[] failure = new RuntimeException[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failure[0] = e;
+            }
+        }, "snapshot", STACK_SIZE);
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure[0] != null) throw failure[0];
+    }
+}
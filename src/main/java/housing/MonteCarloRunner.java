@@ -0,0 +1,184 @@
+package housing;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+
+/**************************************************************************************************
+ * Class to run the config.N_SIMS simulations of a configuration file concurrently on a pool of
+ * worker threads. Each simulation runs on its own copy of the model classes, loaded by its own
+ * IsolatingClassLoader, and thus with its own model state, its own recorders and its own seed,
+ * derived deterministically as SEED + run - 1. Single-run files are written directly to the
+ * output folder, as their names already contain the run number, while multi-run (core indicator)
+ * files are written by each run to a temporary sub-folder and merged, in run order, at the end.
+ *
+ *************************************************************************************************/
+public class MonteCarloRunner {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private String      configFileName;
+    private Properties  overlay;
+    private String      outputFolder;
+    private int         nThreads;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param configFileName String with the address of the configuration file
+     * @param outputFolder String with the address of the folder for storing results (ending with "/")
+     * @param nThreads Number of worker threads on which to run simulations
+     */
+    public MonteCarloRunner(String configFileName, String outputFolder, int nThreads) {
+        this(configFileName, null, outputFolder, nThreads);
+    }
+
+    /**
+     * @param configFileName String with the address of the configuration file
+     * @param overlay Properties overriding those in the configuration file (null for none)
+     * @param outputFolder String with the address of the folder for storing results (ending with "/")
+     * @param nThreads Number of worker threads on which to run simulations
+     */
+    public MonteCarloRunner(String configFileName, Properties overlay, String outputFolder, int nThreads) {
+        this.configFileName = configFileName;
+        this.overlay = overlay;
+        this.outputFolder = outputFolder;
+        this.nThreads = nThreads;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Run all simulations, wait for them to finish and merge their multi-run files
+     */
+    public void run() {
+        int nSims = new Config(configFileName, overlay).N_SIMS;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(nThreads, nSims));
+        ArrayList<Future<?>> futures = new ArrayList<>(nSims);
+        for (int nSim = 1; nSim <= nSims; nSim++) {
+            final int run = nSim;
+            futures.add(pool.submit(() -> runIsolated(configFileName, overlay, outputFolder,
+                    getMultiRunFolder(outputFolder, run), run)));
+        }
+        pool.shutdown();
+        // Wait for all simulations, in run order, reporting (but not stopping at) any failed one
+        for (int nSim = 1; nSim <= nSims; nSim++) {
+            try {
+                futures.get(nSim - 1).get();
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println("Strange: simulation " + nSim + " did not finish properly");
+                e.printStackTrace();
+            }
+        }
+        mergeMultiRunFiles(outputFolder, nSims);
+    }
+
+    /**
+     * Run a single simulation on a fresh IsolatingClassLoader, by reflectively calling Model.runIsolatedSimulation
+     *
+     * @param configFileName String with the address of the configuration file
+     * @param overlay Properties overriding those in the configuration file (null for none)
+     * @param outputFolder String with the address of the folder for storing single-run results
+     * @param multiRunFolder String with the address of the folder for storing multi-run results
+     * @param nSim Number of the simulation, from which its seed is derived
+     */
+    static void runIsolated(String configFileName, Properties overlay, String outputFolder, String multiRunFolder,
+                            int nSim) {
+        runIsolated(configFileName, overlay, outputFolder, multiRunFolder, nSim, null);
+    }
+
+    /**
+     * Run a single simulation on a fresh IsolatingClassLoader, by reflectively calling Model.runIsolatedSimulation,
+     * passing the isolated copy of the Model class to an observer before starting it, such that the observer can follow
+     * the progress of the simulation through its static fields
+     *
+     * @param configFileName String with the address of the configuration file
+     * @param overlay Properties overriding those in the configuration file (null for none)
+     * @param outputFolder String with the address of the folder for storing single-run results
+     * @param multiRunFolder String with the address of the folder for storing multi-run results
+     * @param nSim Number of the simulation, from which its seed is derived
+     * @param modelObserver Observer of the isolated Model class (null for none)
+     */
+    static void runIsolated(String configFileName, Properties overlay, String outputFolder, String multiRunFolder,
+                            int nSim, Consumer<Class<?>> modelObserver) {
+        new File(multiRunFolder).mkdirs();
+        Thread thread = Thread.currentThread();
+        ClassLoader previousLoader = thread.getContextClassLoader();
+        try (IsolatingClassLoader loader = new IsolatingClassLoader()) {
+            thread.setContextClassLoader(loader);
+            Class<?> model = loader.loadClass(Model.class.getName());
+            Method entryPoint = model.getMethod("runIsolatedSimulation", String.class, Properties.class, String.class,
+                    String.class, int.class);
+            if (modelObserver != null) modelObserver.accept(model);
+            entryPoint.invoke(null, configFileName, overlay, outputFolder, multiRunFolder, nSim);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Simulation " + nSim + " failed", e.getCause());
+        } catch (ReflectiveOperationException | IOException e) {
+            throw new RuntimeException("Simulation " + nSim + " could not be started", e);
+        } finally {
+            thread.setContextClassLoader(previousLoader);
+        }
+    }
+
+    /**
+     * Concatenate, in run order, the multi-run files written by each simulation to its own temporary folder into a
+     * single file per core indicator in the output folder, and remove the temporary folders. Every file written by
+     * any simulation is merged, with a warning for each simulation which wrote a temporary folder without that file
+     *
+     * @param outputFolder String with the address of the folder where the merged files are to be written
+     * @param nSims Number of simulations to merge
+     */
+    static void mergeMultiRunFiles(String outputFolder, int nSims) {
+        Set<String> fileNames = new TreeSet<>();
+        for (int nSim = 1; nSim <= nSims; nSim++) {
+            String[] runFileNames = new File(getMultiRunFolder(outputFolder, nSim)).list();
+            if (runFileNames != null) fileNames.addAll(Arrays.asList(runFileNames));
+        }
+        for (String fileName : fileNames) {
+            File mergedFile = new File(outputFolder, fileName);
+            try {
+                FileUtils.write(mergedFile, "", StandardCharsets.UTF_8);
+                for (int nSim = 1; nSim <= nSims; nSim++) {
+                    File runFolder = new File(getMultiRunFolder(outputFolder, nSim));
+                    File runFile = new File(runFolder, fileName);
+                    if (runFile.exists()) {
+                        FileUtils.write(mergedFile, FileUtils.readFileToString(runFile, StandardCharsets.UTF_8),
+                                StandardCharsets.UTF_8, true);
+                    } else if (runFolder.exists()) {
+                        System.out.println("Strange: simulation " + nSim + " did not write " + fileName
+                                + ", which is thus missing its rows");
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (int nSim = 1; nSim <= nSims; nSim++) {
+            FileUtils.deleteQuietly(new File(getMultiRunFolder(outputFolder, nSim)));
+        }
+    }
+
+    static String getMultiRunFolder(String outputFolder, int nSim) {
+        return outputFolder + "multiRun-run" + nSim + "/";
+    }
+}
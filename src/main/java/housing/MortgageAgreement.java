@@ -13,6 +13,7 @@ public class MortgageAgreement extends PaymentAgreement {
     //----- Fields -----//
     //------------------//
 
+	private static final long serialVersionUID = 1L;
 	public double           downPayment;
 	public double           purchasePrice;
     private boolean         isActive;
@@ -91,7 +92,11 @@ public class MortgageAgreement extends PaymentAgreement {
             principal = 0.0;
             monthlyPayment = 0.0;
             nPayments = 0;
-            Model.bank.endMortgageContract(this);
+            if (Household.isDeferringShared()) {
+                h.applyShared(() -> Model.bank.endMortgageContract(this));
+            } else {
+                Model.bank.endMortgageContract(this);
+            }
             if(payoffDueToHouseSale) {h.setPrincipalDueToHouseSale(amount);}
             else {h.setPrincipalPaidBack(amount);} // (record the repayment..)
 		} else {
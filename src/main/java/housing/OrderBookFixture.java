@@ -0,0 +1,174 @@
+package housing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**************************************************************************************************
+ * Class to capture the exact state of the order books of a housing market just before it is
+ * cleared, and to read it back, such that the clearing can be replayed in isolation on realistic
+ * workloads, for instance with an alternative order book or clearing engine. A fixture holds, as
+ * parallel arrays, every offer on the market (id, house id, quality, price, yield, whether it is a
+ * BTL offer and id of the owner of the house, or NO_HOUSEHOLD if not a household) in ascending id
+ * order, and every bid (id, bidder id, price, whether it is a BTL bid and bank balance of the
+ * bidder) in the order of the bids of the market, together with the parameters of the bid-up
+ * mechanism and, for the sale market, the minimum downpayment fraction required from BTL bidders.
+ * The price-yield queue of the sale market is not written, as it holds the same offers as the
+ * price-quality queue. Note that bank balances are those before clearing, whereas, in the model,
+ * a BTL bidder may have sold a house earlier in the same clearing. Fixtures are written as
+ * gzipped binary files by Model, for the time steps given in config.recordOrderBooksAt.
+ *
+ *************************************************************************************************/
+public class OrderBookFixture {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    public static final int     NO_HOUSEHOLD = -1; // Owner id of houses not owned by a household, such as new builds
+    private static final int    MAGIC = 0x4F424658; // "OBFX"
+    private static final int    VERSION = 1;
+
+    public boolean              saleMarket; // True for the sale market, false for the rental market
+    public int                  time; // Time step at which the fixture was captured
+    public double               bidUp; // config.BIDUP
+    public double               monthsUnderOffer; // config.derivedParams.MONTHS_UNDER_OFFER
+    public double               btlMinDownpaymentFraction; // NaN for the rental market
+    // Offers
+    public int[]                offerIds;
+    public int[]                houseIds;
+    public int[]                qualities;
+    public double[]             offerPrices;
+    public double[]             yields;
+    public boolean[]            BTLOffers;
+    public int[]                ownerIds;
+    // Bids
+    public int[]                bidIds;
+    public int[]                bidderIds;
+    public double[]             bidPrices;
+    public boolean[]            BTLBids;
+    public double[]             bankBalances;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Write the offers and bids of a market, which must not have been cleared yet, to a fixture file
+     *
+     * @param market Market to capture
+     * @param fileName Name of the fixture file
+     */
+    static void capture(HousingMarket market, String fileName) {
+        ArrayList<HouseOfferRecord> offers = new ArrayList<>(market.getOffersPQ().size());
+        for (HousingMarketRecord offer : market.getOffersPQ()) offers.add((HouseOfferRecord)offer);
+        offers.sort(Comparator.comparingInt(HousingMarketRecord::getId));
+        ArrayList<HouseBidderRecord> bids = market.getBids();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+                new FileOutputStream(fileName))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(market instanceof HouseSaleMarket);
+            out.writeInt(Model.getTime());
+            out.writeDouble(Model.config.BIDUP);
+            out.writeDouble(Model.config.derivedParams.MONTHS_UNDER_OFFER);
+            out.writeDouble((market instanceof HouseSaleMarket)
+                    ? ((HouseSaleMarket)market).getBTLMinDownpaymentFraction() : Double.NaN);
+            out.writeInt(offers.size());
+            for (HouseOfferRecord offer : offers) {
+                out.writeInt(offer.getId());
+                out.writeInt(offer.getHouse().id);
+                out.writeInt(offer.getQuality());
+                out.writeDouble(offer.getPrice());
+                out.writeDouble(offer.getYield());
+                out.writeBoolean(offer.isBTLOffer());
+                IHouseOwner owner = offer.getHouse().owner;
+                out.writeInt((owner instanceof Household) ? ((Household)owner).id : NO_HOUSEHOLD);
+            }
+            out.writeInt(bids.size());
+            for (HouseBidderRecord bid : bids) {
+                out.writeInt(bid.getId());
+                out.writeInt(bid.getBidder().id);
+                out.writeDouble(bid.getPrice());
+                out.writeBoolean(bid.isBTLBid());
+                out.writeDouble(bid.getBidder().getBankBalance());
+            }
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while trying to write order book fixture '" + fileName + "'");
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * Read a fixture file
+     *
+     * @param fileName Name of the fixture file
+     * @return Fixture read from the file
+     * @throws IOException If the file cannot be read or is not a fixture of this version
+     */
+    public static OrderBookFixture read(String fileName) throws IOException {
+        OrderBookFixture fixture = new OrderBookFixture();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+                new FileInputStream(fileName))))) {
+            if (in.readInt() != MAGIC) throw new IOException("'" + fileName + "' is not an order book fixture");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported order book fixture version " + version);
+            fixture.saleMarket = in.readBoolean();
+            fixture.time = in.readInt();
+            fixture.bidUp = in.readDouble();
+            fixture.monthsUnderOffer = in.readDouble();
+            fixture.btlMinDownpaymentFraction = in.readDouble();
+            int nOffers = in.readInt();
+            fixture.offerIds = new int[nOffers];
+            fixture.houseIds = new int[nOffers];
+            fixture.qualities = new int[nOffers];
+            fixture.offerPrices = new double[nOffers];
+            fixture.yields = new double[nOffers];
+            fixture.BTLOffers = new boolean[nOffers];
+            fixture.ownerIds = new int[nOffers];
+            for (int i = 0; i < nOffers; i++) {
+                fixture.offerIds[i] = in.readInt();
+                fixture.houseIds[i] = in.readInt();
+                fixture.qualities[i] = in.readInt();
+                fixture.offerPrices[i] = in.readDouble();
+                fixture.yields[i] = in.readDouble();
+                fixture.BTLOffers[i] = in.readBoolean();
+                fixture.ownerIds[i] = in.readInt();
+            }
+            int nBids = in.readInt();
+            fixture.bidIds = new int[nBids];
+            fixture.bidderIds = new int[nBids];
+            fixture.bidPrices = new double[nBids];
+            fixture.BTLBids = new boolean[nBids];
+            fixture.bankBalances = new double[nBids];
+            for (int i = 0; i < nBids; i++) {
+                fixture.bidIds[i] = in.readInt();
+                fixture.bidderIds[i] = in.readInt();
+                fixture.bidPrices[i] = in.readDouble();
+                fixture.BTLBids[i] = in.readBoolean();
+                fixture.bankBalances[i] = in.readDouble();
+            }
+        }
+        return fixture;
+    }
+
+    /**
+     * @return Name of the fixture file of a market at a time step, within the given folder
+     */
+    static String getFileName(String folder, HousingMarket market, int nRun, int time) {
+        return folder + "OrderBook-" + ((market instanceof HouseSaleMarket) ? "Sale" : "Rental") + "-run" + nRun
+                + "-t" + time + ".bin.gz";
+    }
+
+    public int getnOffers() { return offerIds.length; }
+
+    public int getnBids() { return bidIds.length; }
+}
@@ -0,0 +1,300 @@
+package housing;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**************************************************************************************************
+ * Class to run a parameter sweep, as described by a sweep manifest (.properties) file, over the
+ * fields of Config. The manifest can contain the following keys:
+ *
+ * design = grid | list | random    Grid: all combinations of the swept values. List: the i-th job
+ *                                  takes the i-th value of every swept parameter. Random: samples
+ *                                  jobs, drawing each parameter uniformly from its range [min, max]
+ *                                  or from its list of values.
+ * threads = <int>                  Size of the worker thread pool (by default, number of cores)
+ * samples = <int>                  Number of jobs for the random design
+ * designSeed = <int>               Seed for the random design
+ * sweep.<FIELD> = <v1>, <v2>...    Values (or, for the random design, also [min, max] range) to be
+ *                                  swept for the Config field FIELD
+ * fixed.<FIELD> = <value>          Value applied to FIELD for all jobs
+ *
+ * Each job is applied as an in-memory overlay on top of the base configuration file, thus reusing
+ * the reflective loader in Config without writing any temporary configuration file. Jobs run on a
+ * bounded pool, longest first according to an estimated cost of TARGET_POPULATION x N_STEPS x
+ * N_SIMS, each of them isolated in its own class loader and writing to its own sub-folder. An
+ * index file, sweepIndex.csv, lists all jobs with their parameter values and outcomes.
+ *
+ *************************************************************************************************/
+public class ParameterSweep {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private String                          configFileName;
+    private String                          outputFolder;
+    private String                          design;
+    private int                             nThreads;
+    private int                             nSamples;
+    private int                             designSeed;
+    private LinkedHashMap<String, String>   sweptValues = new LinkedHashMap<>(); // Field name -> values as in manifest
+    private Properties                      fixedValues = new Properties();
+    private ArrayList<Job>                  jobs = new ArrayList<>();
+
+    /**
+     * Single parameter combination to be run, with its own overlay and output sub-folder
+     */
+    private static class Job {
+        int         number;
+        Properties  overlay;
+        String      folder;
+        long        estimatedCost;
+        int         nSims;
+        String      status = "PENDING";
+        double      computingTime;
+    }
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param manifestFileName String with the address of the sweep manifest file
+     * @param configFileName String with the address of the base configuration file
+     * @param outputFolder String with the address of the folder for storing results (ending with "/")
+     */
+    public ParameterSweep(String manifestFileName, String configFileName, String outputFolder) {
+        this.configFileName = configFileName;
+        this.outputFolder = outputFolder;
+        readManifest(manifestFileName);
+        expandJobs();
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Read and validate the sweep manifest, checking that every swept or fixed key is a Config parameter, and that no
+     * parameter is both swept and fixed
+     */
+    private void readManifest(String manifestFileName) {
+        Properties manifest = new Properties();
+        try (FileReader fileReader = new FileReader(manifestFileName)) {
+            manifest.load(fileReader);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not read sweep manifest '" + manifestFileName + "'", ioe);
+        }
+        design = manifest.getProperty("design", "grid").trim();
+        nThreads = Integer.parseInt(manifest.getProperty("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+        nSamples = Integer.parseInt(manifest.getProperty("samples", "1").trim());
+        designSeed = Integer.parseInt(manifest.getProperty("designSeed", "1").trim());
+        for (String key : new TreeSet<>(manifest.stringPropertyNames())) {
+            if (key.startsWith("sweep.")) {
+                sweptValues.put(checkField(key.substring(6)), manifest.getProperty(key).trim());
+            } else if (key.startsWith("fixed.")) {
+                fixedValues.setProperty(checkField(key.substring(6)), manifest.getProperty(key).trim());
+            } else if (!key.equals("design") && !key.equals("threads") && !key.equals("samples")
+                    && !key.equals("designSeed")) {
+                throw new IllegalArgumentException("Unrecognised sweep manifest key '" + key + "'");
+            }
+        }
+        for (String fieldName : sweptValues.keySet()) {
+            if (fixedValues.containsKey(fieldName)) {
+                throw new IllegalArgumentException("Sweep parameter '" + fieldName + "' is both swept and fixed");
+            }
+        }
+        if (!design.equals("grid") && !design.equals("list") && !design.equals("random")) {
+            throw new IllegalArgumentException("Unrecognised sweep design '" + design + "'");
+        }
+    }
+
+    /**
+     * @return The field name, if it corresponds to a parameter read by Config from the configuration file
+     */
+    private static String checkField(String fieldName) {
+        if (!Config.isParameter(fieldName)) {
+            throw new IllegalArgumentException("Sweep parameter '" + fieldName + "' is not a parameter of Config");
+        }
+        return fieldName;
+    }
+
+    /**
+     * Expand the swept values into jobs, according to the chosen design
+     */
+    private void expandJobs() {
+        ArrayList<Properties> overlays = new ArrayList<>();
+        if (design.equals("grid")) {
+            overlays.add(new Properties());
+            for (Map.Entry<String, String> entry : sweptValues.entrySet()) {
+                ArrayList<Properties> expanded = new ArrayList<>();
+                for (Properties overlay : overlays) {
+                    for (String value : splitValues(entry.getValue())) {
+                        Properties newOverlay = new Properties();
+                        newOverlay.putAll(overlay);
+                        newOverlay.setProperty(entry.getKey(), value);
+                        expanded.add(newOverlay);
+                    }
+                }
+                overlays = expanded;
+            }
+        } else if (design.equals("list")) {
+            int nJobs = -1;
+            for (Map.Entry<String, String> entry : sweptValues.entrySet()) {
+                int nValues = splitValues(entry.getValue()).length;
+                if (nJobs >= 0 && nValues != nJobs) {
+                    throw new IllegalArgumentException("List design requires the same number of values for every " +
+                            "swept parameter, but '" + entry.getKey() + "' has " + nValues + " instead of " + nJobs);
+                }
+                nJobs = nValues;
+            }
+            for (int i = 0; i < Math.max(nJobs, 0); i++) {
+                Properties overlay = new Properties();
+                for (Map.Entry<String, String> entry : sweptValues.entrySet()) {
+                    overlay.setProperty(entry.getKey(), splitValues(entry.getValue())[i]);
+                }
+                overlays.add(overlay);
+            }
+        } else {
+            MersenneTwister rand = new MersenneTwister(designSeed);
+            for (int i = 0; i < nSamples; i++) {
+                Properties overlay = new Properties();
+                for (Map.Entry<String, String> entry : sweptValues.entrySet()) {
+                    overlay.setProperty(entry.getKey(), drawValue(entry.getKey(), entry.getValue(), rand));
+                }
+                overlays.add(overlay);
+            }
+        }
+        // Create jobs, estimating their cost from the resulting configuration
+        for (Properties overlay : overlays) {
+            overlay.putAll(fixedValues);
+            Config jobConfig = new Config(configFileName, overlay);
+            Job job = new Job();
+            job.number = jobs.size() + 1;
+            job.overlay = overlay;
+            job.folder = outputFolder + String.format("job-%04d/", job.number);
+            job.nSims = jobConfig.N_SIMS;
+            job.estimatedCost = (long)jobConfig.TARGET_POPULATION*jobConfig.N_STEPS*jobConfig.N_SIMS;
+            jobs.add(job);
+        }
+    }
+
+    /**
+     * @return Comma-separated values, trimmed, excluding any enclosing square brackets
+     */
+    private static String[] splitValues(String values) {
+        String[] splitValues = values.replace("[", "").replace("]", "").split(",");
+        for (int i = 0; i < splitValues.length; i++) splitValues[i] = splitValues[i].trim();
+        return splitValues;
+    }
+
+    /**
+     * Draw a value for the random design: uniformly within [min, max] if values are given as a range, or uniformly
+     * among the given values otherwise
+     */
+    private static String drawValue(String fieldName, String values, MersenneTwister rand) {
+        String[] splitValues = splitValues(values);
+        if (values.startsWith("[") && values.endsWith("]") && splitValues.length == 2) {
+            Class<?> type;
+            try {
+                type = Config.class.getDeclaredField(fieldName).getType();
+            } catch (NoSuchFieldException nsfe) {
+                throw new IllegalArgumentException("Sweep parameter '" + fieldName + "' is not declared in Config");
+            }
+            if (type == int.class) {
+                int min = Integer.parseInt(splitValues[0]);
+                int max = Integer.parseInt(splitValues[1]);
+                return String.valueOf(min + rand.nextInt(max - min + 1));
+            } else if (type == double.class) {
+                double min = Double.parseDouble(splitValues[0]);
+                double max = Double.parseDouble(splitValues[1]);
+                return String.valueOf(min + rand.nextDouble()*(max - min));
+            } else {
+                throw new IllegalArgumentException("Range given for non-numeric sweep parameter '" + fieldName + "'");
+            }
+        }
+        return splitValues[rand.nextInt(splitValues.length)];
+    }
+
+    /**
+     * Run all jobs, longest first, on a bounded pool, and write the index file once all of them have finished
+     */
+    public void run() {
+        ArrayList<Job> schedule = new ArrayList<>(jobs);
+        schedule.sort(Comparator.comparingLong((Job job) -> job.estimatedCost).reversed());
+        System.out.println("Sweep: " + jobs.size() + " jobs (" + design + " design) on " + nThreads + " threads");
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(nThreads, jobs.size())));
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        for (Job job : schedule) futures.add(pool.submit(() -> runJob(job)));
+        pool.shutdown();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        writeIndex();
+    }
+
+    /**
+     * Run, one after another, all the simulations of a job, each of them isolated in its own class loader
+     */
+    private void runJob(Job job) {
+        long start = System.nanoTime();
+        new File(job.folder).mkdirs();
+        job.status = "RUNNING";
+        try {
+            for (int nSim = 1; nSim <= job.nSims; nSim++) {
+                MonteCarloRunner.runIsolated(configFileName, job.overlay, job.folder,
+                        MonteCarloRunner.getMultiRunFolder(job.folder, nSim), nSim);
+            }
+            MonteCarloRunner.mergeMultiRunFiles(job.folder, job.nSims);
+            job.status = "DONE";
+        } catch (Throwable e) {
+            // Errors, such as from the isolating class loader, must also mark the job as failed in the index
+            System.out.println("Strange: sweep job " + job.number + " did not finish properly");
+            e.printStackTrace();
+            job.status = "FAILED";
+        }
+        job.computingTime = (double)(System.nanoTime() - start)/1_000_000_000;
+        System.out.println("Sweep job " + job.number + " " + job.status + " in " + job.computingTime + " s");
+    }
+
+    /**
+     * Write the index file, with one row per job, in job order
+     */
+    private void writeIndex() {
+        try (PrintWriter index = new PrintWriter(outputFolder + "sweepIndex.csv", "UTF-8")) {
+            StringBuilder header = new StringBuilder("Job, Folder, EstimatedCost, Status, ComputingTime");
+            for (String fieldName : sweptValues.keySet()) header.append(", ").append(fieldName);
+            index.println(header);
+            for (Job job : jobs) {
+                StringBuilder row = new StringBuilder();
+                row.append(job.number).append(", ").append(new File(job.folder).getName()).append(", ")
+                        .append(job.estimatedCost).append(", ").append(job.status).append(", ")
+                        .append(job.computingTime);
+                for (String fieldName : sweptValues.keySet()) {
+                    row.append(", ").append(job.overlay.getProperty(fieldName));
+                }
+                index.println(row);
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
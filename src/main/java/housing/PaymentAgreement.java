@@ -1,5 +1,7 @@
 package housing;
 
+import java.io.Serializable;
+
 /**************************************************************************************************
  * Class to represent a payment contract in general, so as to include both mortgage and rental
  * contracts. It keeps track of the monthly payments associated to the contract and the number of
@@ -8,12 +10,13 @@ package housing;
  * @author daniel, davidrpugh, Adrian Carro
  *
  *************************************************************************************************/
-public class PaymentAgreement {
+public class PaymentAgreement implements Serializable {
 
     //------------------//
     //----- Fields -----//
     //------------------//
 
+    private static final long serialVersionUID = 1L;
     int 		    nPayments;
     public double 	monthlyPayment;
 
@@ -32,7 +35,12 @@ public class PaymentAgreement {
 			h.setRentalPayment(0.0);
 		    return 0.0;
         } else {
-            nPayments -= 1;
+            // The agreement is shared with the landlord
+            if (Household.isDeferringShared()) {
+                h.applyShared(() -> nPayments -= 1);
+            } else {
+                nPayments -= 1;
+            }
             h.setRentalPayment(monthlyPayment);
             return monthlyPayment;
         }
@@ -51,4 +59,18 @@ public class PaymentAgreement {
 		    return monthlyPayment;
         }
 	}
+
+	/**
+	 * Use this method to return the next monthly payment as it will be once the current monthly payment has been made,
+	 * without actually making any payment nor updating the corresponding internal variables
+	 *
+	 * @return The amount of the next monthly payment after the current one
+	 */
+	double nextPaymentAfterMonthlyPayment() {
+		if (nPayments <= 1) {
+			return 0.0;
+		} else {
+			return monthlyPayment;
+		}
+	}
 }
@@ -0,0 +1,130 @@
+package housing;
+
+import java.io.Serializable;
+import java.util.EnumMap;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import utilities.Xoroshiro128PlusPlus;
+
+/**************************************************************************************************
+ * Class to provide the random number streams used by the different parts of the model. By default
+ * (config.splitRandomStreams false), every subsystem and every household draws from a single shared
+ * generator, thus reproducing the original sequence of draws. With split streams, instead, each
+ * subsystem (demographics, construction, sale and rental markets) and each household draws from
+ * its own reproducible stream, such that the draws of any of them do not depend on the order in
+ * which the others draw, which is required for deterministic parallel execution. Streams are
+ * derived from the seed as follows:
+ * - Subsystem streams: for the Xoroshiro128 generator, the n-th subsystem uses the seeded state
+ *   jumped n times (2^64 steps each), thus guaranteeing non-overlapping sequences. For the
+ *   MersenneTwister, the seed and the subsystem number are mixed with SplitMix64.
+ * - Household streams: the seed and the household creation order are mixed with SplitMix64. Note
+ *   that, for the MersenneTwister, each household stream holds a state of about 2.5KB, so the
+ *   Xoroshiro128 generator is recommended for split streams.
+ *
+ *************************************************************************************************/
+public class RandomStreams implements Serializable {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    public enum Subsystem { DEMOGRAPHICS, CONSTRUCTION, SALE_MARKET, RENTAL_MARKET }
+
+    private static final long               serialVersionUID = 1L;
+    private static final long               HOUSEHOLD_STREAMS_OFFSET = 1L << 32; // First stream id for households
+
+    private String                          generator;
+    private boolean                         split;
+    private long                            seed;
+    private RandomGenerator                 shared;
+    private EnumMap<Subsystem, RandomGenerator> subsystemStreams = new EnumMap<>(Subsystem.class);
+    private long                            nHouseholdStreams; // Number of household streams handed out so far
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param generator Name of the generator to use, either "MersenneTwister" or "Xoroshiro128"
+     * @param split True to hand out separate streams per subsystem and household, false to share a single one
+     * @param seed Seed from which all streams are derived
+     */
+    public RandomStreams(String generator, boolean split, int seed) {
+        if (!generator.equals("MersenneTwister") && !generator.equals("Xoroshiro128")) {
+            throw new IllegalArgumentException("Unrecognised random number generator '" + generator + "'");
+        }
+        this.generator = generator;
+        this.split = split;
+        shared = createGenerator(seed);
+        for (Subsystem subsystem : Subsystem.values()) {
+            subsystemStreams.put(subsystem, split ? createGenerator(seed) : shared);
+        }
+        setSeed(seed);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Re-seed all streams in place, such that objects already holding a reference to any of them draw from the newly
+     * seeded sequence, and restart the numbering of household streams
+     *
+     * @param seed Seed from which all streams are derived
+     */
+    public void setSeed(int seed) {
+        this.seed = seed;
+        shared.setSeed(seed);
+        if (split) {
+            for (Subsystem subsystem : Subsystem.values()) {
+                RandomGenerator stream = subsystemStreams.get(subsystem);
+                if (stream instanceof Xoroshiro128PlusPlus) {
+                    stream.setSeed(seed);
+                    for (int i = 0; i <= subsystem.ordinal(); i++) ((Xoroshiro128PlusPlus)stream).jump();
+                } else {
+                    stream.setSeed(deriveSeed(subsystem.ordinal()));
+                }
+            }
+        }
+        nHouseholdStreams = 0;
+    }
+
+    /**
+     * @return Generator shared by all parts of the model if streams are not split, not used otherwise
+     */
+    public RandomGenerator getShared() { return shared; }
+
+    /**
+     * @param subsystem Part of the model requesting the stream
+     * @return Stream to be used by the given subsystem
+     */
+    public RandomGenerator get(Subsystem subsystem) { return subsystemStreams.get(subsystem); }
+
+    /**
+     * @return Stream to be used by a newly created household, different for every household if streams are split
+     */
+    public RandomGenerator newHouseholdStream() {
+        if (!split) return shared;
+        RandomGenerator stream = createGenerator(0);
+        stream.setSeed(deriveSeed(HOUSEHOLD_STREAMS_OFFSET + nHouseholdStreams++));
+        return stream;
+    }
+
+    private RandomGenerator createGenerator(int seed) {
+        if (generator.equals("Xoroshiro128")) {
+            return new Xoroshiro128PlusPlus(seed);
+        } else {
+            return new MersenneTwister(seed);
+        }
+    }
+
+    /**
+     * @return Seed, as an array of two ints, for the stream with the given id, mixing it with the seed by SplitMix64
+     */
+    private int[] deriveSeed(long streamId) {
+        long streamSeed = Xoroshiro128PlusPlus.splitMix64(Xoroshiro128PlusPlus.splitMix64(seed) + streamId);
+        return new int[] {(int)streamSeed, (int)(streamSeed >>> 32)};
+    }
+}
@@ -1,4 +1,5 @@
 package housing;
 
 public class RentalAgreement extends PaymentAgreement {
+    private static final long serialVersionUID = 1L;
 }
@@ -0,0 +1,318 @@
+package housing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+
+/**************************************************************************************************
+ * Class to keep the model running as a long-lived server, accepting simulation jobs over a socket
+ * bound to the local host, such that many short runs (e.g., for calibration) avoid paying, for
+ * each of them, the start-up of the JVM and the parsing of the data tables, which are kept in
+ * DataTableCache across jobs. Clients send one command per line, and receive one reply per line:
+ *
+ * SUBMIT <configFile> <outputFolder> [<FIELD>=<value> ...]   Queue a job running the N_SIMS
+ *                                  simulations of the configuration file, with the given fields
+ *                                  overridden, writing results to the output folder. Replies
+ *                                  "OK <id>".
+ * STATUS <id>                      Replies "<id> <status> run <n>/<N_SIMS> time <t>/<N_STEPS>
+ *                                  <seconds>", where status is PENDING, RUNNING, DONE, FAILED or
+ *                                  CANCELLED, followed, for failed jobs, by the error.
+ * CANCEL <id>                      Cancel a pending job or stop a running one at the end of its
+ *                                  current time step. Replies "OK".
+ * LIST                             Replies with the status line of every job, followed by "END".
+ * SHUTDOWN                         Stop accepting jobs, wait for all submitted jobs to finish and
+ *                                  stop the server. Replies "OK".
+ *
+ * Any failed command is replied with "ERROR <reason>". Jobs run on a bounded pool, in order of
+ * submission, with the simulations of each job running one after another, each of them isolated
+ * in its own class loader, exactly as in a parameter sweep. Note that, while data tables are
+ * shared, the model classes (and their just-in-time compiled code) are loaded anew for every
+ * simulation, as required for isolating their static state.
+ *
+ *************************************************************************************************/
+public class SimulationServer {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private int                             port;
+    private int                             nThreads;
+    private ExecutorService                 pool;
+    private ServerSocket                    serverSocket;
+    private LinkedHashMap<Integer, Job>     jobs = new LinkedHashMap<>(); // Job id -> job, in order of submission
+    private volatile boolean                shuttingDown = false;
+
+    /**
+     * Simulation job submitted by a client, with its own overlay and output folder
+     */
+    private static class Job {
+        int                 number;
+        String              configFileName;
+        Properties          overlay;
+        String              folder;
+        int                 nSims;
+        int                 nSteps;
+        Future<?>           future;
+        volatile String     status = "PENDING";
+        volatile boolean    cancelled = false;
+        volatile int        nSim = 0; // Number of the simulation currently running (0 if none yet)
+        volatile Class<?>   model; // Isolated Model class of the simulation currently running
+        volatile int        t = 0; // Last time step reached, once the job has finished
+        volatile double     computingTime;
+        volatile String     error; // Error which made the job fail (null if none)
+    }
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param port Port, on the local host, on which to accept commands
+     * @param nThreads Number of worker threads on which to run jobs
+     */
+    public SimulationServer(int port, int nThreads) {
+        this.port = port;
+        this.nThreads = Math.max(1, nThreads);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Accept connections, each of them served by its own thread, until a shutdown command is received, and then wait
+     * for all submitted jobs to finish
+     */
+    public void run() {
+        pool = Executors.newFixedThreadPool(nThreads);
+        ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "server-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            System.out.println("Server: accepting jobs on " + serverSocket.getLocalSocketAddress() + " with "
+                    + nThreads + " threads");
+            while (!shuttingDown) {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> serve(socket));
+            }
+        } catch (SocketException se) {
+            if (!shuttingDown) se.printStackTrace();
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while trying to accept connections on port " + port);
+            ioe.printStackTrace();
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            pool.shutdownNow();
+        }
+        connections.shutdownNow();
+        System.out.println("Server: shut down");
+    }
+
+    /**
+     * Read commands from a connection, one per line, replying to each of them, until the client closes it
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                try {
+                    out.println(execute(line.trim().split("\\s+")));
+                } catch (IllegalArgumentException iae) {
+                    out.println("ERROR " + iae.getMessage());
+                }
+            }
+        } catch (IOException ioe) {
+            System.out.println("Exception " + ioe + " while serving connection " + socket);
+        }
+    }
+
+    /**
+     * @param command Command name followed by its arguments
+     * @return Reply to the command, possibly spanning several lines
+     */
+    private String execute(String[] command) {
+        switch (command[0].toUpperCase()) {
+            case "SUBMIT":
+                if (command.length < 3) throw new IllegalArgumentException("Usage: SUBMIT <configFile> <outputFolder> "
+                        + "[<FIELD>=<value> ...]");
+                return "OK " + submit(command);
+            case "STATUS":
+                if (command.length != 2) throw new IllegalArgumentException("Usage: STATUS <id>");
+                return getStatus(getJob(command[1]));
+            case "CANCEL":
+                if (command.length != 2) throw new IllegalArgumentException("Usage: CANCEL <id>");
+                cancel(getJob(command[1]));
+                return "OK";
+            case "LIST":
+                StringBuilder reply = new StringBuilder();
+                synchronized (jobs) {
+                    for (Job job : jobs.values()) reply.append(getStatus(job)).append(System.lineSeparator());
+                }
+                return reply.append("END").toString();
+            case "SHUTDOWN":
+                shutdown();
+                return "OK";
+            default:
+                throw new IllegalArgumentException("Unrecognised command '" + command[0] + "'");
+        }
+    }
+
+    /**
+     * Check a submitted job, prepare its output folder and queue it
+     *
+     * @return Id of the queued job
+     */
+    private int submit(String[] command) {
+        if (shuttingDown) throw new IllegalArgumentException("Server is shutting down");
+        Job job = new Job();
+        job.configFileName = command[1];
+        job.folder = command[2].endsWith("/") ? command[2] : command[2] + "/";
+        job.overlay = new Properties();
+        for (int i = 3; i < command.length; i++) {
+            int separator = command[i].indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Expected <FIELD>=<value> instead of '"
+                    + command[i] + "'");
+            String fieldName = command[i].substring(0, separator);
+            try {
+                Config.class.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException nsfe) {
+                throw new IllegalArgumentException("Parameter '" + fieldName + "' is not declared in Config");
+            }
+            job.overlay.setProperty(fieldName, command[i].substring(separator + 1));
+        }
+        if (!new File(job.configFileName).isFile()) {
+            throw new IllegalArgumentException("Configuration file '" + job.configFileName + "' not found");
+        }
+        Config jobConfig = new Config(job.configFileName, job.overlay);
+        job.nSims = jobConfig.N_SIMS;
+        job.nSteps = jobConfig.N_STEPS;
+        try {
+            FileUtils.forceMkdir(new File(job.folder));
+            FileUtils.copyFileToDirectory(new File(job.configFileName), new File(job.folder));
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Could not prepare output folder '" + job.folder + "': " + ioe);
+        }
+        synchronized (jobs) {
+            job.number = jobs.size() + 1;
+            jobs.put(job.number, job);
+            job.future = pool.submit(() -> runJob(job));
+        }
+        System.out.println("Server: job " + job.number + " submitted, writing to " + job.folder);
+        return job.number;
+    }
+
+    /**
+     * Run, one after another, all the simulations of a job, each of them isolated in its own class loader, stopping if
+     * the job is cancelled
+     */
+    private void runJob(Job job) {
+        long start = System.nanoTime();
+        job.status = "RUNNING";
+        try {
+            for (int nSim = 1; nSim <= job.nSims && !job.cancelled; nSim++) {
+                job.nSim = nSim;
+                MonteCarloRunner.runIsolated(job.configFileName, job.overlay, job.folder,
+                        MonteCarloRunner.getMultiRunFolder(job.folder, nSim), nSim, model -> job.model = model);
+            }
+            MonteCarloRunner.mergeMultiRunFiles(job.folder, job.nSims);
+            job.status = job.cancelled ? "CANCELLED" : "DONE";
+        } catch (Throwable e) {
+            // Errors (e.g., running out of memory for a large population) are caught too, such that the job never
+            // stays RUNNING, and its isolated classes are released below
+            if (job.cancelled || e.getCause() instanceof CancellationException) {
+                job.status = "CANCELLED";
+            } else {
+                System.out.println("Strange: server job " + job.number + " did not finish properly");
+                e.printStackTrace();
+                job.error = (e + ((e.getCause() != null) ? ", caused by " + e.getCause() : "")).replace('\n', ' ');
+                job.status = "FAILED";
+            }
+        }
+        job.t = getTime(job);
+        job.model = null; // Release the isolated classes of the last simulation
+        job.computingTime = (double)(System.nanoTime() - start)/1_000_000_000;
+        System.out.println("Server: job " + job.number + " " + job.status + " in " + job.computingTime + " s");
+    }
+
+    /**
+     * Cancel a job: if pending, it will never start; if running, its current simulation stops at the end of its
+     * current time step, as the thread running it is interrupted
+     */
+    private void cancel(Job job) {
+        job.cancelled = true;
+        if (job.future.cancel(true) && job.status.equals("PENDING")) job.status = "CANCELLED";
+    }
+
+    /**
+     * Stop accepting connections and jobs, such that the server stops once all submitted jobs have finished
+     */
+    private void shutdown() {
+        shuttingDown = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    private Job getJob(String id) {
+        Job job;
+        try {
+            synchronized (jobs) {
+                job = jobs.get(Integer.parseInt(id));
+            }
+        } catch (NumberFormatException nfe) {
+            job = null;
+        }
+        if (job == null) throw new IllegalArgumentException("Unknown job '" + id + "'");
+        return job;
+    }
+
+    /**
+     * @return Status line of a job
+     */
+    private static String getStatus(Job job) {
+        return job.number + " " + job.status + " run " + job.nSim + "/" + job.nSims + " time " + Math.min(getTime(job), job.nSteps) + "/"
+                + job.nSteps + " " + job.computingTime + ((job.error != null) ? " " + job.error : "");
+    }
+
+    /**
+     * @return Time step of the current simulation of a job, read from the static fields of its isolated Model class
+     */
+    private static int getTime(Job job) {
+        Class<?> model = job.model;
+        if (model == null) return job.t;
+        try {
+            return model.getField("t").getInt(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Strange: could not read time of server job " + job.number);
+            return job.t;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package housing;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**************************************************************************************************
+ * Class to measure where the time of each simulated month goes, by timing each phase of
+ * Model.modelStep, as well as the recording of results, and by counting the bytes allocated
+ * during each of them. Each time step is written as a row to the file 'StepProfile-run<n>.csv',
+ * with the nanoseconds and allocated bytes of every phase, the heap in use, the garbage collection
+ * time, and, for both markets, the number of bids, offers and clearing rounds, as well as the bids
+ * summed over all rounds and the offers visited when clearing matches. The totals, averages and
+ * share of each phase, the number of steps per second, the peak heap, the heap retained after the
+ * last garbage collection, the averages per step of the market figures and the average bids per
+ * clearing round are written to the file 'StepProfileSummary-run<n>.csv' and printed to screen at
+ * the end of the run. Allocated bytes are read from the allocation counter of the thread running
+ * the simulation, and thus miss any allocation made by other threads, such as those of a parallel
+ * household step. The heap in use, the garbage collection time, and the peak and retained heap
+ * are read from JVM-wide counters, and are thus only reported when the simulation owns the JVM,
+ * i.e., not when several simulations share it (running in parallel, or in the simulation
+ * server), as these would reset each other's peak heap and charge each other's garbage
+ * collection time to their own steps. Otherwise, these figures are written as NaN. Profiling is
+ * activated by config.recordStepProfile, with Model holding no profiler at all otherwise.
+ *
+ *************************************************************************************************/
+public class StepProfiler {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    public enum Phase { DEMOGRAPHICS, CONSTRUCTION, HOUSEHOLDS, SALE_PRE_CLEARING, SALE_CLEARING,
+        SALE_POST_CLEARING, RENTAL_PRE_CLEARING, RENTAL_CLEARING, RENTAL_POST_CLEARING, HOUSEHOLD_STATS,
+        CREDIT_SUPPLY, BANK, CENTRAL_BANK, RECORDING }
+
+    private static final Phase[]                PHASES = Phase.values();
+    private static final String[]               MARKET_FIGURES = {"SALE_BIDS", "SALE_OFFERS", "SALE_ROUNDS",
+            "SALE_ROUND_BIDS", "SALE_VISITED_OFFERS", "RENTAL_BIDS", "RENTAL_OFFERS", "RENTAL_ROUNDS",
+            "RENTAL_ROUND_BIDS", "RENTAL_VISITED_OFFERS"};
+
+    private com.sun.management.ThreadMXBean     allocationCounter; // Null if the JVM does not count allocations
+    private long                                threadId;
+    private PrintWriter                         outfile;
+    private String                              summaryFileName;
+    private int                                 nRun;
+    private boolean                             ownsJVM; // True if no other simulation runs on this JVM
+    // Current time step
+    private long                                lastNanos;
+    private long                                lastBytes;
+    private long[]                              stepNanos = new long[PHASES.length];
+    private long[]                              stepBytes = new long[PHASES.length];
+    // Whole run
+    private int                                 nSteps = 0;
+    private long                                runNanos = 0;
+    private long[]                              totalNanos = new long[PHASES.length];
+    private long[]                              maxNanos = new long[PHASES.length];
+    private long[]                              totalBytes = new long[PHASES.length];
+    private long[]                              totalMarketFigures = new long[MARKET_FIGURES.length];
+    private long                                initialGCMillis;
+    private long                                lastGCMillis;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param outputFolder String with the address of the folder for storing results
+     * @param nRun Number of the simulation being profiled
+     * @param ownsJVM True if no other simulation runs on this JVM, such that JVM-wide heap and garbage collection
+     *                figures can be attributed to this simulation
+     */
+    StepProfiler(String outputFolder, int nRun, boolean ownsJVM) {
+        this.nRun = nRun;
+        this.ownsJVM = ownsJVM;
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported()) {
+            allocationCounter = (com.sun.management.ThreadMXBean)threadMXBean;
+            allocationCounter.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            System.out.println("Strange: allocated bytes cannot be counted in this JVM, they will be recorded as 0");
+        }
+        threadId = Thread.currentThread().getId();
+        if (ownsJVM) {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+        }
+        initialGCMillis = getGCMillis();
+        lastGCMillis = initialGCMillis;
+        summaryFileName = outputFolder + "StepProfileSummary-run" + nRun + ".csv";
+        try {
+            outfile = new PrintWriter(outputFolder + "StepProfile-run" + nRun + ".csv", "UTF-8");
+            StringBuilder header = new StringBuilder("Model time");
+            for (Phase phase : PHASES) header.append(", ").append(phase).append("_ns");
+            for (Phase phase : PHASES) header.append(", ").append(phase).append("_bytes");
+            header.append(", total_ns, heap_used_bytes, gc_ms");
+            for (String figure : MARKET_FIGURES) header.append(", ").append(figure);
+            outfile.println(header);
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Start timing a new time step
+     */
+    void startStep() {
+        lastBytes = getAllocatedBytes();
+        lastNanos = System.nanoTime();
+    }
+
+    /**
+     * Attribute the time and allocations since the previous call (or the start of the step) to a phase
+     *
+     * @param phase Phase which has just finished
+     */
+    void lap(Phase phase) {
+        long nanos = System.nanoTime();
+        long bytes = getAllocatedBytes();
+        stepNanos[phase.ordinal()] += nanos - lastNanos;
+        stepBytes[phase.ordinal()] += bytes - lastBytes;
+        // Read the clock again, so as not to attribute the reading of the allocation counter to the next phase
+        lastBytes = bytes;
+        lastNanos = System.nanoTime();
+    }
+
+    /**
+     * Finish the current time step, writing its row and adding it to the totals of the run
+     *
+     * @param time Time step which has just finished
+     */
+    void endStep(int time) {
+        long stepTotal = 0;
+        StringBuilder row = new StringBuilder().append(time);
+        for (int i = 0; i < PHASES.length; i++) {
+            row.append(", ").append(stepNanos[i]);
+            stepTotal += stepNanos[i];
+            totalNanos[i] += stepNanos[i];
+            maxNanos[i] = Math.max(maxNanos[i], stepNanos[i]);
+            stepNanos[i] = 0;
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            row.append(", ").append(stepBytes[i]);
+            totalBytes[i] += stepBytes[i];
+            stepBytes[i] = 0;
+        }
+        row.append(", ").append(stepTotal);
+        if (ownsJVM) {
+            long gcMillis = getGCMillis();
+            row.append(", ").append(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()).append(", ")
+                    .append(gcMillis - lastGCMillis);
+            lastGCMillis = gcMillis;
+        } else {
+            row.append(", NaN, NaN");
+        }
+        int[] marketFigures = {Model.houseSaleMarket.getnBidsAtClearing(), Model.houseSaleMarket.getnOffersAtClearing(),
+                Model.houseSaleMarket.getnClearingRounds(), Model.houseSaleMarket.getnRoundBids(),
+                Model.houseSaleMarket.getnVisitedOffers(), Model.houseRentalMarket.getnBidsAtClearing(),
+                Model.houseRentalMarket.getnOffersAtClearing(), Model.houseRentalMarket.getnClearingRounds(),
+                Model.houseRentalMarket.getnRoundBids(), Model.houseRentalMarket.getnVisitedOffers()};
+        for (int i = 0; i < MARKET_FIGURES.length; i++) {
+            row.append(", ").append(marketFigures[i]);
+            totalMarketFigures[i] += marketFigures[i];
+        }
+        if (outfile != null) outfile.println(row);
+        runNanos += stepTotal;
+        nSteps++;
+    }
+
+    /**
+     * Close the per-step file, and write and print the summary of the run
+     */
+    void finishRun() {
+        if (outfile != null) outfile.close();
+        double stepsPerSecond = (runNanos > 0) ? nSteps*1e9/runNanos : 0.0;
+        try (PrintWriter summary = new PrintWriter(summaryFileName, "UTF-8")) {
+            summary.println("Phase, total_ns, mean_ns, max_ns, share, total_bytes, mean_bytes");
+            System.out.println("Step profile of simulation " + nRun + ": " + nSteps + " steps, "
+                    + String.format("%.2f", stepsPerSecond) + " steps/s");
+            System.out.println(String.format("%-22s%14s%14s%9s%16s", "Phase", "mean ms", "max ms", "share",
+                    "mean KB"));
+            for (int i = 0; i < PHASES.length; i++) {
+                double meanNanos = (nSteps > 0) ? (double)totalNanos[i]/nSteps : 0.0;
+                double meanBytes = (nSteps > 0) ? (double)totalBytes[i]/nSteps : 0.0;
+                double share = (runNanos > 0) ? (double)totalNanos[i]/runNanos : 0.0;
+                summary.println(PHASES[i] + ", " + totalNanos[i] + ", " + meanNanos + ", " + maxNanos[i] + ", "
+                        + share + ", " + totalBytes[i] + ", " + meanBytes);
+                System.out.println(String.format("%-22s%14.3f%14.3f%8.1f%%%16.1f", PHASES[i], meanNanos/1e6,
+                        maxNanos[i]/1e6, share*100, meanBytes/1024));
+            }
+            summary.println("TOTAL, " + runNanos + ", " + ((nSteps > 0) ? (double)runNanos/nSteps : 0.0) + ", , 1.0, "
+                    + sum(totalBytes) + ", " + ((nSteps > 0) ? (double)sum(totalBytes)/nSteps : 0.0));
+            summary.println("STEPS_PER_SECOND, " + stepsPerSecond + ", , , , , ");
+            if (ownsJVM) {
+                long peakHeap = 0;
+                long retainedHeap = 0;
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP) {
+                        peakHeap += pool.getPeakUsage().getUsed();
+                        MemoryUsage afterLastGC = pool.getCollectionUsage();
+                        if (afterLastGC != null) retainedHeap += afterLastGC.getUsed();
+                    }
+                }
+                long gcMillis = getGCMillis() - initialGCMillis;
+                summary.println("PEAK_HEAP_BYTES, " + peakHeap + ", , , , , ");
+                summary.println("RETAINED_HEAP_BYTES, " + retainedHeap + ", , , , , ");
+                summary.println("GC_MS, " + gcMillis + ", , , , , ");
+                System.out.println(String.format("Heap: %.1f MB peak, %.1f MB retained after last GC, GC time: %.3f s",
+                        peakHeap/1048576.0, retainedHeap/1048576.0, gcMillis/1000.0));
+            } else {
+                summary.println("PEAK_HEAP_BYTES, NaN, , , , , ");
+                summary.println("RETAINED_HEAP_BYTES, NaN, , , , , ");
+                summary.println("GC_MS, NaN, , , , , ");
+                System.out.println("Heap and GC time not measured, as the JVM is shared with other simulations");
+            }
+            StringBuilder markets = new StringBuilder("Mean per step:");
+            for (int i = 0; i < MARKET_FIGURES.length; i++) {
+                double mean = (nSteps > 0) ? (double)totalMarketFigures[i]/nSteps : 0.0;
+                summary.println(MARKET_FIGURES[i] + "_PER_STEP, " + mean + ", , , , , ");
+                markets.append(String.format(" %s %.1f", MARKET_FIGURES[i], mean));
+            }
+            for (String market : new String[] {"SALE", "RENTAL"}) {
+                long rounds = totalMarketFigures[Arrays.asList(MARKET_FIGURES).indexOf(market + "_ROUNDS")];
+                long roundBids = totalMarketFigures[Arrays.asList(MARKET_FIGURES).indexOf(market + "_ROUND_BIDS")];
+                double bidsPerRound = (rounds > 0) ? (double)roundBids/rounds : 0.0;
+                summary.println(market + "_BIDS_PER_ROUND, " + bidsPerRound + ", , , , , ");
+                markets.append(String.format(" %s_BIDS_PER_ROUND %.1f", market, bidsPerRound));
+            }
+            System.out.println(markets);
+        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private long getAllocatedBytes() {
+        return (allocationCounter != null) ? allocationCounter.getThreadAllocatedBytes(threadId) : 0;
+    }
+
+    /**
+     * @return Total time spent in garbage collection since the start of the JVM, in milliseconds
+     */
+    private static long getGCMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) sum += value;
+        return sum;
+    }
+}
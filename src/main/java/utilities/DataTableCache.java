@@ -0,0 +1,73 @@
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**************************************************************************************************
+ * Class to keep data tables read from files resident across simulations, such that simulations
+ * run one after another (or concurrently, each in its own IsolatingClassLoader) within the same
+ * JVM parse each data file only once. Tables are keyed by the canonical address of the file they
+ * are read from, together with a label telling apart different tables read from the same file,
+ * and are read again whenever the file changes (last modification time or length). Cached tables
+ * are shared among simulations, and are thus to be treated as immutable once loaded. Moreover,
+ * since this class is shared by all class loaders, cached tables must only be built from classes
+ * of this package or of the JDK, never from model classes, which differ from loader to loader.
+ *
+ *************************************************************************************************/
+public class DataTableCache {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final ConcurrentHashMap<String, Entry> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Table loaded from a file, together with the state of the file when it was loaded
+     */
+    private static class Entry {
+        long    lastModified;
+        long    length;
+        Object  table;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Get the table read from a file, loading it if it has not been loaded yet or if the file has changed since
+     *
+     * @param fileName String with the address of the file from which the table is read
+     * @param label Name of the table, to tell apart different tables read from the same file
+     * @param loader Function reading the table from the file
+     * @return The cached table
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String fileName, String label, Supplier<T> loader) {
+        File file = new File(fileName);
+        String key;
+        try {
+            key = file.getCanonicalPath() + "#" + label;
+        } catch (IOException ioe) {
+            key = file.getAbsolutePath() + "#" + label;
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        return (T)tables.compute(key, (k, entry) -> {
+            if (entry != null && entry.lastModified == lastModified && entry.length == length) return entry;
+            Entry newEntry = new Entry();
+            newEntry.lastModified = lastModified;
+            newEntry.length = length;
+            newEntry.table = loader.get();
+            return newEntry;
+        }).table;
+    }
+
+    /**
+     * Remove all cached tables, such that they are read again from their files upon next use
+     */
+    public static void clear() { tables.clear(); }
+}
@@ -0,0 +1,68 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**************************************************************************************************
+ * Interface for the order books holding the offers of a market, from which, for a given bid, the
+ * best offer not more expensive than the bid can be extracted. Elements are iterated through in
+ * ascending X-dimension (price) and, for equal X, descending Y-dimension (quality, yield), and
+ * their X-value must not be changed while they are in the book, so that repricing an element
+ * consists of removing it, changing its price and adding it again.
+ *
+ *************************************************************************************************/
+public interface OrderBook<E> extends Iterable<E>, Serializable {
+
+	/**
+	 * @param element Object to be added
+	 */
+	void add(E element);
+
+	/**
+	 * @param element Object to be removed, if it is in the book
+	 */
+	void remove(E element);
+
+	/**
+	 * Remove several elements at once, such as before changing their X-values, in which case sortPriorities must be
+	 * called before any further use of peek, as after adding elements
+	 *
+	 * @param elements Objects to be removed, each of them only once, if they are in the book
+	 */
+	default void removeAll(Collection<? extends E> elements) { for (E element : elements) remove(element); }
+
+	/**
+	 * @param elements Objects to be added
+	 */
+	default void addAll(Collection<? extends E> elements) { for (E element : elements) add(element); }
+
+	/**
+	 * Prepare the book for peeking, to be called before any use of peek after elements have been added
+	 */
+	void sortPriorities();
+
+	/**
+	 * Find the Y-greatest element that is not X-greater than xGreatestBoundary
+	 *
+	 * @param xGreatestBoundary Element that defines the X value we can't go above
+	 */
+	E peek(E xGreatestBoundary);
+
+	/**
+	 * @return X-sorted list of the uncovered elements, i.e., those Y-greater than every XY-less element, such that peek
+	 * returns the X-greatest of them not X-greater than the boundary
+	 */
+	List<E> getUncoveredElements();
+
+	int size();
+
+	void clear();
+
+	/**
+	 * @return Iterator through the elements in XY-order, whose remove method also removes the element from the book
+	 */
+	@Override
+	Iterator<E> iterator();
+}
@@ -1,7 +1,11 @@
 package utilities;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 /**************************************************************************************************
@@ -19,12 +23,13 @@ import java.util.TreeSet;
  * @author daniel, Adrian Carro
  *
  *************************************************************************************************/
-public class PriorityQueue2D<E> implements Iterable<E> {
+public class PriorityQueue2D<E> implements OrderBook<E> {
 
 	//------------------//
 	//----- Fields -----//
 	//------------------//
 
+	private static final long serialVersionUID = 1L;
 	private TreeSet<E>       	xySortedElements; // X-sorted set of elements with reverse Y-sorting for equal X
 	private TreeSet<E>          uncoveredElements; // X-sorted set of uncovered elements
 	private XYComparator<E>     comparator;
@@ -66,7 +71,9 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	 * Class to encapsulate the XYCompare method at XYComparator such that it can be passed as an argument to the
 	 * TreeSet constructor
 	 */
-	public class XYComparatorClass implements Comparator<E> {
+	public class XYComparatorClass implements Comparator<E>, Serializable {
+		private static final long serialVersionUID = 1L;
+
 		public int compare(E arg0, E arg1) { return comparator.XYCompare(arg0, arg1); }
 	}
 
@@ -74,7 +81,9 @@ public class PriorityQueue2D<E> implements Iterable<E> {
      * Class to encapsulate the XCompare method at XYComparator such that it can be passed as an argument to the
      * TreeSet constructor
      */
-    public class XComparatorClass implements Comparator<E> {
+    public class XComparatorClass implements Comparator<E>, Serializable {
+        private static final long serialVersionUID = 1L;
+
         public int compare(E arg0, E arg1) { return comparator.XCompare(arg0, arg1); }
     }
 
@@ -112,7 +121,7 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	 *
 	 * @param element Object to be added
 	 */
-
+	@Override
 	public void add(E element) {
 		// Add element to the XY-sorted TreeSet
 		xySortedElements.add(element);
@@ -121,6 +130,7 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	/**
 	 * Fill uncoveredElements TreeSet from the xySortedElements TreeSet
 	 */
+	@Override
 	public void sortPriorities() {
 		E element;
 		E lastElementAdded = null; // Initialising with null here just to avoid warning of possible non-initialisation
@@ -152,6 +162,7 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	 *
 	 * @param xGreatestBoundary Element that defines the X value we can't go above
 	 */
+	@Override
 	public E peek(E xGreatestBoundary) {
 		return uncoveredElements.floor(xGreatestBoundary);
 	}
@@ -161,6 +172,7 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	 *
 	 * @param element Element to remove
 	 */
+	@Override
 	public void remove(E element) {
 		xySortedElements.remove(element);
 		removeFromUncovered(element);
@@ -217,8 +229,26 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 		}
 	}
 
+	/**
+	 * Removes the elements from the xySortedElements TreeSet only, without updating the uncoveredElements TreeSet
+	 * element by element, as it has to be filled in again by sortPriorities before any further use of peek. Instead,
+	 * uncoveredElements is just cleared
+	 *
+	 * @param elements Elements to remove
+	 */
+	@Override
+	public void removeAll(Collection<? extends E> elements) {
+		for (E element : elements) xySortedElements.remove(element);
+		uncoveredElements.clear();
+	}
+
+	@Override
+	public List<E> getUncoveredElements() { return new ArrayList<>(uncoveredElements); }
+
+	@Override
 	public int size() { return xySortedElements.size(); }
 
+	@Override
 	public void clear() {
 		uncoveredElements.clear();
 		xySortedElements.clear();
@@ -0,0 +1,283 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**************************************************************************************************
+ * Order book for elements whose Y-dimension takes only a few integer values (bands), such as the
+ * quality of houses, keeping each band as a compact X-sorted (price-sorted) array of elements,
+ * with a parallel primitive array of their X-values, and the X-value of the X-least element of
+ * every band in a further primitive array. Elements within a band are ordered by their X-values
+ * and, for equal X-values, by the XYCompare method of the given comparator, which, for equal Y,
+ * reduces to comparing ids, so that no rebuild is ever needed: adding, removing and repricing an
+ * element take a binary search and a shift of the elements of its band, which are only a fraction
+ * of the book. The Y-greatest element not X-greater than a boundary is found by scanning the
+ * X-least X-values of the bands from the top, returning the first element of the first band not
+ * X-greater than the boundary. This is the same element as returned by PriorityQueue2D, whose
+ * uncovered elements are, for each Y-value, the XY-least element with that Y-value. Elements are
+ * iterated in the same XY-order as PriorityQueue2D by merging the bands through a small heap of
+ * band indices, ordered by the X-value of the next element of each band and, for equal X-values,
+ * by descending band.
+ *
+ *************************************************************************************************/
+public class QualityBucketedOrderBook<E> implements OrderBook<E> {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long                   serialVersionUID = 1L;
+    private static final int                    INITIAL_BAND_CAPACITY = 16;
+
+    private Object[][]                          bandElements; // X-sorted elements of each band
+    private double[][]                          bandXs; // X-values of the elements of each band, in the same order
+    private int[]                               bandSizes; // Number of elements in each band
+    private double[]                            bandFirstXs; // X-value of the X-least element of each band
+    private int                                 size = 0;
+    private PriorityQueue2D.XYComparator<E>     comparator;
+    private BandFunction<E>                     bandFunction;
+    private XFunction<E>                        xFunction;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param nBands Number of bands, such that bands go from 0 to nBands - 1
+     * @param bandFunction Function returning the band of each element, which must not change while in the book
+     * @param xFunction Function returning the X-value of each element, consistent with the XCompare method of the
+     *                  comparator, which must not change while in the book
+     * @param comparator Comparator of elements, as used for PriorityQueue2D
+     */
+    public QualityBucketedOrderBook(int nBands, BandFunction<E> bandFunction, XFunction<E> xFunction,
+                                    PriorityQueue2D.XYComparator<E> comparator) {
+        this.comparator = comparator;
+        this.bandFunction = bandFunction;
+        this.xFunction = xFunction;
+        bandElements = new Object[nBands][INITIAL_BAND_CAPACITY];
+        bandXs = new double[nBands][INITIAL_BAND_CAPACITY];
+        bandSizes = new int[nBands];
+        bandFirstXs = new double[nBands];
+    }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Interface for the function assigning each element to a band
+     */
+    public interface BandFunction<T> extends Serializable {
+        /**
+         * @return Band of the element, from 0 to nBands - 1, with higher bands being Y-greater
+         */
+        int getBand(T element);
+    }
+
+    /**
+     * Interface for the function returning the X-value (price) of each element
+     */
+    public interface XFunction<T> extends Serializable {
+        /**
+         * @return X-value of the element
+         */
+        double getX(T element);
+    }
+
+    /**
+     * Iterator through all elements in XY-order, merging the bands through a heap of the indices of the bands with
+     * elements left, whose remove method removes the last returned element from its band
+     */
+    private class Iter implements Iterator<E> {
+        // Fields
+        int[]   cursors = new int[bandSizes.length]; // Position of the next element of each band
+        int[]   heap = new int[bandSizes.length];
+        int     heapSize = 0;
+        int     lastBand = -1;
+        // Constructors
+        Iter() {
+            for (int band = 0; band < bandSizes.length; band++) {
+                if (bandSizes[band] > 0) heap[heapSize++] = band;
+            }
+            for (int i = heapSize/2 - 1; i >= 0; i--) siftDown(i);
+        }
+        // Methods
+        @Override
+        public boolean hasNext() { return heapSize > 0; }
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (heapSize == 0) throw new NoSuchElementException();
+            lastBand = heap[0];
+            E element = (E)bandElements[lastBand][cursors[lastBand]++];
+            if (cursors[lastBand] == bandSizes[lastBand]) heap[0] = heap[--heapSize];
+            siftDown(0);
+            return element;
+        }
+        @Override
+        public void remove() {
+            if (lastBand < 0) throw new IllegalStateException();
+            // The next element of the band shifts down into the position of the removed one, keeping the heap order
+            removeAt(lastBand, --cursors[lastBand]);
+            lastBand = -1;
+        }
+        /**
+         * @return True if the next element of band a is XY-less than the next element of band b
+         */
+        private boolean less(int a, int b) {
+            double xA = bandXs[a][cursors[a]];
+            double xB = bandXs[b][cursors[b]];
+            return xA < xB || (xA == xB && a > b);
+        }
+        private void siftDown(int i) {
+            while (true) {
+                int least = i;
+                int left = 2*i + 1;
+                int right = left + 1;
+                if (left < heapSize && less(heap[left], heap[least])) least = left;
+                if (right < heapSize && less(heap[right], heap[least])) least = right;
+                if (least == i) return;
+                int band = heap[i];
+                heap[i] = heap[least];
+                heap[least] = band;
+                i = least;
+            }
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void add(E element) {
+        int band = bandFunction.getBand(element);
+        double x = xFunction.getX(element);
+        Object[] elements = bandElements[band];
+        double[] xs = bandXs[band];
+        int n = bandSizes[band];
+        // Find the insertion point after the X-less elements and the XY-less elements with the same X-value
+        int i = lowerBound(xs, n, x);
+        while (i < n && xs[i] == x) {
+            int comparison = comparator.XYCompare((E)elements[i], element);
+            if (comparison == 0) return; // Already in the book
+            if (comparison > 0) break;
+            i++;
+        }
+        if (n == elements.length) {
+            bandElements[band] = elements = Arrays.copyOf(elements, 2*n);
+            bandXs[band] = xs = Arrays.copyOf(xs, 2*n);
+        }
+        System.arraycopy(elements, i, elements, i + 1, n - i);
+        System.arraycopy(xs, i, xs, i + 1, n - i);
+        elements[i] = element;
+        xs[i] = x;
+        bandSizes[band] = n + 1;
+        bandFirstXs[band] = xs[0];
+        size++;
+    }
+
+    @Override
+    public void remove(E element) {
+        int band = bandFunction.getBand(element);
+        double x = xFunction.getX(element);
+        Object[] elements = bandElements[band];
+        double[] xs = bandXs[band];
+        int n = bandSizes[band];
+        for (int i = lowerBound(xs, n, x); i < n && xs[i] == x; i++) {
+            if (elements[i] == element) {
+                removeAt(band, i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove the element at a given position of a band, updating the X-value of the X-least element of the band
+     */
+    private void removeAt(int band, int i) {
+        Object[] elements = bandElements[band];
+        double[] xs = bandXs[band];
+        int n = bandSizes[band] - 1;
+        System.arraycopy(elements, i + 1, elements, i, n - i);
+        System.arraycopy(xs, i + 1, xs, i, n - i);
+        elements[n] = null;
+        bandSizes[band] = n;
+        if (n > 0) bandFirstXs[band] = xs[0];
+        size--;
+    }
+
+    /**
+     * @return Position of the first of the first n X-values not less than x
+     */
+    private static int lowerBound(double[] xs, int n, double x) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Nothing to do, as bands are always sorted
+     */
+    @Override
+    public void sortPriorities() {}
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek(E xGreatestBoundary) {
+        double x = xFunction.getX(xGreatestBoundary);
+        for (int band = bandSizes.length - 1; band >= 0; band--) {
+            if (bandSizes[band] > 0 && bandFirstXs[band] <= x) return (E)bandElements[band][0];
+        }
+        return null;
+    }
+
+    /**
+     * The X-least element of a band is uncovered if the X-least elements of all higher bands are strictly X-greater
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<E> getUncoveredElements() {
+        ArrayList<E> uncovered = new ArrayList<>();
+        double xLeast = Double.POSITIVE_INFINITY;
+        boolean found = false;
+        for (int band = bandSizes.length - 1; band >= 0; band--) {
+            if (bandSizes[band] > 0 && (!found || bandFirstXs[band] < xLeast)) {
+                uncovered.add((E)bandElements[band][0]);
+                xLeast = bandFirstXs[band];
+                found = true;
+            }
+        }
+        Collections.reverse(uncovered);
+        return uncovered;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public void clear() {
+        for (int band = 0; band < bandSizes.length; band++) {
+            Arrays.fill(bandElements[band], 0, bandSizes[band], null);
+            bandSizes[band] = 0;
+        }
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() { return new Iter(); }
+}
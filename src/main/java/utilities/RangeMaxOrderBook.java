@@ -0,0 +1,295 @@
+package utilities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**************************************************************************************************
+ * Order book for elements whose Y-dimension is continuous, such as the yield of houses, kept as a
+ * treap (a binary search tree balanced by random node priorities) in XY-order, where each node
+ * also holds the best element of its subtree, that is, the Y-greatest element and, among equally
+ * Y-great elements, the XY-least one. As elements not X-greater than a boundary form a prefix of
+ * the XY-order, the Y-greatest of them is found by a single descent from the root, combining the
+ * best elements of the left subtrees passed by. Thus, adding, removing and repricing an element,
+ * as well as peeking, take O(log n) expected time, and no rebuild is ever needed. The element
+ * returned by peek is the same as returned by PriorityQueue2D, whose uncovered elements are, for
+ * each Y-value, the XY-least element with that Y-value. Node priorities are drawn from an internal
+ * generator, such that the random number streams of the model are not affected.
+ *
+ *************************************************************************************************/
+public class RangeMaxOrderBook<E> implements OrderBook<E> {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long                   serialVersionUID = 1L;
+    private PriorityQueue2D.XYComparator<E>     comparator;
+    private Node<E>                             root = null;
+    private int                                 size = 0;
+    private long                                priorityState = 0; // State of the generator of node priorities
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param comparator Comparator of elements, as used for PriorityQueue2D
+     */
+    public RangeMaxOrderBook(PriorityQueue2D.XYComparator<E> comparator) { this.comparator = comparator; }
+
+    //----------------------//
+    //----- Subclasses -----//
+    //----------------------//
+
+    /**
+     * Node of the treap, holding an element and the best element of its subtree
+     */
+    private static class Node<T> implements Serializable {
+        // Fields
+        private static final long serialVersionUID = 1L;
+        T       element;
+        int     priority;
+        Node<T> left;
+        Node<T> right;
+        T       best;
+        // Constructors
+        Node(T element, int priority) {
+            this.element = element;
+            this.priority = priority;
+            best = element;
+        }
+    }
+
+    /**
+     * Iterator through all elements in XY-order, finding each next element by a search from the root, such that the
+     * book can be modified (in particular, the last returned element can be removed) between calls
+     */
+    private class Iter implements Iterator<E> {
+        // Fields
+        E next = first();
+        E last;
+        // Methods
+        @Override
+        public boolean hasNext() { return next != null; }
+        @Override
+        public E next() {
+            if (next == null) throw new NoSuchElementException();
+            last = next;
+            next = higher(last);
+            return last;
+        }
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            RangeMaxOrderBook.this.remove(last);
+            last = null;
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void add(E element) { root = insert(root, element); }
+
+    @Override
+    public void remove(E element) { root = delete(root, element); }
+
+    /**
+     * Nothing to do, as subtree bests are always up to date
+     */
+    @Override
+    public void sortPriorities() {}
+
+    @Override
+    public E peek(E xGreatestBoundary) {
+        E best = null;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.XCompare(node.element, xGreatestBoundary) <= 0) {
+                // The node and its whole left subtree are within the boundary, thus continue to the right
+                if (node.left != null) best = better(best, node.left.best);
+                best = better(best, node.element);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Starting from the Y-greatest element, each next uncovered element is the best of those XY-less than the
+     * previous one
+     */
+    @Override
+    public List<E> getUncoveredElements() {
+        ArrayList<E> uncovered = new ArrayList<>();
+        E element = (root != null) ? root.best : null;
+        while (element != null) {
+            uncovered.add(element);
+            element = bestBefore(element);
+        }
+        Collections.reverse(uncovered);
+        return uncovered;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() { return new Iter(); }
+
+    /**
+     * Insert an element into a subtree, unless already there, rotating the new node up while its priority is higher
+     * than that of its parent
+     *
+     * @return Root of the subtree
+     */
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            size++;
+            return new Node<>(element, nextPriority());
+        }
+        int cmp = comparator.XYCompare(element, node.element);
+        if (cmp < 0) {
+            node.left = insert(node.left, element);
+            if (node.left.priority > node.priority) {
+                Node<E> left = node.left;
+                node.left = left.right;
+                left.right = update(node);
+                node = left;
+            }
+        } else if (cmp > 0) {
+            node.right = insert(node.right, element);
+            if (node.right.priority > node.priority) {
+                Node<E> right = node.right;
+                node.right = right.left;
+                right.left = update(node);
+                node = right;
+            }
+        }
+        return update(node);
+    }
+
+    /**
+     * Delete an element from a subtree, if there, replacing its node by the merge of its children
+     *
+     * @return Root of the subtree
+     */
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) return null;
+        int cmp = comparator.XYCompare(element, node.element);
+        if (cmp < 0) {
+            node.left = delete(node.left, element);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, element);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+
+    /**
+     * Merge two subtrees, all elements of the first being XY-less than those of the second
+     *
+     * @return Root of the merged tree
+     */
+    private Node<E> merge(Node<E> lower, Node<E> higher) {
+        if (lower == null) return higher;
+        if (higher == null) return lower;
+        if (lower.priority > higher.priority) {
+            lower.right = merge(lower.right, higher);
+            return update(lower);
+        } else {
+            higher.left = merge(lower, higher.left);
+            return update(higher);
+        }
+    }
+
+    /**
+     * Recompute the best element of a subtree from those of its children
+     */
+    private Node<E> update(Node<E> node) {
+        E best = node.element;
+        if (node.left != null) best = better(node.left.best, best);
+        if (node.right != null) best = better(best, node.right.best);
+        node.best = best;
+        return node;
+    }
+
+    /**
+     * @return The Y-greater of both elements or, if equally Y-great, the XY-lesser one (null elements lose)
+     */
+    private E better(E arg0, E arg1) {
+        if (arg0 == null) return arg1;
+        if (arg1 == null) return arg0;
+        int cmp = comparator.YCompare(arg0, arg1);
+        if (cmp == 0) cmp = -comparator.XYCompare(arg0, arg1);
+        return (cmp >= 0) ? arg0 : arg1;
+    }
+
+    /**
+     * @return The best of the elements strictly XY-less than the given one, or null if there is none
+     */
+    private E bestBefore(E element) {
+        E best = null;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.XYCompare(node.element, element) < 0) {
+                if (node.left != null) best = better(best, node.left.best);
+                best = better(best, node.element);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    private E first() {
+        Node<E> node = root;
+        if (node == null) return null;
+        while (node.left != null) node = node.left;
+        return node.element;
+    }
+
+    /**
+     * @return The XY-least element strictly XY-greater than the given one, or null if there is none
+     */
+    private E higher(E element) {
+        E higher = null;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.XYCompare(node.element, element) > 0) {
+                higher = node.element;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return higher;
+    }
+
+    /**
+     * @return Pseudo-random node priority, from a SplitMix64 generator
+     */
+    private int nextPriority() {
+        long z = (priorityState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30))*0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27))*0x94D049BB133111EBL;
+        return (int)(z ^ (z >>> 31));
+    }
+}
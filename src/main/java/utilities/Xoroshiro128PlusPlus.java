@@ -0,0 +1,109 @@
+package utilities;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**************************************************************************************************
+ * Implementation of the xoroshiro128++ pseudo-random number generator by Blackman and Vigna, with
+ * a period of 2^128 - 1 and a state of just two longs, which makes it considerably faster and
+ * lighter than the MersenneTwister. Seeds are expanded into the state with the SplitMix64
+ * generator, also available as a static method for deriving seeds of independent streams. The
+ * jump() method advances the state by 2^64 steps, thus allowing for up to 2^64 non-overlapping
+ * streams to be obtained from a single seed.
+ *
+ *************************************************************************************************/
+public class Xoroshiro128PlusPlus extends BitsStreamGenerator {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long serialVersionUID = 1L;
+    private static final long[] JUMP = {0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L}; // Polynomial for 2^64 steps
+
+    private long                s0;
+    private long                s1;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public Xoroshiro128PlusPlus(long seed) { setSeed(seed); }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void setSeed(int seed) { setSeed((long)seed); }
+
+    @Override
+    public void setSeed(int[] seed) {
+        long combinedSeed = 0;
+        for (int value : seed) combinedSeed = splitMix64(combinedSeed ^ value);
+        setSeed(combinedSeed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        s0 = splitMix64(seed);
+        s1 = splitMix64(seed + 0x9e3779b97f4a7c15L);
+        if (s0 == 0 && s1 == 0) s1 = 1; // The all-zero state is the only one not allowed
+        clear(); // Discard any cached normal deviate
+    }
+
+    @Override
+    public long nextLong() {
+        final long t0 = s0;
+        long t1 = s1;
+        final long result = Long.rotateLeft(t0 + t1, 17) + t0;
+        t1 ^= t0;
+        s0 = Long.rotateLeft(t0, 49) ^ t1 ^ (t1 << 21);
+        s1 = Long.rotateLeft(t1, 28);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) { return (int)(nextLong() >>> (64 - bits)); }
+
+    @Override
+    public int nextInt() { return (int)(nextLong() >>> 32); }
+
+    @Override
+    public double nextDouble() { return (nextLong() >>> 11)*0x1.0p-53; }
+
+    @Override
+    public boolean nextBoolean() { return nextLong() < 0; }
+
+    /**
+     * Advance the state by 2^64 steps, equivalent to 2^64 calls to nextLong()
+     */
+    public void jump() {
+        long t0 = 0;
+        long t1 = 0;
+        for (long polynomial : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((polynomial & (1L << b)) != 0) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                }
+                nextLong();
+            }
+        }
+        s0 = t0;
+        s1 = t1;
+        clear();
+    }
+
+    /**
+     * SplitMix64 mixing function, returning a well-distributed long for every input, such that consecutive or
+     * otherwise similar inputs lead to statistically independent outputs
+     *
+     * @param x Input value
+     */
+    public static long splitMix64(long x) {
+        long z = x + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27))*0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}